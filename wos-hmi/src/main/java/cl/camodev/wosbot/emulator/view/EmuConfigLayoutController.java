@@ -9,6 +9,7 @@ import cl.camodev.wosbot.emulator.EmulatorType;
 import cl.camodev.wosbot.emulator.model.EmulatorAux;
 import cl.camodev.wosbot.serv.impl.ServConfig;
 import cl.camodev.wosbot.serv.impl.ServScheduler;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -23,6 +24,7 @@ import javafx.scene.control.TextField;
 import javafx.scene.control.ToggleGroup;
 import javafx.scene.control.cell.PropertyValueFactory;
 import cl.camodev.wosbot.emulator.AdbDeviceService;
+import cl.camodev.wosbot.emulator.DeviceDiscoveryService;
 import java.util.Optional;
 
 public class EmuConfigLayoutController {
@@ -185,10 +187,18 @@ public class EmuConfigLayoutController {
 	}
 	
 	private void selectEmulatorFromAdb(EmulatorAux emulator) {
+		// Get available ADB devices in the background, the dialog opens once they are read
+		DeviceDiscoveryService.getInstance().refresh().whenComplete((devices, error) -> Platform.runLater(() -> {
+			if (error != null) {
+				showError("Failed to get ADB devices: " + error.getMessage());
+			} else {
+				showAdbDeviceChoice(emulator, devices);
+			}
+		}));
+	}
+	
+	private void showAdbDeviceChoice(EmulatorAux emulator, List<AdbDeviceService.AdbDevice> devices) {
 		try {
-			// Get available ADB devices
-			List<AdbDeviceService.AdbDevice> devices = AdbDeviceService.getConnectedDevices();
-			
 			if (devices.isEmpty()) {
 				showError("No Android devices/emulators detected via ADB.");
 				return;
@@ -51,6 +51,7 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 import cl.camodev.wosbot.emulator.AdbDeviceService;
+import cl.camodev.wosbot.emulator.DeviceDiscoveryService;
 import nu.pattern.OpenCV;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -530,44 +531,60 @@ public class LauncherLayoutController implements IProfileLoadListener {
 			}
 		});
 		
+		// Keep the dropdown up to date as devices connect and disconnect
+		DeviceDiscoveryService.getInstance().addListener(devices -> Platform.runLater(() -> showAvailableEmulators(devices)));
+		
 		// Load available emulators
 		loadAvailableEmulators();
-		
-		// Load saved selection
-		loadSavedEmulatorSelection();
 	}
 	
 	/**
-	 * Load available emulators from ADB and populate the dropdown
+	 * Load available emulators from ADB in the background, the dropdown is populated when they are read
 	 */
 	private void loadAvailableEmulators() {
-		Platform.runLater(() -> {
-			try {
-				emulatorComboBox.getItems().clear();
-				
-				// Get connected devices via ADB
-				List<AdbDeviceService.AdbDevice> devices = AdbDeviceService.getConnectedDevices();
-				
-				for (AdbDeviceService.AdbDevice device : devices) {
-					String displayText = String.format("%s (%s)", device.getName(), device.getDeviceId());
-					emulatorComboBox.getItems().add(displayText);
-				}
-				
-				if (emulatorComboBox.getItems().isEmpty()) {
-					emulatorComboBox.getItems().add("No emulators detected");
-					emulatorComboBox.setDisable(true);
-				} else {
-					emulatorComboBox.setDisable(false);
-				}
-			} catch (Exception e) {
-				logger.error("Failed to load available emulators: {}", e.getMessage());
+		DeviceDiscoveryService.getInstance().refresh().exceptionally(e -> {
+			logger.error("Failed to load available emulators: {}", e.getMessage());
+			Platform.runLater(() -> {
+				updatingComboBox = true;
 				emulatorComboBox.getItems().clear();
 				emulatorComboBox.getItems().add("Error loading emulators");
 				emulatorComboBox.setDisable(true);
-			}
+				updatingComboBox = false;
+			});
+			return null;
 		});
 	}
 	
+	/**
+	 * Populate the dropdown with the detected devices, keeping the current selection
+	 */
+	private void showAvailableEmulators(List<AdbDeviceService.AdbDevice> devices) {
+		String selected = emulatorComboBox.getSelectionModel().getSelectedItem();
+		
+		updatingComboBox = true;
+		emulatorComboBox.getItems().clear();
+		for (AdbDeviceService.AdbDevice device : devices) {
+			String displayText = String.format("%s (%s)", device.getName(), device.getDeviceId());
+			emulatorComboBox.getItems().add(displayText);
+		}
+		
+		if (emulatorComboBox.getItems().isEmpty()) {
+			emulatorComboBox.getItems().add("No emulators detected");
+			emulatorComboBox.setDisable(true);
+		} else {
+			emulatorComboBox.setDisable(false);
+			if (selected != null && emulatorComboBox.getItems().contains(selected)) {
+				emulatorComboBox.getSelectionModel().select(selected);
+			}
+		}
+		updatingComboBox = false;
+		
+		// Load saved selection
+		if (emulatorComboBox.getSelectionModel().getSelectedItem() == null) {
+			loadSavedEmulatorSelection();
+		}
+	}
+	
 	/**
 	 * Save the selected emulator to configuration
 	 */
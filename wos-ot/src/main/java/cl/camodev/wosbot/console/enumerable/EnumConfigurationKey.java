@@ -10,6 +10,7 @@ public enum EnumConfigurationKey {
 	
 	MAX_RUNNING_EMULATORS_INT("1", Integer.class),
 	MAX_IDLE_TIME_INT("1", Integer.class),
+	INPUT_BACKEND_STRING("INPUT", String.class),
 	
 	BOOL_NOMADIC_MERCHANT("false", Boolean.class), 
 	BOOL_NOMADIC_MERCHANT_VIP_POINTS("false", Boolean.class), 
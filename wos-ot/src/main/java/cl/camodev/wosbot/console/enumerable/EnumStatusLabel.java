@@ -0,0 +1,29 @@
+package cl.camodev.wosbot.console.enumerable;
+
+/**
+ * Status words shown on buildings and queues, with the image of each word used to classify them.
+ */
+public enum EnumStatusLabel {
+
+	// @formatter:off
+	IDLE("Idle", "/templates/status/idle.png"),
+	COMPLETED("Completed", "/templates/status/completed.png"),
+	UPGRADING("Upgrading", "/templates/status/upgrading.png");
+	// @formatter:on
+
+	private final String text;
+	private final String template;
+
+	EnumStatusLabel(String text, String template) {
+		this.text = text;
+		this.template = template;
+	}
+
+	public String getText() {
+		return text;
+	}
+
+	public String getTemplate() {
+		return template;
+	}
+}
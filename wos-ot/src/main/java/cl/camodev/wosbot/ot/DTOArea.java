@@ -0,0 +1,24 @@
+package cl.camodev.wosbot.ot;
+
+public class DTOArea {
+	private DTOPoint topLeft;
+	private DTOPoint bottomRight;
+
+	public DTOArea(DTOPoint topLeft, DTOPoint bottomRight) {
+		this.topLeft = topLeft;
+		this.bottomRight = bottomRight;
+	}
+
+	public DTOPoint getTopLeft() {
+		return topLeft;
+	}
+
+	public DTOPoint getBottomRight() {
+		return bottomRight;
+	}
+
+	@Override
+	public String toString() {
+		return "DTOArea [topLeft=" + topLeft + ", bottomRight=" + bottomRight + "]";
+	}
+}
@@ -0,0 +1,50 @@
+package cl.camodev.wosbot.ot;
+
+import cl.camodev.wosbot.console.enumerable.EnumStatusLabel;
+
+public class DTOStatusLabel {
+	private EnumStatusLabel label;
+	private double confidence;
+	private String text;
+
+	public DTOStatusLabel(EnumStatusLabel label, double confidence, String text) {
+		this.label = label;
+		this.confidence = confidence;
+		this.text = text;
+	}
+
+	// Getters y setters
+
+	/**
+	 * @return Status read, or null if the region does not show a known status word
+	 */
+	public EnumStatusLabel getLabel() {
+		return label;
+	}
+
+	public void setLabel(EnumStatusLabel label) {
+		this.label = label;
+	}
+
+	/**
+	 * @return Similarity of the region with the closest status word image, between 0 and 1
+	 */
+	public double getConfidence() {
+		return confidence;
+	}
+
+	public void setConfidence(double confidence) {
+		this.confidence = confidence;
+	}
+
+	/**
+	 * @return Text read by OCR when the region was not classified, null otherwise
+	 */
+	public String getText() {
+		return text;
+	}
+
+	public void setText(String text) {
+		this.text = text;
+	}
+}
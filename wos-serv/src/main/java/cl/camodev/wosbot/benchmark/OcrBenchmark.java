@@ -0,0 +1,318 @@
+package cl.camodev.wosbot.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import cl.camodev.utiles.EnumOcrProfile;
+import cl.camodev.utiles.ImageFrame;
+import cl.camodev.utiles.OcrCache;
+import cl.camodev.utiles.StatusLabelClassifier;
+import cl.camodev.utiles.TimerGlyphRecognizer;
+import cl.camodev.utiles.UtilOCR;
+import cl.camodev.wosbot.console.enumerable.EnumStatusLabel;
+import cl.camodev.wosbot.ot.DTOArea;
+import cl.camodev.wosbot.ot.DTOPoint;
+import cl.camodev.wosbot.ot.DTOStatusLabel;
+
+/**
+ * Accuracy and latency benchmark of the OCR engines over a labeled corpus of crops taken from real screens.
+ * <p>
+ * The corpus is a directory with the crops (QOI or PNG) and an {@code expected.csv} file, one crop per line:
+ *
+ * <pre>
+ * # crop, kind, expected
+ * march_01.png, TIMER, 1d 02:03:04
+ * stamina_01.png, INTEGER, 123/200
+ * furnace_01.png, STATUS, Idle
+ * </pre>
+ *
+ * The kind is {@code TIMER}, {@code INTEGER}, {@code STATUS} or {@code TEXT} and selects the OCR profile and the parser
+ * of the field. Everything after the second comma is the expected text.
+ * <p>
+ * Every engine that applies to a kind reads every crop and is reported with its exact match rate (normalized
+ * whitespace), parse success rate (the parsed value equals the parsed expected text) and time per call. The OCR cache
+ * is disabled. It runs headless and reads the bundled tessdata from {@value UtilOCR#TESSDATA_PATH}, so it must be
+ * started from the {@code wos-hmi} directory.
+ * <p>
+ * The engines that learn from their own Tesseract fallback (timer glyphs and status words) are only scored on crops
+ * they have not been trained with. The samples of each kind are split alternately into a training and a held-out half.
+ * Two passes are reported over the held-out half, each starting from the bundled samples only: {@code cold}, as the
+ * bot reads right after starting, and {@code held-out}, after an unmeasured pass over the training half. Every crop is
+ * read once in these passes, and it is scored before anything is learned from it.
+ *
+ * <pre>
+ * OcrBenchmark &lt;corpusDir&gt; [repeats=3]
+ * </pre>
+ */
+public class OcrBenchmark {
+
+	private static final String EXPECTED_FILE = "expected.csv";
+	private static final String REGION_KEY = "region";
+
+	private static final Pattern NUMBER_PATTERN = Pattern.compile("\\d+");
+
+	private enum Kind {
+		TIMER(EnumOcrProfile.TIMER_HHMMSS),
+		INTEGER(EnumOcrProfile.INTEGER),
+		STATUS(EnumOcrProfile.STATUS_WORD),
+		TEXT(EnumOcrProfile.DEFAULT);
+
+		private final EnumOcrProfile profile;
+
+		Kind(EnumOcrProfile profile) {
+			this.profile = profile;
+		}
+
+		/**
+		 * @return Value of a reading of this kind, empty if it can not be parsed.
+		 */
+		private Optional<Object> parse(String text) {
+			switch (this) {
+			case TIMER:
+				return TimerGlyphRecognizer.parseDuration(text).map(Object.class::cast);
+			case INTEGER:
+				// "1,234" y "123/200" se comparan como la lista de números
+				List<Long> numbers = new ArrayList<>();
+				Matcher matcher = NUMBER_PATTERN.matcher(text.replace(",", ""));
+				while (matcher.find()) {
+					numbers.add(Long.parseLong(matcher.group()));
+				}
+				return numbers.isEmpty() ? Optional.empty() : Optional.of(numbers);
+			case STATUS:
+				EnumStatusLabel label = StatusLabelClassifier.find(text);
+				return label != null ? Optional.of(label) : TimerGlyphRecognizer.parseDuration(text).map(Object.class::cast);
+			default:
+				String normalized = normalize(text);
+				return normalized.isEmpty() ? Optional.empty() : Optional.of(normalized);
+			}
+		}
+	}
+
+	private record Sample(String crop, Kind kind, String expected, int line) {
+	}
+
+	@FunctionalInterface
+	private interface Reader {
+		String read(ImageFrame frame, DTOArea area, Kind kind) throws Exception;
+	}
+
+	/**
+	 * @param reset Forgets what the engine learned, null if it does not learn.
+	 */
+	private record Engine(String name, Set<Kind> kinds, boolean exact, Reader reader, Runnable reset) {
+		private boolean learns() {
+			return reset != null;
+		}
+	}
+
+	private static class Stats {
+		private int samples;
+		private int exactMatches;
+		private int parsed;
+		private final List<Long> timesNanos = new ArrayList<>();
+		private final List<String> failures = new ArrayList<>();
+
+		private double percentileMillis(double percentile) {
+			if (timesNanos.isEmpty()) {
+				return 0.0;
+			}
+			List<Long> sorted = new ArrayList<>(timesNanos);
+			sorted.sort(null);
+			int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+			return sorted.get(Math.max(0, index)) / 1_000_000.0;
+		}
+
+		private double meanMillis() {
+			return timesNanos.stream().mapToLong(Long::longValue).average().orElse(0.0) / 1_000_000.0;
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("Usage: OcrBenchmark <corpusDir> [repeats=3]");
+			System.exit(1);
+		}
+
+		Path corpus = Paths.get(args[0]);
+		int repeats = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+		System.setProperty("java.awt.headless", "true");
+		nu.pattern.OpenCV.loadShared();
+		OcrCache.getInstance().setEnabled(false);
+
+		List<Sample> samples = readSamples(corpus.resolve(EXPECTED_FILE));
+		Map<String, byte[]> crops = new LinkedHashMap<>();
+		for (Sample sample : samples) {
+			if (!crops.containsKey(sample.crop())) {
+				crops.put(sample.crop(), Files.readAllBytes(corpus.resolve(sample.crop())));
+			}
+		}
+		System.out.printf(Locale.ROOT, "%d samples, %d repeats, tessdata %s%n", samples.size(), repeats, Paths.get(UtilOCR.TESSDATA_PATH).toAbsolutePath());
+
+		List<Engine> engines = engines();
+
+		// Primera pasada sin medir, para inicializar los motores de Tesseract; no usa los motores que aprenden
+		for (Engine engine : engines) {
+			if (!engine.learns()) {
+				run(engine, samples, crops, 1);
+			}
+		}
+
+		System.out.println();
+		System.out.println("engine | kind | samples | exact | parsed | ms/call mean p50 p95");
+		Map<String, Stats> results = new LinkedHashMap<>();
+		for (Engine engine : engines) {
+			for (Kind kind : Kind.values()) {
+				if (!engine.kinds().contains(kind)) {
+					continue;
+				}
+				List<Sample> ofKind = samples.stream().filter(sample -> sample.kind() == kind).toList();
+				if (!engine.learns()) {
+					report(results, engine, engine.name(), kind, ofKind.isEmpty() ? null : run(engine, ofKind, crops, repeats));
+					continue;
+				}
+
+				// Mitad de entrenamiento y mitad de evaluación, alternadas para repartir las distintas pantallas
+				List<Sample> training = new ArrayList<>();
+				List<Sample> heldOut = new ArrayList<>();
+				for (int i = 0; i < ofKind.size(); i++) {
+					(i % 2 == 0 ? training : heldOut).add(ofKind.get(i));
+				}
+				if (heldOut.isEmpty()) {
+					continue;
+				}
+				engine.reset().run();
+				report(results, engine, engine.name() + " (cold)", kind, run(engine, heldOut, crops, 1));
+				engine.reset().run();
+				run(engine, training, crops, 1);
+				report(results, engine, engine.name() + " (held-out)", kind, run(engine, heldOut, crops, 1));
+				engine.reset().run();
+			}
+		}
+
+		for (Map.Entry<String, Stats> result : results.entrySet()) {
+			if (!result.getValue().failures.isEmpty()) {
+				System.out.println();
+				System.out.println("Failures with " + result.getKey() + ":");
+				result.getValue().failures.forEach(failure -> System.out.println("  " + failure));
+			}
+		}
+
+		OcrCache.getInstance().setEnabled(true);
+	}
+
+	private static void report(Map<String, Stats> results, Engine engine, String name, Kind kind, Stats stats) {
+		if (stats == null) {
+			return;
+		}
+		results.put(name + " " + kind, stats);
+		System.out.printf(Locale.ROOT, "%s | %s | %d | %s | %.3f | %.3f %.3f %.3f%n", name, kind, stats.samples,
+				engine.exact() ? String.format(Locale.ROOT, "%.3f", (double) stats.exactMatches / stats.samples) : "-",
+				(double) stats.parsed / stats.samples, stats.meanMillis(), stats.percentileMillis(0.5), stats.percentileMillis(0.95));
+	}
+
+	private static List<Engine> engines() {
+		Set<Kind> all = EnumSet.allOf(Kind.class);
+		List<Engine> engines = new ArrayList<>();
+		engines.add(new Engine("ocrRegionText", all, true,
+				(frame, area, kind) -> UtilOCR.ocrRegions(frame, Map.of(REGION_KEY, area)).get(REGION_KEY), null));
+		engines.add(new Engine("profile", all, true,
+				(frame, area, kind) -> UtilOCR.ocrRegions(frame, Map.of(REGION_KEY, area), kind.profile).get(REGION_KEY), null));
+		engines.add(new Engine("voting", all, true,
+				(frame, area, kind) -> UtilOCR.ocrVoting(frame, area, kind.profile, text -> kind.parse(text).map(value -> normalize(text))).orElse(""), null));
+		engines.add(new Engine("glyphs", EnumSet.of(Kind.TIMER), false,
+				(frame, area, kind) -> UtilOCR.ocrDuration(frame, area).map(OcrBenchmark::format).orElse(""),
+				TimerGlyphRecognizer.getInstance()::reset));
+		engines.add(new Engine("label", EnumSet.of(Kind.STATUS), true, (frame, area, kind) -> {
+			DTOStatusLabel status = UtilOCR.readStatusLabel(frame, area);
+			return status.getLabel() != null ? status.getLabel().getText() : status.getText();
+		}, StatusLabelClassifier.getInstance()::reset));
+		return engines;
+	}
+
+	private static Stats run(Engine engine, List<Sample> samples, Map<String, byte[]> crops, int repeats) {
+		Stats stats = new Stats();
+		for (Sample sample : samples) {
+			if (!engine.kinds().contains(sample.kind())) {
+				continue;
+			}
+			String result = "";
+			for (int i = 0; i < repeats; i++) {
+				try (ImageFrame frame = ImageFrame.decode(crops.get(sample.crop()))) {
+					if (frame.isEmpty()) {
+						result = "error: could not decode " + sample.crop();
+						break;
+					}
+					DTOArea area = new DTOArea(new DTOPoint(0, 0), new DTOPoint(frame.getWidth(), frame.getHeight()));
+					long start = System.nanoTime();
+					result = engine.reader().read(frame, area, sample.kind());
+					stats.timesNanos.add(System.nanoTime() - start);
+				} catch (Exception e) {
+					result = "error: " + e.getMessage();
+				}
+			}
+			evaluate(engine, sample, result, stats);
+		}
+		return stats;
+	}
+
+	private static void evaluate(Engine engine, Sample sample, String result, Stats stats) {
+		stats.samples++;
+		boolean exact = normalize(result).equals(normalize(sample.expected()));
+		Optional<Object> expected = sample.kind().parse(sample.expected());
+		boolean parsed = expected.isPresent() && expected.equals(sample.kind().parse(result));
+		if (exact) {
+			stats.exactMatches++;
+		}
+		if (parsed) {
+			stats.parsed++;
+		}
+		if (!parsed || engine.exact() && !exact) {
+			stats.failures.add(String.format("line %d %s: expected \"%s\", got \"%s\"", sample.line(), sample.crop(), sample.expected(), normalize(result)));
+		}
+	}
+
+	private static String normalize(String text) {
+		return text == null ? "" : text.trim().replaceAll("\\s+", " ");
+	}
+
+	/**
+	 * @return The duration as the game shows it, e.g. {@code 1d 02:03:04}.
+	 */
+	private static String format(Duration duration) {
+		long days = duration.toDays();
+		String time = String.format(Locale.ROOT, "%02d:%02d:%02d", duration.toHoursPart(), duration.toMinutesPart(), duration.toSecondsPart());
+		return days > 0 ? days + "d " + time : time;
+	}
+
+	private static List<Sample> readSamples(Path file) throws IOException {
+		List<Sample> samples = new ArrayList<>();
+		List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+		for (int i = 0; i < lines.size(); i++) {
+			String line = lines.get(i).trim();
+			if (line.isEmpty() || line.startsWith("#")) {
+				continue;
+			}
+			String[] fields = line.split(",", 3);
+			if (fields.length != 3) {
+				throw new IllegalArgumentException("Invalid sample at line " + (i + 1) + ": " + line);
+			}
+			samples.add(new Sample(fields[0].trim(), Kind.valueOf(fields[1].trim().toUpperCase(Locale.ROOT)), fields[2].trim(), i + 1));
+		}
+		return samples;
+	}
+}
@@ -0,0 +1,146 @@
+package cl.camodev.wosbot.benchmark;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+
+import cl.camodev.utiles.QoiCodec;
+
+/**
+ * Checks that {@link QoiCodec} decodes exactly what it encoded.
+ * <p>
+ * Two kinds of frames of the reference size are encoded and decoded: random frames, made of flat blocks, gradients and
+ * noise so that every QOI operation shows up, and collages of the template images, which look like real captures. The
+ * process exits with status 1 if any frame fails.
+ *
+ * <pre>
+ * QoiRoundTripCheck [templatesDir=wos-serv/src/main/resources/templates] [frames=200] [seed=1]
+ * </pre>
+ */
+public class QoiRoundTripCheck {
+
+	private static final int WIDTH = 720;
+	private static final int HEIGHT = 1280;
+
+	public static void main(String[] args) throws IOException {
+		Path templatesDir = Paths.get(args.length > 0 ? args[0] : "wos-serv/src/main/resources/templates");
+		int frames = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+		Random random = new Random(args.length > 2 ? Long.parseLong(args[2]) : 1);
+
+		List<BufferedImage> templates = readTemplates(templatesDir);
+		System.out.printf("%d templates from %s%n", templates.size(), templatesDir);
+
+		int failures = 0;
+		for (int i = 0; i < frames; i++) {
+			if (!roundTrip("random " + i, randomFrame(random))) {
+				failures++;
+			}
+		}
+		if (!templates.isEmpty()) {
+			for (int i = 0; i < frames; i++) {
+				if (!roundTrip("collage " + i, collage(templates, random))) {
+					failures++;
+				}
+			}
+		}
+
+		int total = templates.isEmpty() ? frames : frames * 2;
+		System.out.printf("%d of %d frames failed%n", failures, total);
+		if (failures > 0) {
+			System.exit(1);
+		}
+	}
+
+	private static boolean roundTrip(String name, BufferedImage image) {
+		byte[] encoded;
+		QoiCodec.DecodedImage decoded;
+		try {
+			encoded = QoiCodec.encode(image);
+			decoded = QoiCodec.decode(encoded);
+		} catch (RuntimeException e) {
+			System.out.println(name + ": " + e);
+			return false;
+		}
+
+		if (decoded.getWidth() != image.getWidth() || decoded.getHeight() != image.getHeight()) {
+			System.out.printf("%s: decoded as %dx%d%n", name, decoded.getWidth(), decoded.getHeight());
+			return false;
+		}
+		byte[] bgr = decoded.getBgr();
+		for (int y = 0, pos = 0; y < image.getHeight(); y++) {
+			for (int x = 0; x < image.getWidth(); x++, pos += 3) {
+				int expected = image.getRGB(x, y) & 0xffffff;
+				int actual = (bgr[pos + 2] & 0xff) << 16 | (bgr[pos + 1] & 0xff) << 8 | (bgr[pos] & 0xff);
+				if (expected != actual) {
+					System.out.printf("%s: pixel %d,%d is %06x instead of %06x%n", name, x, y, actual, expected);
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private static BufferedImage randomFrame(Random random) {
+		BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+		int y = 0;
+		while (y < HEIGHT) {
+			int rows = 1 + random.nextInt(64);
+			int kind = random.nextInt(3);
+			int base = random.nextInt(0x1000000);
+			for (int row = y; row < Math.min(HEIGHT, y + rows); row++) {
+				for (int x = 0; x < WIDTH; x++) {
+					int rgb = switch (kind) {
+						// Bloque plano: rachas
+						case 0 -> base;
+						// Degradado: diferencias pequeñas (DIFF y LUMA)
+						case 1 -> (base + x * 0x010101 + row) & 0xffffff;
+						// Ruido: RGB completos, intercalados con pixeles repetidos
+						default -> random.nextInt(4) == 0 ? base : random.nextInt(0x1000000);
+					};
+					image.setRGB(x, row, rgb);
+				}
+			}
+			y += rows;
+		}
+		return image;
+	}
+
+	private static BufferedImage collage(List<BufferedImage> templates, Random random) {
+		BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = image.createGraphics();
+		try {
+			for (int i = 0; i < 40; i++) {
+				BufferedImage template = templates.get(random.nextInt(templates.size()));
+				graphics.drawImage(template, random.nextInt(WIDTH) - template.getWidth() / 2, random.nextInt(HEIGHT) - template.getHeight() / 2, null);
+			}
+		} finally {
+			graphics.dispose();
+		}
+		return image;
+	}
+
+	private static List<BufferedImage> readTemplates(Path dir) throws IOException {
+		List<BufferedImage> templates = new ArrayList<>();
+		if (!Files.isDirectory(dir)) {
+			return templates;
+		}
+		try (Stream<Path> files = Files.walk(dir)) {
+			for (Path file : files.filter(path -> path.toString().endsWith(".png")).sorted().toList()) {
+				BufferedImage template = ImageIO.read(file.toFile());
+				if (template != null) {
+					templates.add(template);
+				}
+			}
+		}
+		return templates;
+	}
+}
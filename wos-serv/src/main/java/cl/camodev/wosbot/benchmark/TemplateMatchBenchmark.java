@@ -0,0 +1,246 @@
+package cl.camodev.wosbot.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import cl.camodev.utiles.ImageFrame;
+import cl.camodev.utiles.ImageSearchUtil;
+import cl.camodev.wosbot.console.enumerable.EnumTemplates;
+import cl.camodev.wosbot.emulator.DisplayProfile;
+import cl.camodev.wosbot.ot.DTOImageSearchResult;
+import cl.camodev.wosbot.ot.DTOPoint;
+
+/**
+ * Accuracy and latency benchmark of {@link ImageSearchUtil} over a labeled corpus of recorded frames.
+ * <p>
+ * The corpus is a directory with the frames (QOI or PNG) and an {@code annotations.csv} file, one expected search per
+ * line:
+ *
+ * <pre>
+ * # frame, template, expectedX, expectedY [, roiX1, roiY1, roiX2, roiY2]
+ * home_01.qoi, GAME_HOME_FURNACE, 640, 1200
+ * world_03.qoi, GAME_HOME_FURNACE, ,
+ * </pre>
+ *
+ * The template is an {@link EnumTemplates} name or a resource path. An empty expected location means the template must
+ * not be found. The region defaults to the whole frame.
+ * <p>
+ * Every configuration (threshold and enabled optimizations) is run over the whole corpus and reported with its
+ * precision, recall, localization error of the hits and time per search. A result found farther than the tolerance
+ * from the expected location counts as a false positive and a false negative.
+ *
+ * <pre>
+ * TemplateMatchBenchmark &lt;corpusDir&gt; [thresholds=85,90,95] [tolerance=10] [repeats=3]
+ * </pre>
+ */
+public class TemplateMatchBenchmark {
+
+	private static final String ANNOTATIONS_FILE = "annotations.csv";
+
+	private record Annotation(String frame, String template, DTOPoint expected, DTOPoint topLeft, DTOPoint bottomRight, int line) {
+	}
+
+	private record Configuration(double threshold, boolean smallMatcher, boolean coarseRejection) {
+		@Override
+		public String toString() {
+			return String.format(Locale.ROOT, "threshold=%.0f smallMatcher=%s coarseRejection=%s", threshold, smallMatcher, coarseRejection);
+		}
+	}
+
+	private static class Stats {
+		private int truePositives;
+		private int falsePositives;
+		private int falseNegatives;
+		private int trueNegatives;
+		private double errorSum;
+		private double maxError;
+		private final List<Long> timesNanos = new ArrayList<>();
+		private final List<String> failures = new ArrayList<>();
+
+		private double precision() {
+			int positives = truePositives + falsePositives;
+			return positives == 0 ? 1.0 : (double) truePositives / positives;
+		}
+
+		private double recall() {
+			int expected = truePositives + falseNegatives;
+			return expected == 0 ? 1.0 : (double) truePositives / expected;
+		}
+
+		private double meanError() {
+			return truePositives == 0 ? 0.0 : errorSum / truePositives;
+		}
+
+		private double percentileMillis(double percentile) {
+			if (timesNanos.isEmpty()) {
+				return 0.0;
+			}
+			List<Long> sorted = new ArrayList<>(timesNanos);
+			sorted.sort(null);
+			int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+			return sorted.get(Math.max(0, index)) / 1_000_000.0;
+		}
+
+		private double meanMillis() {
+			return timesNanos.stream().mapToLong(Long::longValue).average().orElse(0.0) / 1_000_000.0;
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("Usage: TemplateMatchBenchmark <corpusDir> [thresholds=85,90,95] [tolerance=10] [repeats=3]");
+			System.exit(1);
+		}
+
+		Path corpus = Paths.get(args[0]);
+		double[] thresholds = args.length > 1 ? Arrays.stream(args[1].split(",")).mapToDouble(Double::parseDouble).toArray() : new double[] { 85, 90, 95 };
+		double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+		int repeats = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+
+		nu.pattern.OpenCV.loadShared();
+
+		List<Annotation> annotations = readAnnotations(corpus.resolve(ANNOTATIONS_FILE));
+		Map<String, byte[]> frames = new HashMap<>();
+		for (Annotation annotation : annotations) {
+			if (!frames.containsKey(annotation.frame())) {
+				frames.put(annotation.frame(), Files.readAllBytes(corpus.resolve(annotation.frame())));
+			}
+		}
+		System.out.printf(Locale.ROOT, "%d annotations over %d frames, tolerance %.1f px, %d repeats%n", annotations.size(), frames.size(), tolerance, repeats);
+
+		List<Configuration> configurations = new ArrayList<>();
+		for (double threshold : thresholds) {
+			configurations.add(new Configuration(threshold, true, true));
+			configurations.add(new Configuration(threshold, false, true));
+			configurations.add(new Configuration(threshold, true, false));
+			configurations.add(new Configuration(threshold, false, false));
+		}
+
+		// Primera pasada sin medir, para cargar los templates en cache
+		run(annotations, frames, configurations.get(0), tolerance, 1);
+
+		System.out.println();
+		System.out.println("configuration | TP FP FN TN | precision recall | loc.err mean/max px | ms/search mean p50 p95");
+		List<Map.Entry<Configuration, Stats>> results = new ArrayList<>();
+		for (Configuration configuration : configurations) {
+			Stats stats = run(annotations, frames, configuration, tolerance, repeats);
+			results.add(Map.entry(configuration, stats));
+			System.out.printf(Locale.ROOT, "%s | %d %d %d %d | %.3f %.3f | %.2f/%.2f | %.3f %.3f %.3f%n", configuration,
+					stats.truePositives, stats.falsePositives, stats.falseNegatives, stats.trueNegatives,
+					stats.precision(), stats.recall(), stats.meanError(), stats.maxError,
+					stats.meanMillis(), stats.percentileMillis(0.5), stats.percentileMillis(0.95));
+		}
+
+		for (Map.Entry<Configuration, Stats> result : results) {
+			if (!result.getValue().failures.isEmpty()) {
+				System.out.println();
+				System.out.println("Failures with " + result.getKey() + ":");
+				result.getValue().failures.forEach(failure -> System.out.println("  " + failure));
+			}
+		}
+
+		ImageSearchUtil.setSmallTemplateMatcherEnabled(true);
+		ImageSearchUtil.setCoarseRejectionEnabled(true);
+	}
+
+	private static Stats run(List<Annotation> annotations, Map<String, byte[]> frames, Configuration configuration, double tolerance, int repeats) {
+		ImageSearchUtil.setSmallTemplateMatcherEnabled(configuration.smallMatcher());
+		ImageSearchUtil.setCoarseRejectionEnabled(configuration.coarseRejection());
+
+		Stats stats = new Stats();
+		for (Annotation annotation : annotations) {
+			DTOImageSearchResult result = null;
+			for (int i = 0; i < repeats; i++) {
+				// Cada búsqueda usa un frame recién decodificado, sin vistas derivadas de búsquedas anteriores
+				try (ImageFrame frame = ImageFrame.decode(frames.get(annotation.frame()))) {
+					DTOPoint topLeft = annotation.topLeft() != null ? annotation.topLeft() : new DTOPoint(0, 0);
+					DTOPoint bottomRight = annotation.bottomRight() != null ? annotation.bottomRight()
+							: frame.isEmpty() ? new DTOPoint(DisplayProfile.REFERENCE_WIDTH, DisplayProfile.REFERENCE_HEIGHT) : new DTOPoint(frame.getWidth(), frame.getHeight());
+					long start = System.nanoTime();
+					result = ImageSearchUtil.buscarTemplate(frame, annotation.template(), topLeft, bottomRight, configuration.threshold());
+					stats.timesNanos.add(System.nanoTime() - start);
+				}
+			}
+			evaluate(annotation, result, tolerance, stats);
+		}
+		return stats;
+	}
+
+	private static void evaluate(Annotation annotation, DTOImageSearchResult result, double tolerance, Stats stats) {
+		boolean found = result != null && result.isFound();
+		String foundAt = found ? result.getPoint().getX() + "," + result.getPoint().getY() : "-";
+		String score = result != null ? String.format(Locale.ROOT, "%.1f", result.getMatchPercentage()) : "-";
+
+		if (annotation.expected() == null) {
+			if (found) {
+				stats.falsePositives++;
+				stats.failures.add(String.format("line %d %s %s: unexpected match at %s (%s)", annotation.line(), annotation.frame(), annotation.template(), foundAt, score));
+			} else {
+				stats.trueNegatives++;
+			}
+			return;
+		}
+
+		if (!found) {
+			stats.falseNegatives++;
+			stats.failures.add(String.format("line %d %s %s: not found (%s)", annotation.line(), annotation.frame(), annotation.template(), score));
+			return;
+		}
+
+		double error = Math.hypot(result.getPoint().getX() - annotation.expected().getX(), result.getPoint().getY() - annotation.expected().getY());
+		if (error > tolerance) {
+			stats.falsePositives++;
+			stats.falseNegatives++;
+			stats.failures.add(String.format(Locale.ROOT, "line %d %s %s: found at %s (%s), %.1f px from expected", annotation.line(), annotation.frame(), annotation.template(), foundAt, score, error));
+			return;
+		}
+
+		stats.truePositives++;
+		stats.errorSum += error;
+		stats.maxError = Math.max(stats.maxError, error);
+	}
+
+	private static List<Annotation> readAnnotations(Path file) throws IOException {
+		List<Annotation> annotations = new ArrayList<>();
+		List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+		for (int i = 0; i < lines.size(); i++) {
+			String line = lines.get(i).trim();
+			if (line.isEmpty() || line.startsWith("#")) {
+				continue;
+			}
+			String[] fields = line.split(",", -1);
+			if (fields.length != 4 && fields.length != 8) {
+				throw new IllegalArgumentException("Invalid annotation at line " + (i + 1) + ": " + line);
+			}
+			String template = resolveTemplate(fields[1].trim());
+			DTOPoint expected = point(fields[2], fields[3]);
+			DTOPoint topLeft = fields.length == 8 ? point(fields[4], fields[5]) : null;
+			DTOPoint bottomRight = fields.length == 8 ? point(fields[6], fields[7]) : null;
+			annotations.add(new Annotation(fields[0].trim(), template, expected, topLeft, bottomRight, i + 1));
+		}
+		return annotations;
+	}
+
+	private static String resolveTemplate(String template) {
+		if (template.startsWith("/")) {
+			return template;
+		}
+		return EnumTemplates.valueOf(template).getTemplate();
+	}
+
+	private static DTOPoint point(String x, String y) {
+		if (x.isBlank() || y.isBlank()) {
+			return null;
+		}
+		return new DTOPoint(Integer.parseInt(x.trim()), Integer.parseInt(y.trim()));
+	}
+}
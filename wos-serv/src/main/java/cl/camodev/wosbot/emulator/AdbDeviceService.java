@@ -6,6 +6,9 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -17,6 +20,7 @@ public class AdbDeviceService {
     private static final String ADB_PATH_WINDOWS = "adb/adb.exe";
     private static final String ADB_PATH_UNIX = "adb/adb";
     private static final Pattern DEVICE_PATTERN = Pattern.compile("^([^\\s]+)\\s+device\\s*$");
+    private static final long DISCOVERY_TIMEOUT_SECONDS = 15;
     
     /**
      * Represents an ADB device/emulator
@@ -48,7 +52,7 @@ public class AdbDeviceService {
     /**
      * Gets the path to the ADB executable
      */
-    private static String getAdbPath() {
+    static String getAdbPath() {
         // Determine OS-specific ADB path
         String osName = System.getProperty("os.name").toLowerCase();
         String adbPath = osName.contains("win") ? ADB_PATH_WINDOWS : ADB_PATH_UNIX;
@@ -64,9 +68,28 @@ public class AdbDeviceService {
     }
     
     /**
-     * Gets all connected ADB devices and emulators
+     * Gets all connected ADB devices and emulators.
+     * <p>
+     * Blocks until the devices are listed, prefer {@link DeviceDiscoveryService} from the UI thread.
+     * </p>
      */
     public static List<AdbDevice> getConnectedDevices() {
+        try {
+            return DeviceDiscoveryService.getInstance().refresh().get(DISCOVERY_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return List.of();
+        } catch (ExecutionException | TimeoutException e) {
+            // Sin bridge de ddmlib se listan los dispositivos con el ejecutable de adb
+            System.err.println("Device discovery failed, falling back to adb devices: " + e.getMessage());
+            return getConnectedDevicesWithAdb();
+        }
+    }
+
+    /**
+     * Gets all connected devices running {@code adb devices} and {@code adb shell getprop} for each one.
+     */
+    private static List<AdbDevice> getConnectedDevicesWithAdb() {
         List<AdbDevice> devices = new ArrayList<>();
         
         try {
@@ -101,12 +124,18 @@ public class AdbDeviceService {
      * Creates an AdbDevice object from a device ID
      */
     private static AdbDevice createDeviceFromId(String deviceId) {
-        boolean isEmulator = deviceId.startsWith("emulator-");
-        
         // Get device properties to determine emulator type and name
         String deviceName = getDeviceProperty(deviceId, "ro.product.model");
         String brand = getDeviceProperty(deviceId, "ro.product.brand");
         String manufacturer = getDeviceProperty(deviceId, "ro.product.manufacturer");
+        return createDevice(deviceId, deviceName, brand, manufacturer);
+    }
+    
+    /**
+     * Creates an AdbDevice object from a device ID and its product properties
+     */
+    static AdbDevice createDevice(String deviceId, String deviceName, String brand, String manufacturer) {
+        boolean isEmulator = deviceId.startsWith("emulator-");
         
         EmulatorType type = determineEmulatorType(deviceName, brand, manufacturer, deviceId);
         
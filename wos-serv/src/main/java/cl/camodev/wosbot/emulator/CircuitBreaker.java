@@ -0,0 +1,111 @@
+package cl.camodev.wosbot.emulator;
+
+import cl.camodev.wosbot.ex.DeviceCircuitOpenException;
+
+/**
+ * Circuit breaker of one emulator's ADB actions.
+ * <p>
+ * After {@link #FAILURE_THRESHOLD} consecutive failed attempts the circuit opens and every action fails immediately
+ * with a {@link DeviceCircuitOpenException}, instead of blocking the task thread on retries against a dead device.
+ * Once the open time elapses a single action is let through as a probe: if it succeeds the circuit closes, otherwise it
+ * opens again for twice as long, up to {@link #MAX_OPEN_MS}.
+ * </p>
+ */
+public class CircuitBreaker {
+
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	// Intentos fallidos consecutivos que abren el circuito
+	private static final int FAILURE_THRESHOLD = 8;
+
+	private static final long BASE_OPEN_MS = 15_000;
+	private static final long MAX_OPEN_MS = 300_000;
+
+	private final String emulatorNumber;
+	private final CircuitBreakerListener listener;
+
+	private State state = State.CLOSED;
+	private int consecutiveFailures;
+	private long openMs = BASE_OPEN_MS;
+	private long openUntil;
+	private Thread probe;
+
+	public CircuitBreaker(String emulatorNumber, CircuitBreakerListener listener) {
+		this.emulatorNumber = emulatorNumber;
+		this.listener = listener;
+	}
+
+	/**
+	 * Checks that an attempt may reach the device.
+	 *
+	 * @param actionName Name of the action, for the exception message.
+	 * @throws DeviceCircuitOpenException if the circuit is open, or half open with a probe already running.
+	 */
+	public void beforeAttempt(String actionName) {
+		long retryAfter;
+		synchronized (this) {
+			if (state == State.CLOSED || probe == Thread.currentThread()) {
+				return;
+			}
+			long now = System.currentTimeMillis();
+			if (state == State.OPEN && now >= openUntil) {
+				probe = Thread.currentThread();
+				transition(State.HALF_OPEN, 0);
+				return;
+			}
+			retryAfter = Math.max(0, openUntil - now);
+		}
+		throw new DeviceCircuitOpenException("Circuit open for emulator " + emulatorNumber + ", not running " + actionName, retryAfter);
+	}
+
+	public synchronized void onSuccess() {
+		consecutiveFailures = 0;
+		if (state != State.CLOSED) {
+			probe = null;
+			openMs = BASE_OPEN_MS;
+			transition(State.CLOSED, 0);
+		}
+	}
+
+	public synchronized void onFailure() {
+		consecutiveFailures++;
+		if (state == State.HALF_OPEN) {
+			// La prueba falló, se vuelve a abrir por más tiempo
+			probe = null;
+			openMs = Math.min(MAX_OPEN_MS, openMs * 2);
+			open();
+		} else if (state == State.CLOSED && consecutiveFailures >= FAILURE_THRESHOLD) {
+			open();
+		}
+	}
+
+	/**
+	 * Closes the circuit without a probe, used when the emulator is started again.
+	 */
+	public synchronized void reset() {
+		consecutiveFailures = 0;
+		probe = null;
+		openMs = BASE_OPEN_MS;
+		if (state != State.CLOSED) {
+			transition(State.CLOSED, 0);
+		}
+	}
+
+	public synchronized State getState() {
+		return state;
+	}
+
+	private void open() {
+		openUntil = System.currentTimeMillis() + openMs;
+		transition(State.OPEN, openMs);
+	}
+
+	private void transition(State next, long retryAfterMs) {
+		state = next;
+		if (listener != null) {
+			listener.onCircuitStateChange(emulatorNumber, next, retryAfterMs);
+		}
+	}
+}
@@ -0,0 +1,11 @@
+package cl.camodev.wosbot.emulator;
+
+@FunctionalInterface
+public interface CircuitBreakerListener {
+	/**
+	 * @param emulatorNumber Emulator whose circuit changed.
+	 * @param state          New state.
+	 * @param retryAfterMs   Milliseconds until the next probe while open, 0 otherwise.
+	 */
+	void onCircuitStateChange(String emulatorNumber, CircuitBreaker.State state, long retryAfterMs);
+}
@@ -0,0 +1,27 @@
+package cl.camodev.wosbot.emulator;
+
+/**
+ * Kinds of device actions, each with its default {@link RetryPolicy}.
+ */
+public enum DeviceAction {
+	// @formatter:off
+	/** Taps, swipes and key presses, which are useless if they arrive late. */
+	INPUT(new RetryPolicy(3, 200, 1000, 0)),
+	/** Screen captures. */
+	SCREENSHOT(new RetryPolicy(4, 300, 2000, 3)),
+	/** Short shell queries, such as the display size or installed packages. */
+	QUERY(new RetryPolicy(4, 300, 2000, 3)),
+	/** Boot checks and starting or stopping the game, which can wait for a slow device. */
+	LIFECYCLE(new RetryPolicy(6, 1000, 5000, 4));
+	// @formatter:on
+
+	private final RetryPolicy defaultPolicy;
+
+	DeviceAction(RetryPolicy defaultPolicy) {
+		this.defaultPolicy = defaultPolicy;
+	}
+
+	public RetryPolicy getDefaultPolicy() {
+		return defaultPolicy;
+	}
+}
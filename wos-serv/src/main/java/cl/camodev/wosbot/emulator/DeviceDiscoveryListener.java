@@ -0,0 +1,12 @@
+package cl.camodev.wosbot.emulator;
+
+import java.util.List;
+
+@FunctionalInterface
+public interface DeviceDiscoveryListener {
+	/**
+	 * Called from a background thread with every online device each time a device connects, disconnects or changes
+	 * state.
+	 */
+	void onDevicesChanged(List<AdbDeviceService.AdbDevice> devices);
+}
@@ -0,0 +1,184 @@
+package cl.camodev.wosbot.emulator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.android.ddmlib.AndroidDebugBridge;
+import com.android.ddmlib.IDevice;
+
+/**
+ * Lists the devices connected to ADB from the ddmlib bridge, without starting {@code adb} processes.
+ * <p>
+ * The product properties of each device are read in parallel through ddmlib, which reads them all with a single
+ * {@code getprop}, and are cached by serial until the device disconnects. Listeners are notified from a background
+ * thread whenever the device list changes, so the UI never waits for ADB. The bridge created by the {@link Emulator} is
+ * reused when it exists.
+ * </p>
+ */
+public final class DeviceDiscoveryService implements AndroidDebugBridge.IDeviceChangeListener {
+
+	private static final Logger logger = LoggerFactory.getLogger(DeviceDiscoveryService.class);
+
+	private static final int THREADS = 4;
+	private static final long BRIDGE_TIMEOUT_MS = 10_000;
+	private static final long PROPERTY_TIMEOUT_SECONDS = 5;
+
+	private static final DeviceDiscoveryService INSTANCE = new DeviceDiscoveryService();
+
+	private final ExecutorService executor;
+	private final ConcurrentHashMap<String, AdbDeviceService.AdbDevice> cache = new ConcurrentHashMap<>();
+	private final List<DeviceDiscoveryListener> listeners = new CopyOnWriteArrayList<>();
+	private volatile List<AdbDeviceService.AdbDevice> lastDevices;
+
+	private DeviceDiscoveryService() {
+		AtomicInteger threadNumber = new AtomicInteger();
+		executor = Executors.newFixedThreadPool(THREADS, runnable -> {
+			Thread thread = new Thread(runnable, "device-discovery-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		AndroidDebugBridge.addDeviceChangeListener(this);
+	}
+
+	public static DeviceDiscoveryService getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Subscribes to the device list. The listener receives the current list right away if it was already read, and
+	 * every change after that. Call {@link #refresh()} to read the list for the first time.
+	 */
+	public void addListener(DeviceDiscoveryListener listener) {
+		listeners.add(listener);
+		List<AdbDeviceService.AdbDevice> devices = lastDevices;
+		if (devices != null) {
+			executor.execute(() -> listener.onDevicesChanged(devices));
+		}
+	}
+
+	public void removeListener(DeviceDiscoveryListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Reads the devices in the background and notifies the listeners.
+	 *
+	 * @return The online devices. Completes exceptionally if the ADB bridge could not be started.
+	 */
+	public CompletableFuture<List<AdbDeviceService.AdbDevice>> refresh() {
+		return CompletableFuture.supplyAsync(this::onlineDevices, executor)
+				.thenCompose(devices -> {
+					List<CompletableFuture<AdbDeviceService.AdbDevice>> described = new ArrayList<>();
+					for (IDevice device : devices) {
+						described.add(CompletableFuture.supplyAsync(() -> describe(device), executor));
+					}
+					return CompletableFuture.allOf(described.toArray(new CompletableFuture[0]))
+							.thenApply(ignored -> described.stream().map(CompletableFuture::join).toList());
+				})
+				.thenApply(devices -> {
+					lastDevices = devices;
+					for (DeviceDiscoveryListener listener : listeners) {
+						try {
+							listener.onDevicesChanged(devices);
+						} catch (Exception e) {
+							logger.warn("Device discovery listener failed: {}", e.getMessage());
+						}
+					}
+					return devices;
+				});
+	}
+
+	@Override
+	public void deviceConnected(IDevice device) {
+		refresh();
+	}
+
+	@Override
+	public void deviceDisconnected(IDevice device) {
+		cache.remove(device.getSerialNumber());
+		refresh();
+	}
+
+	@Override
+	public void deviceChanged(IDevice device, int changeMask) {
+		if ((changeMask & IDevice.CHANGE_STATE) != 0) {
+			refresh();
+		}
+	}
+
+	private List<IDevice> onlineDevices() {
+		AndroidDebugBridge bridge = bridge();
+		long deadline = System.currentTimeMillis() + BRIDGE_TIMEOUT_MS;
+		while (!bridge.hasInitialDeviceList() && System.currentTimeMillis() < deadline) {
+			try {
+				Thread.sleep(100);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting for the ADB bridge", e);
+			}
+		}
+		List<IDevice> online = new ArrayList<>();
+		for (IDevice device : bridge.getDevices()) {
+			if (device.isOnline()) {
+				online.add(device);
+			}
+		}
+		return online;
+	}
+
+	/**
+	 * @return The current bridge, created with the project's ADB if no {@link Emulator} created one yet.
+	 */
+	private synchronized AndroidDebugBridge bridge() {
+		AndroidDebugBridge bridge = AndroidDebugBridge.getBridge();
+		if (bridge != null) {
+			return bridge;
+		}
+		try {
+			AndroidDebugBridge.init(false);
+		} catch (IllegalStateException e) {
+			// ddmlib ya estaba inicializado por el emulador
+		}
+		bridge = AndroidDebugBridge.createBridge(AdbDeviceService.getAdbPath(), false, BRIDGE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+		if (bridge == null) {
+			throw new IllegalStateException("Could not start the ADB bridge");
+		}
+		return bridge;
+	}
+
+	private AdbDeviceService.AdbDevice describe(IDevice device) {
+		String serial = device.getSerialNumber();
+		AdbDeviceService.AdbDevice cached = cache.get(serial);
+		if (cached != null) {
+			return cached;
+		}
+		String model = property(device, "ro.product.model");
+		AdbDeviceService.AdbDevice described = AdbDeviceService.createDevice(serial, model, property(device, "ro.product.brand"),
+				property(device, "ro.product.manufacturer"));
+		// Un dispositivo que aún no responde las propiedades se vuelve a consultar en la próxima lectura
+		if (!model.isEmpty()) {
+			cache.put(serial, described);
+		}
+		return described;
+	}
+
+	private static String property(IDevice device, String name) {
+		try {
+			String value = device.getSystemProperty(name).get(PROPERTY_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+			return value != null ? value.trim() : "";
+		} catch (Exception e) {
+			logger.debug("Could not read {} of {}: {}", name, device.getSerialNumber(), e.getMessage());
+			return "";
+		}
+	}
+}
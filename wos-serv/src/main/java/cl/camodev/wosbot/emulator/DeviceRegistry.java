@@ -0,0 +1,89 @@
+package cl.camodev.wosbot.emulator;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.android.ddmlib.AndroidDebugBridge;
+import com.android.ddmlib.IDevice;
+
+/**
+ * Devices known by the ADB bridge, indexed by serial and kept up to date by ddmlib device change events.
+ * <p>
+ * Looking up a device is a map lookup instead of a scan of {@code bridge.getDevices()}, and a device that goes offline
+ * or disconnects is known as soon as ADB reports it.
+ * </p>
+ */
+public class DeviceRegistry implements AndroidDebugBridge.IDeviceChangeListener {
+
+	private static final Logger logger = LoggerFactory.getLogger(DeviceRegistry.class);
+
+	private final ConcurrentHashMap<String, IDevice> devices = new ConcurrentHashMap<>();
+
+	// Notificado con el serial cuando un dispositivo se desconecta o deja de estar online
+	private final Consumer<String> onLost;
+
+	public DeviceRegistry(Consumer<String> onLost) {
+		this.onLost = onLost;
+	}
+
+	/**
+	 * @return The device with the given serial, or null if the bridge does not know it.
+	 */
+	public IDevice get(String serial) {
+		return devices.get(serial);
+	}
+
+	/**
+	 * @return true if the device with the given serial is connected and online.
+	 */
+	public boolean isOnline(String serial) {
+		IDevice device = devices.get(serial);
+		return device != null && device.isOnline();
+	}
+
+	/**
+	 * Adds the devices already known by a bridge, for when it was created before the registry was listening.
+	 */
+	public void addAll(IDevice[] known) {
+		for (IDevice device : known) {
+			devices.put(device.getSerialNumber(), device);
+		}
+	}
+
+	/**
+	 * Forgets every device, used when the bridge is restarted and its devices are no longer valid.
+	 */
+	public void clear() {
+		devices.clear();
+	}
+
+	@Override
+	public void deviceConnected(IDevice device) {
+		devices.put(device.getSerialNumber(), device);
+		logger.info("Device connected: {} ({})", device.getSerialNumber(), device.getState());
+	}
+
+	@Override
+	public void deviceDisconnected(IDevice device) {
+		if (devices.remove(device.getSerialNumber(), device)) {
+			logger.info("Device disconnected: {}", device.getSerialNumber());
+			onLost.accept(device.getSerialNumber());
+		}
+	}
+
+	@Override
+	public void deviceChanged(IDevice device, int changeMask) {
+		if ((changeMask & IDevice.CHANGE_STATE) == 0) {
+			return;
+		}
+		// Una nueva instancia reemplaza a la anterior con el mismo serial
+		devices.put(device.getSerialNumber(), device);
+		logger.info("Device {} is now {}", device.getSerialNumber(), device.getState());
+		if (!device.isOnline()) {
+			onLost.accept(device.getSerialNumber());
+		}
+	}
+}
@@ -0,0 +1,131 @@
+package cl.camodev.wosbot.emulator;
+
+import cl.camodev.utiles.ImageSearchUtil;
+import cl.camodev.wosbot.ot.DTOImageSearchResult;
+import cl.camodev.wosbot.ot.DTOPoint;
+
+/**
+ * Maps between the reference resolution used by tasks and templates (720x1280) and the real resolution of a device.
+ * <p>
+ * Tasks, regions and templates are all expressed in reference coordinates. Before talking to the device, points are
+ * scaled to device pixels and templates are resized by the same factor; search results are scaled back so callers
+ * never see device coordinates. The scale is taken from the width, so the reference height of a device with a
+ * different aspect ratio is its own height divided by the scale.
+ */
+public final class DisplayProfile {
+
+	public static final int REFERENCE_WIDTH = 720;
+	public static final int REFERENCE_HEIGHT = 1280;
+
+	public static final DisplayProfile REFERENCE = new DisplayProfile(REFERENCE_WIDTH, REFERENCE_HEIGHT);
+
+	private static final double SCALE_TOLERANCE = 0.001;
+
+	private final int width;
+	private final int height;
+	private final double scale;
+
+	private DisplayProfile(int width, int height) {
+		this.width = width;
+		this.height = height;
+		this.scale = (double) width / REFERENCE_WIDTH;
+	}
+
+	/**
+	 * @param width  Device width in pixels
+	 * @param height Device height in pixels
+	 * @return Profile of a device with the given size, or {@link #REFERENCE} if the size is not valid
+	 */
+	public static DisplayProfile of(int width, int height) {
+		if (width <= 0 || height <= 0) {
+			return REFERENCE;
+		}
+		if (width == REFERENCE_WIDTH && height == REFERENCE_HEIGHT) {
+			return REFERENCE;
+		}
+		return new DisplayProfile(width, height);
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * @return Device pixels per reference pixel
+	 */
+	public double getScale() {
+		return scale;
+	}
+
+	public boolean isReference() {
+		return Math.abs(scale - 1.0) < SCALE_TOLERANCE;
+	}
+
+	/**
+	 * @return Bottom right corner of the whole screen, in reference coordinates
+	 */
+	public DTOPoint getReferenceSize() {
+		return new DTOPoint(REFERENCE_WIDTH, (int) Math.round(height / scale));
+	}
+
+	/**
+	 * Converts a point from reference to device coordinates, clamped to the pixels of the screen.
+	 */
+	public DTOPoint toDevice(DTOPoint point) {
+		return toDevice(point, width - 1, height - 1);
+	}
+
+	/**
+	 * Converts a corner of a region from reference to device coordinates. The bottom right corner of a region is
+	 * exclusive, so it is clamped to the screen size instead of its last pixel.
+	 */
+	public DTOPoint toDeviceCorner(DTOPoint point) {
+		return toDevice(point, width, height);
+	}
+
+	private DTOPoint toDevice(DTOPoint point, int maxX, int maxY) {
+		if (point == null || isReference()) {
+			return point;
+		}
+		int x = (int) Math.round(point.getX() * scale);
+		int y = (int) Math.round(point.getY() * scale);
+		return new DTOPoint(Math.max(0, Math.min(maxX, x)), Math.max(0, Math.min(maxY, y)));
+	}
+
+	/**
+	 * Converts a point from device to reference coordinates.
+	 */
+	public DTOPoint toReference(DTOPoint point) {
+		if (point == null || isReference()) {
+			return point;
+		}
+		return new DTOPoint((int) Math.round(point.getX() / scale), (int) Math.round(point.getY() / scale));
+	}
+
+	/**
+	 * Converts the point of a search result from device to reference coordinates.
+	 */
+	public DTOImageSearchResult toReference(DTOImageSearchResult result) {
+		if (result == null || result.getPoint() == null || isReference()) {
+			return result;
+		}
+		return new DTOImageSearchResult(result.isFound(), toReference(result.getPoint()), result.getMatchPercentage());
+	}
+
+	/**
+	 * @param templatePath Template resource path at reference resolution
+	 * @return Path of the template resized to this device, see {@link ImageSearchUtil#scaledTemplatePath}
+	 */
+	public String template(String templatePath) {
+		return isReference() ? templatePath : ImageSearchUtil.scaledTemplatePath(templatePath, scale);
+	}
+
+	@Override
+	public String toString() {
+		return "DisplayProfile [" + width + "x" + height + ", scale=" + scale + "]";
+	}
+}
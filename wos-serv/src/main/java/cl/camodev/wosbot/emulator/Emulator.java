@@ -1,26 +1,26 @@
 package cl.camodev.wosbot.emulator;
 
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.BufferedReader;
-import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
-import javax.imageio.ImageIO;
-
+import cl.camodev.utiles.ImageHashUtil;
+import cl.camodev.utiles.QoiCodec;
 import cl.camodev.wosbot.ex.ADBConnectionException;
+import cl.camodev.wosbot.ex.DeviceCircuitOpenException;
+import cl.camodev.wosbot.ex.ScreenStuckException;
 import com.android.ddmlib.*;
 
 import cl.camodev.wosbot.ot.DTOPoint;
-import net.sourceforge.tess4j.Tesseract;
-import net.sourceforge.tess4j.TesseractException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,7 +29,7 @@ import org.slf4j.LoggerFactory;
  * <p>
  * Provides common operations for interacting with emulators using ddmlib,
  * such as launching, closing, checking status, executing shell commands,
- * taking screenshots, simulating touch events, and OCR.
+ * taking screenshots and simulating touch events.
  * <p>
  * Subclasses must implement device-specific logic for serial retrieval,
  * launching, closing, and running status.
@@ -39,8 +39,6 @@ import org.slf4j.LoggerFactory;
  * @author cacuna
  */
 public abstract class Emulator {
-	protected static final int MAX_RETRIES = 10;
-	protected static final int RETRY_DELAY_MS = 3000;
 	protected static final int INIT_LOOPS = 10;
 	protected static final int INIT_DELAY_MS = 500;
 	private static final Logger logger = LoggerFactory.getLogger(Emulator.class);
@@ -49,8 +47,34 @@ public abstract class Emulator {
 
 	private final ThreadLocal<BufferedImage> reusableImage = new ThreadLocal<>();
 
+	private final ConcurrentHashMap<String, StuckScreenDetector> stuckScreenDetectors = new ConcurrentHashMap<>();
+
+	private static final Pattern WM_SIZE_PATTERN = Pattern.compile("(\\d+)x(\\d+)");
+
+	private final ConcurrentHashMap<String, DisplayProfile> displayProfiles = new ConcurrentHashMap<>();
+
+	private final ConcurrentHashMap<String, InputChannel> inputChannels = new ConcurrentHashMap<>();
+
+	private volatile String adbPath;
+
+	private volatile InputBackend inputBackend = InputBackend.INPUT;
+
+	private final ConcurrentHashMap<String, TouchInput> touchInputs = new ConcurrentHashMap<>();
+
+	protected final DeviceRegistry deviceRegistry = new DeviceRegistry(this::onDeviceLost);
+
+	private final ConcurrentHashMap<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+	private final List<CircuitBreakerListener> circuitBreakerListeners = new CopyOnWriteArrayList<>();
+
+	private final Map<DeviceAction, RetryPolicy> retryPolicies = new ConcurrentHashMap<>();
+
+	private final ForegroundMonitor foregroundMonitor = new ForegroundMonitor(this);
+
 	public Emulator(String consolePath) {
 		this.consolePath = consolePath;
+		// Se registra antes de crear el bridge para recibir la lista inicial de dispositivos
+		AndroidDebugBridge.addDeviceChangeListener(deviceRegistry);
 		initializeBridge();
 	}
 
@@ -59,6 +83,13 @@ public abstract class Emulator {
 	 * @return Path to the ADB executable
 	 */
 	private String getProjectAdbPath() {
+		if (adbPath == null) {
+			adbPath = findProjectAdbPath();
+		}
+		return adbPath;
+	}
+
+	private String findProjectAdbPath() {
 		// First, try to use system ADB (user has Android SDK installed)
 		String osName = System.getProperty("os.name").toLowerCase();
 		String adbExecutable = osName.contains("win") ? "adb.exe" : "adb";
@@ -107,6 +138,9 @@ public abstract class Emulator {
 			String adbPath = getProjectAdbPath();
 			logger.info("Initializing ADB bridge with path: {}", adbPath);
 			bridge = AndroidDebugBridge.createBridge(adbPath, true, 5000, TimeUnit.MILLISECONDS);
+			if (bridge != null) {
+				deviceRegistry.addAll(bridge.getDevices());
+			}
 		}
 	}
 
@@ -159,15 +193,17 @@ public abstract class Emulator {
 	 * @throws InterruptedException if interrupted while waiting
 	 */
 	protected IDevice findDevice(String emulatorNumber) throws InterruptedException {
-		waitForBridge();
 		String serial = getDeviceSerial(emulatorNumber);
 
-		// 1. First search in already connected devices (quick search)
-		for (IDevice device : bridge.getDevices()) {
-			if (serial.equals(device.getSerialNumber())) {
-				logger.debug("Device found in cache: {}", serial);
-				return device;
-			}
+		// 1. First search in the devices reported by the bridge (map lookup)
+		IDevice known = deviceRegistry.get(serial);
+		if (known != null) {
+			return known;
+		}
+		waitForBridge();
+		known = deviceRegistry.get(serial);
+		if (known != null) {
+			return known;
 		}
 
 		// 2. If not found, try direct connection
@@ -178,11 +214,10 @@ public abstract class Emulator {
 
 			// 4. Search for the newly connected device
 			for (int i = 0; i < 5; i++) {
-				for (IDevice device : bridge.getDevices()) {
-					if (serial.equals(device.getSerialNumber())) {
-                        logger.info("Device connected and found: {}", serial);
-						return device;
-					}
+				IDevice device = deviceRegistry.get(serial);
+				if (device != null) {
+                    logger.info("Device connected and found: {}", serial);
+					return device;
 				}
 				Thread.sleep(1000); // Wait 1 second between attempts
 			}
@@ -228,7 +263,7 @@ public abstract class Emulator {
 	}
 
 	/**
-	 * Executes an action with retries for the given emulator.
+	 * Executes a short shell query with retries for the given emulator.
 	 * @param emulatorNumber Emulator identifier
 	 * @param action Function to execute with IDevice
 	 * @param actionName Name for logging
@@ -236,81 +271,132 @@ public abstract class Emulator {
 	 * @return Result of the action
 	 */
 	protected <T> T withRetries(String emulatorNumber, Function<IDevice, T> action, String actionName) {
+		return withRetries(emulatorNumber, DeviceAction.QUERY, action, actionName);
+	}
+
+	/**
+	 * Executes an action with the retry budget of its kind, backing off exponentially between attempts.
+	 * <p>
+	 * Every attempt goes through the circuit breaker of the emulator, so once the device has failed too many times in
+	 * a row the action fails immediately with a {@link DeviceCircuitOpenException}.
+	 * @param emulatorNumber Emulator identifier
+	 * @param type Kind of action, selects the retry policy
+	 * @param action Function to execute with IDevice
+	 * @param actionName Name for logging
+	 * @param <T> Return type
+	 * @return Result of the action
+	 * @throws DeviceCircuitOpenException if the circuit of the emulator is open
+	 * @throws ADBConnectionException if the emulator is not running or every attempt failed
+	 */
+	protected <T> T withRetries(String emulatorNumber, DeviceAction type, Function<IDevice, T> action, String actionName) {
+		CircuitBreaker circuitBreaker = getCircuitBreaker(emulatorNumber);
+		circuitBreaker.beforeAttempt(actionName);
+
 		if (!isRunning(emulatorNumber)){
 			logger.error("Emulator {} is not running, cannot perform action {}", emulatorNumber, actionName);
+			// Cuenta como intento fallido, si este hilo es la prueba de un circuito semiabierto lo vuelve a abrir
+			circuitBreaker.onFailure();
 			throw new ADBConnectionException("Emulator " + emulatorNumber + " is not running, cannot perform action " + actionName);
 		}
 
-		for (int attempt = 1; attempt <= MAX_RETRIES; attempt++) {
+		RetryPolicy policy = getRetryPolicy(type);
+		Exception lastError = null;
+		for (int attempt = 1; attempt <= policy.getMaxAttempts(); attempt++) {
+			if (attempt > 1) {
+				circuitBreaker.beforeAttempt(actionName);
+			}
 			try {
 				// Use optimized findDevice that includes automatic connection
 				IDevice device = findDevice(emulatorNumber);
 				if (device == null) {
 					logger.error("Device not found for {}: {}", actionName, emulatorNumber);
-
-					// Only restart ADB as last resort after several attempts
-					if (attempt >= MAX_RETRIES / 2) {
-						logger.info("Attempting ADB restart as last resort (attempt {})", attempt);
-						restartAdb();
-					}
-
-					Thread.sleep(RETRY_DELAY_MS / 2); // Reduced wait
-					continue;
-				}
-
-				// Check that the device is online before executing the action
-				if (!device.isOnline()) {
-                    logger.warn("Device found but not online, waiting... (attempt {})", attempt);
-					Thread.sleep(2000);
-					continue;
+				} else if (!device.isOnline()) {
+					// Check that the device is online before executing the action
+                    logger.warn("Device found but not online (attempt {} of {})", attempt, actionName);
+				} else {
+					// Execute the action
+					T result = action.apply(device);
+					circuitBreaker.onSuccess();
+					return result;
 				}
-
-				// Execute the action
-				return action.apply(device);
-
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				circuitBreaker.onFailure();
+				throw new ADBConnectionException("Interrupted while running " + actionName + " on " + emulatorNumber, e);
 			} catch (Exception e) {
+				lastError = e;
                 logger.warn("Attempt {} of {} failed: {}", attempt, actionName, e.getMessage());
+			}
+			circuitBreaker.onFailure();
 
-				// Only restart ADB in extreme cases and after several failures
-				if (attempt >= MAX_RETRIES - 2) {
-                    logger.warn("Multiple failures, attempting ADB restart (attempt {})", attempt);
-					try {
-						restartAdb();
-						Thread.sleep(RETRY_DELAY_MS);
-					} catch (InterruptedException ie) {
-						Thread.currentThread().interrupt();
-					}
-				} else {
-					// Shorter wait between normal retries
-					try {
-						Thread.sleep(RETRY_DELAY_MS / 2);
-					} catch (InterruptedException ie) {
-						Thread.currentThread().interrupt();
-					}
-				}
+			if (attempt == policy.getMaxAttempts()) {
+				break;
+			}
+			// Reiniciar ADB solo una vez por acción, y solo en los tipos de acción que lo permiten
+			if (policy.restartsAdbAfter(attempt)) {
+                logger.warn("Multiple failures, attempting ADB restart (attempt {})", attempt);
+				restartAdb();
+			}
+			try {
+				Thread.sleep(policy.delayMs(attempt));
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+				throw new ADBConnectionException("Interrupted while retrying " + actionName + " on " + emulatorNumber, ie);
 			}
 		}
 
-		// Last resort: restart ADB and try one final time after all retries are exhausted
-		logger.warn("All {} attempts failed for {} on {}. Attempting final ADB restart and retry...",
-					MAX_RETRIES, actionName, emulatorNumber);
-		try {
-			restartAdb();
-			Thread.sleep(RETRY_DELAY_MS);
-
-			// Final attempt after ADB restart
-			IDevice device = findDevice(emulatorNumber);
-			if (device != null && device.isOnline()) {
-				logger.info("Final attempt after ADB restart for {} on {}", actionName, emulatorNumber);
-				return action.apply(device);
+        logger.error("All {} attempts failed for {} on {}", policy.getMaxAttempts(), actionName, emulatorNumber);
+		throw new ADBConnectionException("All " + policy.getMaxAttempts() + " attempts failed for " + actionName + " on " + emulatorNumber, lastError);
+	}
+
+	/**
+	 * Gets the circuit breaker of the given emulator, creating it on first use.
+	 * @param emulatorNumber Emulator identifier
+	 * @return Circuit breaker of the emulator
+	 */
+	public CircuitBreaker getCircuitBreaker(String emulatorNumber) {
+		return circuitBreakers.computeIfAbsent(emulatorNumber, key -> new CircuitBreaker(key, this::fireCircuitStateChange));
+	}
+
+	/**
+	 * Registers a listener notified when the circuit breaker of an emulator opens, probes or closes.
+	 * @param listener Listener to add
+	 */
+	public void addCircuitBreakerListener(CircuitBreakerListener listener) {
+		circuitBreakerListeners.add(listener);
+	}
+
+	private void fireCircuitStateChange(String emulatorNumber, CircuitBreaker.State state, long retryAfterMs) {
+		if (state == CircuitBreaker.State.OPEN) {
+			logger.warn("Circuit opened for emulator {}, failing fast for {} ms", emulatorNumber, retryAfterMs);
+		} else {
+			logger.info("Circuit of emulator {} is now {}", emulatorNumber, state);
+		}
+		for (CircuitBreakerListener listener : circuitBreakerListeners) {
+			try {
+				listener.onCircuitStateChange(emulatorNumber, state, retryAfterMs);
+			} catch (Exception e) {
+				logger.warn("Circuit breaker listener failed: {}", e.getMessage());
 			}
-		} catch (Exception e) {
-			logger.error("Final attempt after ADB restart also failed for {} on {}: {}",
-						actionName, emulatorNumber, e.getMessage());
 		}
+	}
 
-        logger.error("All attempts including final ADB restart failed for {} on {}", actionName, emulatorNumber);
-		throw new ADBConnectionException("All attempts including final ADB restart failed for " + actionName + " on " + emulatorNumber);
+	/**
+	 * Gets the retry budget used for a kind of action.
+	 * @param type Kind of action
+	 * @return Retry policy of the action
+	 */
+	public RetryPolicy getRetryPolicy(DeviceAction type) {
+		return retryPolicies.getOrDefault(type, type.getDefaultPolicy());
+	}
+
+	/**
+	 * Replaces the retry budget of a kind of action.
+	 * @param type Kind of action
+	 * @param policy Retry policy to use
+	 */
+	public void setRetryPolicy(DeviceAction type, RetryPolicy policy) {
+		retryPolicies.put(type, policy);
 	}
 
 	/**
@@ -355,10 +441,10 @@ public abstract class Emulator {
 	/**
 	 * Captures a screenshot using ddmlib.
 	 * @param emulatorNumber Emulator identifier
-	 * @return PNG image bytes
+	 * @return QOI image bytes
 	 */
 	protected byte[] captureScreenshotWithDdmlib(String emulatorNumber) {
-		return withRetries(emulatorNumber, device -> {
+		return withRetries(emulatorNumber, DeviceAction.SCREENSHOT, device -> {
 			try {
 				RawImage rawImage = device.getScreenshot();
 				if (rawImage == null) {
@@ -373,9 +459,9 @@ public abstract class Emulator {
 					reusableImage.set(image);
 				}
 				convertRawImageToBufferedImage(rawImage, image);
-				ByteArrayOutputStream baos = new ByteArrayOutputStream();
-				ImageIO.write(image, "png", baos);
-				return baos.toByteArray();
+				updateDisplayProfile(emulatorNumber, rawImage.width, rawImage.height);
+				getStuckScreenDetector(emulatorNumber).onFrame(ImageHashUtil.differenceHash(image));
+				return QoiCodec.encode(image);
 			} catch (Exception e) {
 				throw new RuntimeException("Error capturing screenshot", e);
 			}
@@ -392,40 +478,116 @@ public abstract class Emulator {
 	 * @return true if successful
 	 */
 	protected boolean tapWithDdmlib(String emulatorNumber, DTOPoint point1, DTOPoint point2, int tapCount, int delayMs) {
-		return withRetries(emulatorNumber, device -> {
-			Random random = new Random();
-			int minX = Math.min(point1.getX(), point2.getX());
-			int maxX = Math.max(point1.getX(), point2.getX());
-			int minY = Math.min(point1.getY(), point2.getY());
-			int maxY = Math.max(point1.getY(), point2.getY());
+		// Los puntos ya están en coordenadas del dispositivo, todos los taps se envían en un solo comando
+		return new GestureScript(this, emulatorNumber, DisplayProfile.REFERENCE, getTouchInput(emulatorNumber)).tap(point1, point2, tapCount, delayMs).run();
+	}
+
+	/**
+	 * Runs a gesture script on the emulator in a single shell command.
+	 * @param emulatorNumber Emulator identifier
+	 * @param script Script to run
+	 * @return true if successful
+	 */
+	protected boolean runGestureScript(String emulatorNumber, GestureScript script) {
+		String command = script.compile();
+		return withRetries(emulatorNumber, DeviceAction.INPUT, device -> {
+			try {
+				getInputChannel(emulatorNumber).execute(command, script.getTimeoutMs());
+				getStuckScreenDetector(emulatorNumber).onInputAction();
+				logger.info("Gesture script with {} gestures sent to emulator {}: {}", script.getGestures(), emulatorNumber, command);
+				return Boolean.TRUE;
+			} catch (Exception e) {
+				throw new RuntimeException("Error executing gesture script", e);
+			}
+		}, "gestureScript x" + script.getGestures());
+	}
 
-			for (int i = 1; i <= tapCount; i++) {
-				int x = minX + random.nextInt(maxX - minX + 1);
-				int y = minY + random.nextInt(maxY - minY + 1);
+	/**
+	 * Creates an empty gesture script for the emulator, with points in reference coordinates.
+	 * @param emulatorNumber Emulator identifier
+	 * @return Script to fill and run
+	 */
+	public GestureScript gesture(String emulatorNumber) {
+		return new GestureScript(this, emulatorNumber, getDisplayProfile(emulatorNumber), getTouchInput(emulatorNumber));
+	}
 
-				try {
-					device.executeShellCommand("input tap " + x + " " + y, new NullOutputReceiver());
-                    logger.info("Tap {}/{} sent to ({},{}) on emulator {}", i, tapCount, x, y,emulatorNumber);
-					if (i < tapCount) Thread.sleep(delayMs);
-				} catch (Exception ex) {
-					throw new RuntimeException(ex);
-				}
+	/**
+	 * Selects how taps and swipes are injected. The touchscreen of each emulator is discovered again on the next input.
+	 * @param backend Input backend
+	 */
+	public void setInputBackend(InputBackend backend) {
+		inputBackend = backend;
+		touchInputs.clear();
+		logger.info("Input backend: {}", backend);
+	}
+
+	/**
+	 * Gets the commands used to inject touches on the emulator, discovering its touchscreen on first use. Only a
+	 * completed discovery is remembered; if it fails the input command is used and the touchscreen is discovered again
+	 * on the next input. Must not be called from inside {@link #withRetries}, the discovery has its own retries.
+	 * @param emulatorNumber Emulator identifier
+	 * @return Touch input of the emulator
+	 */
+	TouchInput getTouchInput(String emulatorNumber) {
+		if (inputBackend == InputBackend.INPUT) {
+			return TouchInput.INPUT_COMMAND;
+		}
+		TouchInput cached = touchInputs.get(emulatorNumber);
+		if (cached != null) {
+			return cached;
+		}
+
+		// Se descubre fuera del mapa, la consulta al dispositivo con reintentos no debe bloquear su bin
+		TouchInput discovered;
+		try {
+			discovered = discoverTouchInput(emulatorNumber);
+		} catch (Exception e) {
+			logger.warn("Could not discover the touchscreen of emulator {}, using the input command: {}", emulatorNumber, e.getMessage());
+			return TouchInput.INPUT_COMMAND;
+		}
+		TouchInput previous = touchInputs.putIfAbsent(emulatorNumber, discovered);
+		return previous != null ? previous : discovered;
+	}
+
+	private TouchInput discoverTouchInput(String emulatorNumber) {
+		DisplayProfile profile = getDisplayProfile(emulatorNumber);
+		String getevent = withRetries(emulatorNumber, device -> {
+			try {
+				CollectingOutputReceiver receiver = new CollectingOutputReceiver();
+				device.executeShellCommand(SendEventTouch.DISCOVERY_COMMAND, receiver, 5, TimeUnit.SECONDS);
+				return receiver.getOutput();
+			} catch (Exception e) {
+				throw new RuntimeException("Error listing input devices", e);
 			}
-			return Boolean.TRUE;
-		}, "tapAtRandomPoint x" + tapCount);
+		}, "discoverTouchInput");
+		SendEventTouch touch = SendEventTouch.discover(getevent, profile.getWidth(), profile.getHeight());
+		if (touch != null) {
+			logger.info("Emulator {} touchscreen: {}", emulatorNumber, touch);
+			return touch;
+		}
+		logger.warn("No touchscreen found on emulator {}, using the input command", emulatorNumber);
+		return TouchInput.INPUT_COMMAND;
 	}
 
 	/**
 	 * Restarts the ADB bridge using the project's ADB executable.
 	 */
 	public void restartAdb() {
+		// Las shells de input no sobreviven al reinicio del servidor ADB
+		closeInputChannels();
 		AndroidDebugBridge.disconnectBridge(5000, TimeUnit.MILLISECONDS);
 		AndroidDebugBridge.terminate();
 		AndroidDebugBridge.init(false);
 
+		// Los IDevice del bridge anterior ya no son válidos
+		deviceRegistry.clear();
+
 		String adbPath = getProjectAdbPath();
 		logger.info("Restarting ADB bridge with path: {}", adbPath);
 		bridge = AndroidDebugBridge.createBridge(adbPath, true, 5000, TimeUnit.MILLISECONDS);
+		if (bridge != null) {
+			deviceRegistry.addAll(bridge.getDevices());
+		}
 		logger.info("ADB restarted successfully");
 	}
 
@@ -436,10 +598,11 @@ public abstract class Emulator {
 	 * @param point2 End point
 	 */
 	public void swipe(String emulatorNumber, DTOPoint point, DTOPoint point2) {
-		withRetries(emulatorNumber, device -> {
+		String command = getTouchInput(emulatorNumber).swipe(point.getX(), point.getY(), point2.getX(), point2.getY());
+		withRetries(emulatorNumber, DeviceAction.INPUT, device -> {
 			try {
-				String command = String.format("input swipe %d %d %d %d", point.getX(), point.getY(), point2.getX(), point2.getY());
-				device.executeShellCommand(command, new NullOutputReceiver());
+				getInputChannel(emulatorNumber).execute(command);
+				getStuckScreenDetector(emulatorNumber).onInputAction();
 				logger.info("Swipe executed from ({},{}) to ({},{}) on emulator {}",
 						point.getX(), point.getY(), point2.getX(), point2.getY(), emulatorNumber);
 				return null;
@@ -454,9 +617,10 @@ public abstract class Emulator {
 	 * @param emulatorNumber Emulator identifier
 	 */
 	public void pressBackButton(String emulatorNumber) {
-		withRetries(emulatorNumber, device -> {
+		withRetries(emulatorNumber, DeviceAction.INPUT, device -> {
 			try {
-				device.executeShellCommand("input keyevent KEYCODE_BACK", new NullOutputReceiver());
+				getInputChannel(emulatorNumber).execute("input keyevent KEYCODE_BACK");
+				getStuckScreenDetector(emulatorNumber).onInputAction();
                 logger.info("Back button pressed on emulator {}", emulatorNumber);
 				return null;
 			} catch (Exception e) {
@@ -502,50 +666,42 @@ public abstract class Emulator {
 	}
 
 	/**
-	 * Checks if the package is running in the foreground using dumpsys window windows.
+	 * Checks if the package is running in the foreground, from a probe at most a few seconds old.
 	 * @param emulatorNumber Emulator identifier
 	 * @param packageName Package name to check
 	 * @return true if in foreground, false otherwise
+	 * @see ForegroundMonitor
 	 */
 	public boolean isPackageRunning(String emulatorNumber, String packageName) {
-		return withRetries(emulatorNumber, device -> {
+		return foregroundMonitor.isForeground(emulatorNumber, packageName);
+	}
+
+	/**
+	 * Probes whether the package is running and in the foreground with a single shell command.
+	 * @param emulatorNumber Emulator identifier
+	 * @param packageName Package name to check
+	 * @param retry Whether to retry through {@link #withRetries}, false for background probes that must not block
+	 * @return State of the package, or null from a background probe if the device is unknown or offline
+	 */
+	ForegroundMonitor.State probeForeground(String emulatorNumber, String packageName, boolean retry) {
+		Function<IDevice, ForegroundMonitor.State> probe = device -> {
 			try {
-				// List of commands to try, in order:
-				List<String> cmds = Arrays.asList(
-						"dumpsys window windows",             // Android ≤ 10
-						"dumpsys window displays",            // Android 11+
-						"dumpsys window",                     // global fallback
-						"dumpsys activity activities"         // search for mResumedActivity
-				);
-				for (String cmd : cmds) {
-					CollectingOutputReceiver recv = new CollectingOutputReceiver();
-					device.executeShellCommand(cmd, recv, 5, TimeUnit.SECONDS);
-					String out = recv.getOutput();
-
-					for (String line : out.split("\\r?\\n")) {
-						line = line.trim();
-						// for the first 3 commands...
-						if ((cmd.contains("window")) &&
-								(line.contains("mCurrentFocus") || line.contains("mFocusedApp")) &&
-								line.contains(packageName + "/")) {
-							logger.trace("✅ Foreground detected with `{}`: {}", cmd, line);
-							return true;
-						}
-						// for dumpsys activity activities...
-						if (cmd.contains("activity") &&
-								line.contains("mResumedActivity") &&
-								line.contains(packageName + "/")) {
-							logger.info("✅ Foreground detected with `{}`: {}", cmd, line);
-							return true;
-						}
-					}
-				}
-				logger.info("App {} is not in foreground on emulator {}", packageName, emulatorNumber);
-				return false;
+				CollectingOutputReceiver receiver = new CollectingOutputReceiver();
+				device.executeShellCommand(ForegroundMonitor.probeCommand(packageName), receiver, 5, TimeUnit.SECONDS);
+				return ForegroundMonitor.parse(receiver.getOutput(), packageName);
 			} catch (Exception e) {
 				throw new RuntimeException("Error checking if package is running: " + packageName, e);
 			}
-		}, "isAppInForeground");
+		};
+		if (retry) {
+			return withRetries(emulatorNumber, probe, "isAppInForeground");
+		}
+		IDevice device = deviceRegistry.get(getDeviceSerial(emulatorNumber));
+		if (device == null || !device.isOnline()) {
+			// Sin dispositivo no se sabe si el juego corre, p. ej. mientras se reinicia ADB
+			return null;
+		}
+		return probe.apply(device);
 	}
 
 	/**
@@ -555,7 +711,7 @@ public abstract class Emulator {
 	 */
 	public boolean isEmulatorReady(String emulatorNumber) {
 		try {
-			return withRetries(emulatorNumber, device -> {
+			return withRetries(emulatorNumber, DeviceAction.LIFECYCLE, device -> {
 				try {
 					// Check if device is online and responding
 					if (!device.isOnline()) {
@@ -616,9 +772,11 @@ public abstract class Emulator {
 	 * @param packageName Package name to launch
 	 */
 	public void launchApp(String emulatorNumber, String packageName) {
-		withRetries(emulatorNumber, device -> {
+		withRetries(emulatorNumber, DeviceAction.LIFECYCLE, device -> {
 			try {
 				device.executeShellCommand("monkey -p " + packageName + " -c android.intent.category.LAUNCHER 1", new NullOutputReceiver());
+				getStuckScreenDetector(emulatorNumber).reset();
+				foregroundMonitor.invalidate(emulatorNumber);
                 logger.info("Application {} launched on emulator {}", packageName, emulatorNumber);
 				return null;
 			} catch (Exception e) {
@@ -627,6 +785,25 @@ public abstract class Emulator {
 		}, "launchApp");
 	}
 
+	/**
+	 * Force stops an app on the emulator.
+	 * @param emulatorNumber Emulator identifier
+	 * @param packageName Package name to stop
+	 */
+	public void forceStopApp(String emulatorNumber, String packageName) {
+		withRetries(emulatorNumber, DeviceAction.LIFECYCLE, device -> {
+			try {
+				device.executeShellCommand("am force-stop " + packageName, new NullOutputReceiver());
+				getStuckScreenDetector(emulatorNumber).reset();
+				foregroundMonitor.invalidate(emulatorNumber);
+				logger.info("Application {} force stopped on emulator {}", packageName, emulatorNumber);
+				return null;
+			} catch (Exception e) {
+				throw new RuntimeException("Error stopping app: " + packageName, e);
+			}
+		}, "forceStopApp");
+	}
+
 	/**
 	 * Simulates a random tap at a point within the given area.
 	 * @param emulatorNumber Emulator identifier
@@ -652,39 +829,139 @@ public abstract class Emulator {
 	}
 
 	/**
-	 * Performs OCR on a region of the emulator screen.
+	 * Captures a screenshot from the emulator.
 	 * @param emulatorNumber Emulator identifier
-	 * @param p1 First corner
-	 * @param p2 Second corner
-	 * @return Recognized text
-	 * @throws IOException if image capture fails
-	 * @throws TesseractException if OCR fails
+	 * @return QOI image bytes, see {@link QoiCodec}
+	 * @throws ScreenStuckException if the screen stopped reacting to input
 	 */
-	public String ocrRegionText(String emulatorNumber, DTOPoint p1, DTOPoint p2) throws IOException, TesseractException {
-		BufferedImage image = ImageIO.read(new ByteArrayInputStream(captureScreenshot(emulatorNumber)));
-		if (image == null)
-			throw new IOException("Could not capture image.");
+	public byte[] captureScreenshot(String emulatorNumber) {
+		byte[] screenshot = captureScreenshotWithDdmlib(emulatorNumber);
+		StuckScreenDetector detector = getStuckScreenDetector(emulatorNumber);
+		if (detector.isStuck()) {
+			logger.warn("Screen on emulator {} did not change across {} frames and {} input actions",
+					emulatorNumber, detector.getIdenticalFrames(), detector.getActionsSinceChange());
+			throw new ScreenStuckException("Screen on emulator " + emulatorNumber + " is not responding to input");
+		}
+		return screenshot;
+	}
 
-		int x = Math.min(p1.getX(), p2.getX());
-		int y = Math.min(p1.getY(), p2.getY());
-		int width = Math.abs(p1.getX() - p2.getX());
-		int height = Math.abs(p1.getY() - p2.getY());
+	/**
+	 * Gets the persistent shell used to send input commands to the emulator, creating it on first use.
+	 * @param emulatorNumber Emulator identifier
+	 * @return Input channel of the emulator
+	 */
+	public InputChannel getInputChannel(String emulatorNumber) {
+		return inputChannels.computeIfAbsent(emulatorNumber, key -> new InputChannel(getProjectAdbPath(), getDeviceSerial(key)));
+	}
 
-		BufferedImage subImage = image.getSubimage(x, y, width, height);
-		Tesseract tesseract = new Tesseract();
-		tesseract.setDatapath("lib/tesseract");
-		tesseract.setLanguage("eng");
+	/**
+	 * Checks if the device of the emulator is connected and online, as last reported by the bridge.
+	 * @param emulatorNumber Emulator identifier
+	 * @return true if online
+	 */
+	protected boolean isDeviceOnline(String emulatorNumber) {
+		return deviceRegistry.isOnline(getDeviceSerial(emulatorNumber));
+	}
 
-		return tesseract.doOCR(subImage);
+	/**
+	 * Closes the input shell of a device as soon as it disconnects or goes offline.
+	 */
+	private void onDeviceLost(String serial) {
+		inputChannels.entrySet().removeIf(entry -> {
+			if (!serial.equals(getDeviceSerial(entry.getKey()))) {
+				return false;
+			}
+			entry.getValue().close();
+			return true;
+		});
 	}
 
 	/**
-	 * Captures a screenshot from the emulator.
+	 * Releases what the instance keeps outside itself: the device listener registered in the bridge, the foreground
+	 * monitor thread and the input shells. Must be called before replacing the instance.
+	 */
+	public void close() {
+		AndroidDebugBridge.removeDeviceChangeListener(deviceRegistry);
+		foregroundMonitor.close();
+		closeInputChannels();
+	}
+
+	/**
+	 * Closes the input shells of all the emulators. They are opened again on the next input command.
+	 */
+	public void closeInputChannels() {
+		inputChannels.values().forEach(InputChannel::close);
+		inputChannels.clear();
+	}
+
+	/**
+	 * Gets the stuck screen detector for the given emulator, creating it on first use.
 	 * @param emulatorNumber Emulator identifier
-	 * @return PNG image bytes
+	 * @return Detector holding the frame history of the emulator
 	 */
-	public byte[] captureScreenshot(String emulatorNumber) {
-		return captureScreenshotWithDdmlib(emulatorNumber);
+	public StuckScreenDetector getStuckScreenDetector(String emulatorNumber) {
+		return stuckScreenDetectors.computeIfAbsent(emulatorNumber, key -> new StuckScreenDetector());
+	}
+
+	/**
+	 * Gets the display profile of the given emulator.
+	 * <p>
+	 * The size is taken from the last captured screenshot. Before the first capture it is queried with {@code wm size},
+	 * falling back to the reference resolution if the device does not answer.
+	 * @param emulatorNumber Emulator identifier
+	 * @return Display profile of the emulator
+	 */
+	public DisplayProfile getDisplayProfile(String emulatorNumber) {
+		DisplayProfile profile = displayProfiles.get(emulatorNumber);
+		if (profile != null) {
+			return profile;
+		}
+		try {
+			profile = queryDisplayProfile(emulatorNumber);
+		} catch (Exception e) {
+			logger.warn("Could not read the display size of emulator {}, assuming {}x{}", emulatorNumber,
+					DisplayProfile.REFERENCE_WIDTH, DisplayProfile.REFERENCE_HEIGHT);
+			return DisplayProfile.REFERENCE;
+		}
+		DisplayProfile previous = displayProfiles.putIfAbsent(emulatorNumber, profile);
+		return previous != null ? previous : profile;
+	}
+
+	/**
+	 * Reads the display size with {@code wm size}, preferring the override size when one is set.
+	 * @param emulatorNumber Emulator identifier
+	 * @return Display profile of the emulator
+	 */
+	private DisplayProfile queryDisplayProfile(String emulatorNumber) {
+		return withRetries(emulatorNumber, device -> {
+			try {
+				CollectingOutputReceiver receiver = new CollectingOutputReceiver();
+				device.executeShellCommand("wm size", receiver);
+				DisplayProfile profile = DisplayProfile.REFERENCE;
+				// "Physical size: 720x1280" seguido opcionalmente de "Override size: ..."
+				for (String line : receiver.getOutput().split("\\R")) {
+					Matcher matcher = WM_SIZE_PATTERN.matcher(line);
+					if (matcher.find()) {
+						profile = DisplayProfile.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+					}
+				}
+				logger.info("Emulator {} display: {}", emulatorNumber, profile);
+				return profile;
+			} catch (Exception e) {
+				throw new RuntimeException("Error reading display size", e);
+			}
+		}, "queryDisplayProfile");
+	}
+
+	private void updateDisplayProfile(String emulatorNumber, int width, int height) {
+		DisplayProfile current = displayProfiles.get(emulatorNumber);
+		if (current == null || current.getWidth() != width || current.getHeight() != height) {
+			DisplayProfile profile = DisplayProfile.of(width, height);
+			displayProfiles.put(emulatorNumber, profile);
+			// Los rangos del touchscreen se escalan con el tamaño de pantalla
+			touchInputs.remove(emulatorNumber);
+			logger.info("Emulator {} display: {}", emulatorNumber, profile);
+		}
 	}
 
 	/**
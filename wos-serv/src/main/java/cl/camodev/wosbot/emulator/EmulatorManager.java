@@ -1,20 +1,34 @@
 package cl.camodev.wosbot.emulator;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 
+import cl.camodev.utiles.EnumOcrProfile;
+import cl.camodev.utiles.ImageFrame;
 import cl.camodev.utiles.ImageSearchUtil;
+import cl.camodev.utiles.UtilOCR;
 import cl.camodev.wosbot.console.enumerable.EnumConfigurationKey;
 import cl.camodev.wosbot.emulator.impl.AndroidStudioEmulator;
+import cl.camodev.wosbot.ex.ADBConnectionException;
+import cl.camodev.wosbot.ex.ScreenStuckException;
+import cl.camodev.wosbot.ot.DTOArea;
 import cl.camodev.wosbot.ot.DTOImageSearchResult;
 import cl.camodev.wosbot.ot.DTOPoint;
 import cl.camodev.wosbot.ot.DTOProfiles;
+import cl.camodev.wosbot.ot.DTOStatusLabel;
 import cl.camodev.wosbot.serv.impl.ServConfig;
 import cl.camodev.wosbot.serv.task.TaskQueue;
 import cl.camodev.wosbot.serv.task.WaitingThread;
@@ -27,11 +41,13 @@ public class EmulatorManager {
 	private static final Logger logger = LoggerFactory.getLogger(EmulatorManager.class);
 
 	public static String WHITEOUT_PACKAGE = "com.gof.global";
+	private static final String OCR_REGION_KEY = "region";
 	private static EmulatorManager instance;
 	private final ReentrantLock lock = new ReentrantLock();
 	private final Condition permitsAvailable = lock.newCondition();
 	private final PriorityQueue<WaitingThread> waitingQueue = new PriorityQueue<>();
 	private Emulator emulator;
+	private final List<CircuitBreakerListener> circuitBreakerListeners = new CopyOnWriteArrayList<>();
 	private int MAX_RUNNING_EMULATORS = 3;
 
 	private EmulatorManager() {
@@ -68,11 +84,18 @@ public class EmulatorManager {
 			// For Android Studio emulators, consolePath can be empty (uses system ADB)
 			// or contain ADB device reference like "adb:emulator-5554"
 			String adbReference = (consolePath != null && !consolePath.isEmpty()) ? consolePath : "system";
+			// La instancia anterior deja de escuchar al bridge y de sondear en segundo plano
+			if (this.emulator != null) {
+				this.emulator.close();
+			}
 			this.emulator = new AndroidStudioEmulator(adbReference);
 		} else {
 			throw new IllegalArgumentException("Unsupported emulator type: " + emulatorType);
 		}
 
+			emulator.addCircuitBreakerListener((emulatorNumber, state, retryAfterMs) ->
+					circuitBreakerListeners.forEach(listener -> listener.onCircuitStateChange(emulatorNumber, state, retryAfterMs)));
+			emulator.setInputBackend(InputBackend.fromConfig(globalConfig.get(EnumConfigurationKey.INPUT_BACKEND_STRING.name())));
             logger.info("Emulator initialized: {}", emulatorType.getDisplayName());
 			//restartAdbServer();
 
@@ -98,12 +121,22 @@ public class EmulatorManager {
 		return emulator.captureScreenshot(emulatorNumber);
 	}
 
+	/**
+	 * Captura la pantalla del emulador y la decodifica para reutilizarla en varias búsquedas.
+	 * El frame libera la imagen y sus vistas derivadas al cerrarse.
+	 */
+	public ImageFrame captureFrame(String emulatorNumber) {
+		checkEmulatorInitialized();
+		return ImageFrame.decode(captureScreenshotViaADB(emulatorNumber));
+	}
+
 	/**
 	 * Realiza un tap en una coordenada específica.
 	 */
 	public void tapAtPoint(String emulatorNumber, DTOPoint point) {
 		checkEmulatorInitialized();
-		emulator.tapAtRandomPoint(emulatorNumber, point, point);
+		DTOPoint devicePoint = getDisplayProfile(emulatorNumber).toDevice(point);
+		emulator.tapAtRandomPoint(emulatorNumber, devicePoint, devicePoint);
 
 	}
 
@@ -112,7 +145,8 @@ public class EmulatorManager {
 	 */
 	public boolean tapAtRandomPoint(String emulatorNumber, DTOPoint point1, DTOPoint point2) {
 		checkEmulatorInitialized();
-		return emulator.tapAtRandomPoint(emulatorNumber, point1, point2);
+		DisplayProfile profile = getDisplayProfile(emulatorNumber);
+		return emulator.tapAtRandomPoint(emulatorNumber, profile.toDevice(point1), profile.toDevice(point2));
 	}
 
 	/**
@@ -120,7 +154,16 @@ public class EmulatorManager {
 	 */
 	public boolean tapAtRandomPoint(String emulatorNumber, DTOPoint point1, DTOPoint point2, int tapCount, int delayMs) {
 		checkEmulatorInitialized();
-		return emulator.tapAtRandomPoint(emulatorNumber, point1, point2, tapCount, delayMs);
+		DisplayProfile profile = getDisplayProfile(emulatorNumber);
+		return emulator.tapAtRandomPoint(emulatorNumber, profile.toDevice(point1), profile.toDevice(point2), tapCount, delayMs);
+	}
+
+	/**
+	 * Crea un script de gestos que se envía al emulador en un solo comando, ver {@link GestureScript}.
+	 */
+	public GestureScript gesture(String emulatorNumber) {
+		checkEmulatorInitialized();
+		return emulator.gesture(emulatorNumber);
 	}
 
 	/**
@@ -128,7 +171,8 @@ public class EmulatorManager {
 	 */
 	public void executeSwipe(String emulatorNumber, DTOPoint start, DTOPoint end) {
 		checkEmulatorInitialized();
-		emulator.swipe(emulatorNumber, start, end);
+		DisplayProfile profile = getDisplayProfile(emulatorNumber);
+		emulator.swipe(emulatorNumber, profile.toDevice(start), profile.toDevice(end));
 	}
 
 	/**
@@ -151,45 +195,241 @@ public class EmulatorManager {
 	 * Ejecuta OCR en una región de la pantalla y extrae texto.
 	 */
 	public String ocrRegionText(String emulatorNumber, DTOPoint p1, DTOPoint p2) throws IOException, TesseractException {
+		return ocrRegionText(emulatorNumber, p1, p2, EnumOcrProfile.DEFAULT);
+	}
+
+	/**
+	 * Ejecuta OCR en una región de la pantalla con el perfil del campo que se lee.
+	 */
+	public String ocrRegionText(String emulatorNumber, DTOPoint p1, DTOPoint p2, EnumOcrProfile ocrProfile) throws IOException, TesseractException {
+		return ocrRegions(emulatorNumber, Map.of(OCR_REGION_KEY, new DTOArea(p1, p2)), ocrProfile).get(OCR_REGION_KEY);
+	}
+
+	/**
+	 * Captura la pantalla y ejecuta OCR de una región en segundo plano, para que la tarea pueda seguir navegando
+	 * mientras se lee el texto. Los errores de la captura ({@link ScreenStuckException},
+	 * {@link ADBConnectionException}) se lanzan al llamar, para que la cola de tareas los maneje.
+	 *
+	 * @return El texto de la región. Termina con una {@link IOException} si la captura no devolvió imagen o con una
+	 *         {@link TesseractException} si falla el OCR.
+	 */
+	public CompletableFuture<String> ocrRegionTextAsync(String emulatorNumber, DTOPoint p1, DTOPoint p2) {
+		return ocrRegionTextAsync(emulatorNumber, p1, p2, EnumOcrProfile.DEFAULT);
+	}
+
+	/**
+	 * Captura la pantalla y ejecuta OCR de una región en segundo plano, con el perfil del campo que se lee.
+	 */
+	public CompletableFuture<String> ocrRegionTextAsync(String emulatorNumber, DTOPoint p1, DTOPoint p2, EnumOcrProfile ocrProfile) {
+		// La captura es síncrona, la región debe leerse antes de que la tarea cambie de pantalla
+		try (ImageFrame frame = captureFrame(emulatorNumber)) {
+			if (frame.isEmpty()) {
+				return CompletableFuture.failedFuture(new IOException("Could not capture image."));
+			}
+			DisplayProfile profile = profileOf(frame);
+			return UtilOCR.ocrRegionAsync(frame, new DTOArea(profile.toDeviceCorner(p1), profile.toDeviceCorner(p2)), ocrProfile);
+		}
+	}
+
+	/**
+	 * Ejecuta OCR de una región con varias variantes de preprocesamiento en paralelo sobre una única captura y
+	 * devuelve el valor más votado entre las lecturas que el parser acepta.
+	 *
+	 * @param parser Interpreta una lectura, vacío si el texto no tiene el formato esperado.
+	 * @return El valor más votado, o vacío si ninguna variante pudo interpretarse.
+	 */
+	public <T> Optional<T> ocrRegionVoting(String emulatorNumber, DTOPoint p1, DTOPoint p2, EnumOcrProfile ocrProfile, Function<String, Optional<T>> parser) throws IOException, TesseractException {
+		try (ImageFrame frame = captureFrame(emulatorNumber)) {
+			if (frame.isEmpty()) {
+				throw new IOException("Could not capture image.");
+			}
+			DisplayProfile profile = profileOf(frame);
+			return UtilOCR.ocrVoting(frame, new DTOArea(profile.toDeviceCorner(p1), profile.toDeviceCorner(p2)), ocrProfile, parser);
+		}
+	}
+
+	/**
+	 * Lee un temporizador de cuenta regresiva de la pantalla, sin Tesseract cuando sus glifos ya son conocidos.
+	 *
+	 * @return El tiempo restante, o vacío si no se pudo leer.
+	 */
+	public Optional<Duration> ocrDuration(String emulatorNumber, DTOPoint p1, DTOPoint p2) throws IOException, TesseractException {
+		try (ImageFrame frame = captureFrame(emulatorNumber)) {
+			if (frame.isEmpty()) {
+				throw new IOException("Could not capture image.");
+			}
+			DisplayProfile profile = profileOf(frame);
+			return UtilOCR.ocrDuration(frame, new DTOArea(profile.toDeviceCorner(p1), profile.toDeviceCorner(p2)));
+		}
+	}
+
+	/**
+	 * Lee la palabra de estado de un edificio o cola (Idle, Completed, Upgrading), sin Tesseract cuando la palabra ya
+	 * es conocida.
+	 *
+	 * @return El estado leído; sin etiqueta si la región no muestra una palabra conocida.
+	 */
+	public DTOStatusLabel readStatusLabel(String emulatorNumber, DTOPoint p1, DTOPoint p2) throws IOException, TesseractException {
+		try (ImageFrame frame = captureFrame(emulatorNumber)) {
+			if (frame.isEmpty()) {
+				throw new IOException("Could not capture image.");
+			}
+			DisplayProfile profile = profileOf(frame);
+			return UtilOCR.readStatusLabel(frame, new DTOArea(profile.toDeviceCorner(p1), profile.toDeviceCorner(p2)));
+		}
+	}
+
+	/**
+	 * Ejecuta OCR en varias regiones de una única captura de la pantalla.
+	 *
+	 * @return El texto de cada región, con las mismas claves.
+	 */
+	public Map<String, String> ocrRegions(String emulatorNumber, Map<String, DTOArea> regions) throws IOException, TesseractException {
+		return ocrRegions(emulatorNumber, regions, EnumOcrProfile.DEFAULT);
+	}
+
+	/**
+	 * Ejecuta OCR en varias regiones de una única captura de la pantalla, todas con el mismo perfil.
+	 *
+	 * @return El texto de cada región, con las mismas claves.
+	 */
+	public Map<String, String> ocrRegions(String emulatorNumber, Map<String, DTOArea> regions, EnumOcrProfile ocrProfile) throws IOException, TesseractException {
+		try (ImageFrame frame = captureFrame(emulatorNumber)) {
+			return ocrRegions(frame, regions, ocrProfile);
+		}
+	}
+
+	/**
+	 * Ejecuta OCR en varias regiones de un frame ya capturado, en paralelo.
+	 *
+	 * @return El texto de cada región, con las mismas claves.
+	 */
+	public Map<String, String> ocrRegions(ImageFrame frame, Map<String, DTOArea> regions) throws IOException, TesseractException {
+		return ocrRegions(frame, regions, EnumOcrProfile.DEFAULT);
+	}
+
+	/**
+	 * Ejecuta OCR en varias regiones de un frame ya capturado, en paralelo y con el mismo perfil.
+	 *
+	 * @return El texto de cada región, con las mismas claves.
+	 */
+	public Map<String, String> ocrRegions(ImageFrame frame, Map<String, DTOArea> regions, EnumOcrProfile ocrProfile) throws IOException, TesseractException {
+		if (frame.isEmpty()) {
+			throw new IOException("Could not capture image.");
+		}
+		DisplayProfile profile = profileOf(frame);
+		Map<String, DTOArea> deviceRegions = new LinkedHashMap<>();
+		regions.forEach((key, area) -> deviceRegions.put(key, new DTOArea(profile.toDeviceCorner(area.getTopLeft()), profile.toDeviceCorner(area.getBottomRight()))));
+		return UtilOCR.ocrRegions(frame, deviceRegions, ocrProfile);
+	}
+
+	/**
+	 * Obtiene el perfil de pantalla del emulador, usado para escalar coordenadas y templates.
+	 */
+	public DisplayProfile getDisplayProfile(String emulatorNumber) {
 		checkEmulatorInitialized();
-		return emulator.ocrRegionText(emulatorNumber, p1, p2);
+		return emulator.getDisplayProfile(emulatorNumber);
 	}
 
 	/**
 	 * Busca una imagen en la pantalla capturada del emulador.
 	 */
 	public DTOImageSearchResult searchTemplate(String emulatorNumber, String templatePath, DTOPoint topLeftCorner, DTOPoint bottomRightCorner , double threshold) {
-		checkEmulatorInitialized();
-		byte[] screenshot = captureScreenshotViaADB(emulatorNumber);
-		return ImageSearchUtil.buscarTemplate(screenshot, templatePath, topLeftCorner, bottomRightCorner, threshold);
+		try (ImageFrame frame = captureFrame(emulatorNumber)) {
+			return searchTemplate(frame, templatePath, topLeftCorner, bottomRightCorner, threshold);
+		}
 	}
 
 	/**
 	 * Busca una imagen en toda la pantalla del emulador.
 	 */
 	public DTOImageSearchResult searchTemplate(String emulatorNumber, String templatePath, double threshold) {
-		checkEmulatorInitialized();
-		byte[] screenshot = captureScreenshotViaADB(emulatorNumber);
-		return ImageSearchUtil.buscarTemplate(screenshot, templatePath, new DTOPoint(0,0), new DTOPoint(720,1280), threshold);
+		try (ImageFrame frame = captureFrame(emulatorNumber)) {
+			return searchTemplate(frame, templatePath, threshold);
+		}
+	}
+
+	/**
+	 * Busca varios templates en una única captura de toda la pantalla del emulador.
+	 */
+	public Map<String, DTOImageSearchResult> searchTemplatesBatch(String emulatorNumber, Collection<String> templatePaths, double threshold) {
+		try (ImageFrame frame = captureFrame(emulatorNumber)) {
+			DisplayProfile profile = profileOf(frame);
+			Map<String, String> devicePaths = new LinkedHashMap<>();
+			for (String templatePath : templatePaths) {
+				devicePaths.put(profile.template(templatePath), templatePath);
+			}
+
+			Map<String, DTOImageSearchResult> deviceResults = ImageSearchUtil.searchTemplatesBatch(frame, devicePaths.keySet(), new DTOPoint(0,0), new DTOPoint(profile.getWidth(), profile.getHeight()), threshold);
+			Map<String, DTOImageSearchResult> results = new LinkedHashMap<>();
+			deviceResults.forEach((devicePath, result) -> results.put(devicePaths.get(devicePath), profile.toReference(result)));
+			return results;
+		}
+	}
+
+	/**
+	 * Busca una imagen en un frame ya capturado. Las coordenadas son de la resolución de referencia.
+	 */
+	public DTOImageSearchResult searchTemplate(ImageFrame frame, String templatePath, DTOPoint topLeftCorner, DTOPoint bottomRightCorner, double threshold) {
+		DisplayProfile profile = profileOf(frame);
+		DTOImageSearchResult result = ImageSearchUtil.buscarTemplate(frame, profile.template(templatePath), profile.toDeviceCorner(topLeftCorner), profile.toDeviceCorner(bottomRightCorner), threshold);
+		return profile.toReference(result);
+	}
+
+	/**
+	 * Busca una imagen en todo un frame ya capturado.
+	 */
+	public DTOImageSearchResult searchTemplate(ImageFrame frame, String templatePath, double threshold) {
+		DisplayProfile profile = profileOf(frame);
+		return profile.toReference(ImageSearchUtil.buscarTemplate(frame, profile.template(templatePath), new DTOPoint(0,0), new DTOPoint(profile.getWidth(), profile.getHeight()), threshold));
+	}
+
+	public List<DTOImageSearchResult> searchTemplates(ImageFrame frame, String templatePath, double threshold, int maxResults) {
+		return searchTemplates(frame, templatePath, null, null, threshold, maxResults);
+	}
+
+	public List<DTOImageSearchResult> searchTemplates(ImageFrame frame, String templatePath, DTOPoint topLeftCorner, DTOPoint bottomRightCorner, double threshold, int maxResults) {
+		DisplayProfile profile = profileOf(frame);
+		DTOPoint deviceTopLeft = topLeftCorner != null ? profile.toDeviceCorner(topLeftCorner) : new DTOPoint(0,0);
+		DTOPoint deviceBottomRight = bottomRightCorner != null ? profile.toDeviceCorner(bottomRightCorner) : new DTOPoint(profile.getWidth(), profile.getHeight());
+		List<DTOImageSearchResult> results = ImageSearchUtil.searchTemplateMultiple(frame, profile.template(templatePath), deviceTopLeft, deviceBottomRight, threshold, maxResults);
+		return results.stream().map(profile::toReference).toList();
 	}
 
 	public List<DTOImageSearchResult> searchTemplates(String emulatorNumber, String templatePath, DTOPoint topLeftCorner, DTOPoint bottomRightCorner , double threshold, int maxResults) {
-		checkEmulatorInitialized();
-		byte[] screenshot = captureScreenshotViaADB(emulatorNumber);
-		return ImageSearchUtil.searchTemplateMultiple(screenshot, templatePath, topLeftCorner, bottomRightCorner, threshold, maxResults);
+		try (ImageFrame frame = captureFrame(emulatorNumber)) {
+			return searchTemplates(frame, templatePath, topLeftCorner, bottomRightCorner, threshold, maxResults);
+		}
 	}
 
 	public List<DTOImageSearchResult> searchTemplates(String emulatorNumber, String templatePath, double threshold, int maxResults) {
-		checkEmulatorInitialized();
-		byte[] screenshot = captureScreenshotViaADB(emulatorNumber);
-		return ImageSearchUtil.searchTemplateMultiple(screenshot, templatePath, new DTOPoint(0,0), new DTOPoint(720,1280), threshold, maxResults);
+		try (ImageFrame frame = captureFrame(emulatorNumber)) {
+			return searchTemplates(frame, templatePath, threshold, maxResults);
+		}
+	}
+
+	/**
+	 * Perfil de pantalla de un frame, a partir de su tamaño.
+	 */
+	private DisplayProfile profileOf(ImageFrame frame) {
+		return frame.isEmpty() ? DisplayProfile.REFERENCE : DisplayProfile.of(frame.getWidth(), frame.getHeight());
 	}
 
 	public void launchEmulator(String emulatorNumber) {
 		checkEmulatorInitialized();
+		// Un emulador recién iniciado no debe heredar el circuito abierto de la instancia anterior
+		emulator.getCircuitBreaker(emulatorNumber).reset();
 		emulator.launchEmulator(emulatorNumber);
 	}
 
+	/**
+	 * Registra un listener que se notifica cuando el circuito de un emulador se abre o se cierra, ver
+	 * {@link CircuitBreaker}. Se mantiene aunque el emulador se vuelva a inicializar.
+	 */
+	public void addCircuitBreakerListener(CircuitBreakerListener listener) {
+		circuitBreakerListeners.add(listener);
+	}
+
 	/**
 	 * Cierra el emulador.
 	 */
@@ -203,6 +443,16 @@ public class EmulatorManager {
 		emulator.launchApp(emulatorNumber, packageName);
 	}
 
+	/**
+	 * Force stops an app on the emulator, clearing its stuck screen history.
+	 * @param emulatorNumber Emulator identifier
+	 * @param packageName Package name to stop
+	 */
+	public void forceStopApp(String emulatorNumber, String packageName) {
+		checkEmulatorInitialized();
+		emulator.forceStopApp(emulatorNumber, packageName);
+	}
+
 	/**
 	 * Checks if the emulator is fully ready and responsive
 	 * @param emulatorNumber Emulator identifier
@@ -0,0 +1,147 @@
+package cl.camodev.wosbot.emulator;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps track of which app is in the foreground of each emulator, so that checking it is a cached read.
+ * <p>
+ * The probe is one shell command: {@code pidof} tells whether the process exists at all, and only then the focused
+ * window is filtered out of {@code dumpsys} on the device, so just a few lines travel back. Every package that was
+ * queried is probed again in the background every {@link #POLL_INTERVAL_MS}. A query is answered from the last probe
+ * if it is at most {@link #MAX_AGE_MS} old, otherwise it probes the device itself. Packages that are not queried for
+ * {@link #IDLE_TIMEOUT_MS} are no longer probed.
+ * </p>
+ */
+public class ForegroundMonitor {
+
+	private static final Logger logger = LoggerFactory.getLogger(ForegroundMonitor.class);
+
+	private static final long POLL_INTERVAL_MS = 3000;
+	private static final long MAX_AGE_MS = 5000;
+	private static final long IDLE_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(5);
+
+	private static final String NOT_RUNNING = "__not_running__";
+
+	/**
+	 * Result of a probe.
+	 */
+	public record State(boolean running, boolean foreground, long checkedAt) {
+	}
+
+	private record Key(String emulatorNumber, String packageName) {
+	}
+
+	private final Emulator emulator;
+	private final ConcurrentHashMap<Key, State> states = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<Key, Long> lastQueried = new ConcurrentHashMap<>();
+	// Aumenta en cada invalidación, descarta los sondeos que empezaron antes
+	private final ConcurrentHashMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+	private final ScheduledExecutorService scheduler;
+
+	ForegroundMonitor(Emulator emulator) {
+		this.emulator = emulator;
+		scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "foreground-monitor");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.scheduleWithFixedDelay(this::poll, POLL_INTERVAL_MS, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * @return true if the package is in the foreground of the emulator, from a probe at most {@link #MAX_AGE_MS} old.
+	 */
+	public boolean isForeground(String emulatorNumber, String packageName) {
+		Key key = new Key(emulatorNumber, packageName);
+		long now = System.currentTimeMillis();
+		lastQueried.put(key, now);
+		State state = states.get(key);
+		if (state == null || now - state.checkedAt() > MAX_AGE_MS) {
+			long generation = generation(emulatorNumber).get();
+			state = emulator.probeForeground(emulatorNumber, packageName, true);
+			publish(key, state, generation);
+		}
+		return state.foreground();
+	}
+
+	/**
+	 * Forgets the state of the emulator's apps, so that the next query probes the device. Used after starting or
+	 * stopping an app. Probes already running are not published, since they may have seen the app before the change.
+	 */
+	public synchronized void invalidate(String emulatorNumber) {
+		generation(emulatorNumber).incrementAndGet();
+		states.keySet().removeIf(key -> key.emulatorNumber().equals(emulatorNumber));
+	}
+
+	/**
+	 * Stops probing in the background. Used when the emulator is replaced.
+	 */
+	public void close() {
+		scheduler.shutdownNow();
+		states.clear();
+		lastQueried.clear();
+	}
+
+	/**
+	 * @return The shell command that probes a package, see {@link #parse(String, String)}.
+	 */
+	static String probeCommand(String packageName) {
+		// Sin pidof (Android antiguo) se consulta dumpsys directamente
+		return "if ! command -v pidof >/dev/null || pidof " + packageName + " >/dev/null; then"
+				+ " dumpsys window | grep -E 'mCurrentFocus|mFocusedApp'"
+				+ " || dumpsys activity activities | grep -E 'mResumedActivity|topResumedActivity';"
+				+ " else echo " + NOT_RUNNING + "; fi";
+	}
+
+	static State parse(String output, String packageName) {
+		long now = System.currentTimeMillis();
+		if (output.contains(NOT_RUNNING)) {
+			return new State(false, false, now);
+		}
+		return new State(true, output.contains(packageName + "/"), now);
+	}
+
+	private void poll() {
+		long now = System.currentTimeMillis();
+		for (Key key : lastQueried.keySet()) {
+			if (now - lastQueried.getOrDefault(key, now) > IDLE_TIMEOUT_MS) {
+				lastQueried.remove(key);
+				states.remove(key);
+				continue;
+			}
+			try {
+				long generation = generation(key.emulatorNumber()).get();
+				State state = emulator.probeForeground(key.emulatorNumber(), key.packageName(), false);
+				// Con el dispositivo desconocido se mantiene el último estado, la consulta sondea si está vencido
+				if (state != null) {
+					publish(key, state, generation);
+				}
+			} catch (Exception e) {
+				// Se mantiene el último estado, la próxima consulta sondea el dispositivo si está vencido
+				logger.debug("Foreground probe of {} on emulator {} failed: {}", key.packageName(), key.emulatorNumber(), e.getMessage());
+			}
+		}
+	}
+
+	private AtomicLong generation(String emulatorNumber) {
+		return generations.computeIfAbsent(emulatorNumber, number -> new AtomicLong());
+	}
+
+	private synchronized void publish(Key key, State state, long generation) {
+		if (generation(key.emulatorNumber()).get() != generation) {
+			return;
+		}
+		State previous = states.put(key, state);
+		if (previous == null || previous.foreground() != state.foreground()) {
+			logger.info("App {} is {} on emulator {}", key.packageName(),
+					state.foreground() ? "in foreground" : state.running() ? "running in background" : "not running", key.emulatorNumber());
+		}
+	}
+}
@@ -0,0 +1,149 @@
+package cl.camodev.wosbot.emulator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import cl.camodev.wosbot.ot.DTOPoint;
+
+/**
+ * Sequence of taps, swipes, key presses and pauses sent to the emulator in a single shell command.
+ * <p>
+ * Each input command sent on its own waits for a round trip to the device, and the pauses between them are slept on
+ * the host, so bursts of taps take longer and are less regular than they should. The script is compiled to one device
+ * side shell command, with the pauses run by the device's {@code sleep}. Random points are chosen on the host while
+ * building the script. Points are in reference coordinates and are scaled with the {@link DisplayProfile} of the
+ * emulator.
+ * </p>
+ *
+ * <pre>
+ * emuManager.gesture(EMULATOR_NUMBER).tap(skip).sleep(100).tap(skip).back().run();
+ * </pre>
+ */
+public class GestureScript {
+
+	// Margen sobre la duración del script antes de considerar que la shell no responde
+	private static final long BASE_TIMEOUT_MS = 5000;
+	private static final long TIMEOUT_PER_GESTURE_MS = 1000;
+
+	private final Emulator emulator;
+	private final String emulatorNumber;
+	private final DisplayProfile profile;
+	private final TouchInput touch;
+	private final Random random = new Random();
+
+	private final List<String> commands = new ArrayList<>();
+	private int gestures;
+	private long sleepMs;
+
+	GestureScript(Emulator emulator, String emulatorNumber, DisplayProfile profile, TouchInput touch) {
+		this.emulator = emulator;
+		this.emulatorNumber = emulatorNumber;
+		this.profile = profile;
+		this.touch = touch;
+	}
+
+	/**
+	 * Adds a tap at a point.
+	 */
+	public GestureScript tap(int x, int y) {
+		return tap(new DTOPoint(x, y));
+	}
+
+	/**
+	 * Adds a tap at a point.
+	 */
+	public GestureScript tap(DTOPoint point) {
+		DTOPoint devicePoint = profile.toDevice(point);
+		return gesture(touch.tap(devicePoint.getX(), devicePoint.getY()));
+	}
+
+	/**
+	 * Adds a tap at a random point within the area defined by two corners.
+	 */
+	public GestureScript tap(DTOPoint point1, DTOPoint point2) {
+		DTOPoint corner1 = profile.toDevice(point1);
+		DTOPoint corner2 = profile.toDevice(point2);
+		int minX = Math.min(corner1.getX(), corner2.getX());
+		int maxX = Math.max(corner1.getX(), corner2.getX());
+		int minY = Math.min(corner1.getY(), corner2.getY());
+		int maxY = Math.max(corner1.getY(), corner2.getY());
+		int x = minX + random.nextInt(maxX - minX + 1);
+		int y = minY + random.nextInt(maxY - minY + 1);
+		return gesture(touch.tap(x, y));
+	}
+
+	/**
+	 * Adds taps at random points within an area, with a pause between them.
+	 */
+	public GestureScript tap(DTOPoint point1, DTOPoint point2, int tapCount, int delayMs) {
+		for (int i = 1; i <= tapCount; i++) {
+			tap(point1, point2);
+			if (i < tapCount) {
+				sleep(delayMs);
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Adds a swipe from the start point to the end point.
+	 */
+	public GestureScript swipe(DTOPoint start, DTOPoint end) {
+		DTOPoint deviceStart = profile.toDevice(start);
+		DTOPoint deviceEnd = profile.toDevice(end);
+		return gesture(touch.swipe(deviceStart.getX(), deviceStart.getY(), deviceEnd.getX(), deviceEnd.getY()));
+	}
+
+	/**
+	 * Adds a press of the back button.
+	 */
+	public GestureScript back() {
+		return gesture("input keyevent KEYCODE_BACK");
+	}
+
+	/**
+	 * Adds a pause run by the device.
+	 */
+	public GestureScript sleep(long ms) {
+		if (ms > 0) {
+			commands.add(String.format(Locale.ROOT, "sleep %.3f", ms / 1000.0));
+			sleepMs += ms;
+		}
+		return this;
+	}
+
+	/**
+	 * Sends the script to the emulator and waits until the device has run it.
+	 *
+	 * @return true if successful
+	 */
+	public boolean run() {
+		if (gestures == 0) {
+			return true;
+		}
+		return emulator.runGestureScript(emulatorNumber, this);
+	}
+
+	/**
+	 * @return The script as a single shell command.
+	 */
+	public String compile() {
+		return String.join("; ", commands);
+	}
+
+	public int getGestures() {
+		return gestures;
+	}
+
+	long getTimeoutMs() {
+		return BASE_TIMEOUT_MS + sleepMs + gestures * TIMEOUT_PER_GESTURE_MS;
+	}
+
+	private GestureScript gesture(String command) {
+		commands.add(command);
+		gestures++;
+		return this;
+	}
+}
@@ -0,0 +1,26 @@
+package cl.camodev.wosbot.emulator;
+
+/**
+ * How taps and swipes are injected in the emulator, selected with
+ * {@link cl.camodev.wosbot.console.enumerable.EnumConfigurationKey#INPUT_BACKEND_STRING}.
+ */
+public enum InputBackend {
+	/** The {@code input} command of Android. */
+	INPUT,
+	/** Raw events written to the touchscreen with {@code sendevent}, falls back to {@link #INPUT} if there is none. */
+	SENDEVENT;
+
+	/**
+	 * @return The backend with the given name, {@link #INPUT} if it is empty or unknown.
+	 */
+	public static InputBackend fromConfig(String value) {
+		if (value != null) {
+			for (InputBackend backend : values()) {
+				if (backend.name().equalsIgnoreCase(value.trim())) {
+					return backend;
+				}
+			}
+		}
+		return INPUT;
+	}
+}
@@ -0,0 +1,239 @@
+package cl.camodev.wosbot.emulator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Long-lived interactive {@code adb shell} of one device used to send input commands.
+ * <p>
+ * Running every tap through {@code IDevice.executeShellCommand} opens a new ADB shell service connection per command,
+ * which costs more than the command itself. This channel keeps one shell open and writes the commands to its standard
+ * input. Each command is followed by an {@code echo} of a unique marker, and the command is complete when the marker
+ * is read back, so callers still wait for the input to be injected. If the shell dies or a command times out, the shell
+ * is restarted. The command is sent once more only when it could not be written to the shell; a command that was
+ * written may already have been injected, so it is not repeated.
+ * </p>
+ */
+public class InputChannel implements AutoCloseable {
+
+	private static final Logger logger = LoggerFactory.getLogger(InputChannel.class);
+
+	private static final String MARKER = "__wos_input_done_";
+
+	// Tiempo máximo de un comando antes de reiniciar la shell
+	private static final long COMMAND_TIMEOUT_MS = 5000;
+
+	// Cada cuánto se comprueba que la shell siga viva mientras se espera un marcador
+	private static final long ALIVE_CHECK_MS = 250;
+
+	// Latencias recientes usadas para los percentiles
+	private static final int LATENCY_WINDOW = 256;
+
+	// Línea que el thread lector agrega al terminar la salida, se compara por identidad
+	private static final String END_OF_OUTPUT = new String("<eof>");
+
+	private final String adbPath;
+	private final String serial;
+
+	private Process process;
+	private Writer stdin;
+	private BlockingQueue<String> output;
+	private long sequence;
+
+	private long commands;
+	private long reconnects;
+	private long totalNanos;
+	private long maxNanos;
+	private final long[] recentNanos = new long[LATENCY_WINDOW];
+
+	public InputChannel(String adbPath, String serial) {
+		this.adbPath = adbPath;
+		this.serial = serial;
+	}
+
+	/**
+	 * Runs a shell command and waits for it to finish, restarting the shell once if the command could not be sent.
+	 *
+	 * @param command Shell command, e.g. {@code input tap 100 200}.
+	 * @throws IOException if the command could not be run after restarting the shell.
+	 */
+	public void execute(String command) throws IOException {
+		execute(command, COMMAND_TIMEOUT_MS);
+	}
+
+	/**
+	 * Runs a shell command that may take longer than a single input, such as a gesture script, and waits for it to
+	 * finish.
+	 *
+	 * @param command   Shell command.
+	 * @param timeoutMs Time to wait for the command before restarting the shell.
+	 * @throws IOException if the command could not be run after restarting the shell.
+	 */
+	public synchronized void execute(String command, long timeoutMs) throws IOException {
+		long start = System.nanoTime();
+		try {
+			send(command, timeoutMs);
+		} catch (NotSentException e) {
+			// La shell murió antes de recibir el comando, reenviarlo no lo repite
+			logger.warn("Input shell of {} failed ({}), reconnecting", serial, e.getMessage());
+			reconnects++;
+			stop();
+			send(command, timeoutMs);
+		} catch (IOException e) {
+			// El comando pudo haberse ejecutado, solo se reinicia la shell para el siguiente
+			logger.warn("Input shell of {} failed ({}), restarting it for the next command", serial, e.getMessage());
+			reconnects++;
+			stop();
+			throw e;
+		}
+		record(System.nanoTime() - start);
+	}
+
+	private void send(String command, long timeoutMs) throws IOException {
+		if (process == null || !process.isAlive()) {
+			start();
+		}
+
+		String marker = MARKER + (++sequence);
+		try {
+			stdin.write(command + "; echo " + marker + ":$?\n");
+			stdin.flush();
+		} catch (IOException e) {
+			throw new NotSentException("Could not send " + command, e);
+		}
+
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+		boolean exited = false;
+		while (true) {
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0) {
+				throw new IOException("Timeout waiting for " + command);
+			}
+			String line;
+			try {
+				line = output.poll(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(ALIVE_CHECK_MS)), TimeUnit.NANOSECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while waiting for " + command, e);
+			}
+			if (line == END_OF_OUTPUT || (line == null && exited)) {
+				throw new IOException("Input shell closed while running " + command);
+			}
+			if (line == null) {
+				// Se espera una vuelta más por si el lector aún tiene el marcador
+				exited = !process.isAlive();
+				continue;
+			}
+			if (line.startsWith(marker + ":")) {
+				String status = line.substring(marker.length() + 1).trim();
+				if (!"0".equals(status)) {
+					logger.debug("Command '{}' on {} exited with {}", command, serial, status);
+				}
+				return;
+			}
+			// Salida del comando o marcadores de comandos anteriores que expiraron
+			logger.trace("{}: {}", serial, line);
+		}
+	}
+
+	private void start() throws IOException {
+		ProcessBuilder builder = new ProcessBuilder(adbPath, "-s", serial, "shell");
+		builder.redirectErrorStream(true);
+		process = builder.start();
+		stdin = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8);
+
+		// La salida se lee en un thread propio para poder esperar cada marcador con timeout
+		BlockingQueue<String> queue = new LinkedBlockingQueue<>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+		Thread thread = new Thread(() -> {
+			try (reader) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					queue.add(line);
+				}
+			} catch (IOException e) {
+				// La shell se cerró
+			} finally {
+				// Despierta al comando que espera su marcador
+				queue.add(END_OF_OUTPUT);
+			}
+		}, "input-shell-" + serial);
+		thread.setDaemon(true);
+		thread.start();
+		output = queue;
+		logger.info("Input shell opened for {}", serial);
+	}
+
+	private void stop() {
+		if (process != null) {
+			process.destroy();
+			process = null;
+		}
+		stdin = null;
+		output = null;
+	}
+
+	private void record(long nanos) {
+		recentNanos[(int) (commands % LATENCY_WINDOW)] = nanos;
+		commands++;
+		totalNanos += nanos;
+		maxNanos = Math.max(maxNanos, nanos);
+	}
+
+	/**
+	 * @return Commands sent, reconnections and latency per command.
+	 */
+	public synchronized String getStats() {
+		int size = (int) Math.min(commands, LATENCY_WINDOW);
+		long[] sorted = Arrays.copyOf(recentNanos, size);
+		Arrays.sort(sorted);
+		return String.format("Input shell %s: %d commands, %d reconnects, avg %.2f ms, p50 %.2f ms, p95 %.2f ms, max %.2f ms",
+				serial, commands, reconnects, commands == 0 ? 0.0 : totalNanos / 1_000_000.0 / commands,
+				percentile(sorted, 0.5), percentile(sorted, 0.95), maxNanos / 1_000_000.0);
+	}
+
+	/**
+	 * The command could not be written to the shell, so it was not run.
+	 */
+	private static class NotSentException extends IOException {
+
+		NotSentException(String message, Throwable cause) {
+			super(message, cause);
+		}
+	}
+
+	private static double percentile(long[] sorted, double percentile) {
+		if (sorted.length == 0) {
+			return 0.0;
+		}
+		int index = (int) Math.ceil(percentile * sorted.length) - 1;
+		return sorted[Math.max(0, index)] / 1_000_000.0;
+	}
+
+	/**
+	 * Closes the shell. The next command opens it again.
+	 */
+	@Override
+	public synchronized void close() {
+		if (process != null) {
+			try {
+				stdin.write("exit\n");
+				stdin.flush();
+			} catch (IOException e) {
+				// Se destruye igualmente
+			}
+		}
+		stop();
+	}
+}
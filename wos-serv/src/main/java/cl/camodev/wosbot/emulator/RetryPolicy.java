@@ -0,0 +1,59 @@
+package cl.camodev.wosbot.emulator;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retry budget of a kind of device action: how many attempts, the exponential backoff between them and when ADB is
+ * restarted.
+ */
+public final class RetryPolicy {
+
+	private final int maxAttempts;
+	private final long baseDelayMs;
+	private final long maxDelayMs;
+	private final int restartAdbAttempt;
+
+	/**
+	 * @param maxAttempts       Attempts before the action fails.
+	 * @param baseDelayMs       Delay after the first failed attempt, doubled after each following one.
+	 * @param maxDelayMs        Maximum delay between attempts.
+	 * @param restartAdbAttempt Failed attempt after which ADB is restarted once, 0 to never restart it.
+	 */
+	public RetryPolicy(int maxAttempts, long baseDelayMs, long maxDelayMs, int restartAdbAttempt) {
+		if (maxAttempts < 1 || baseDelayMs < 0 || maxDelayMs < baseDelayMs) {
+			throw new IllegalArgumentException("Invalid retry policy");
+		}
+		this.maxAttempts = maxAttempts;
+		this.baseDelayMs = baseDelayMs;
+		this.maxDelayMs = maxDelayMs;
+		this.restartAdbAttempt = restartAdbAttempt;
+	}
+
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+
+	/**
+	 * @return Whether ADB is restarted after the given failed attempt.
+	 */
+	public boolean restartsAdbAfter(int attempt) {
+		return restartAdbAttempt > 0 && attempt == restartAdbAttempt;
+	}
+
+	/**
+	 * Delay before the next attempt. Half of it is random so that several emulators failing at once do not retry in
+	 * lockstep.
+	 *
+	 * @param attempt Failed attempt, starting at 1.
+	 */
+	public long delayMs(int attempt) {
+		long delay = Math.min(maxDelayMs, baseDelayMs << Math.min(attempt - 1, 20));
+		long half = delay / 2;
+		return half + ThreadLocalRandom.current().nextLong(half + 1);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d attempts, %d-%d ms backoff", maxAttempts, baseDelayMs, maxDelayMs);
+	}
+}
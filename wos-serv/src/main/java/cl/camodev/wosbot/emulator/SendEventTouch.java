@@ -0,0 +1,175 @@
+package cl.camodev.wosbot.emulator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Touches injected by writing raw input events to the touchscreen of the device with {@code sendevent}.
+ * <p>
+ * {@code input tap} runs through {@code app_process}, so every tap starts a Java process on the device and takes
+ * hundreds of milliseconds. {@code sendevent} is a native tool that writes one event, so a tap is a few milliseconds
+ * even though it takes several events. The touchscreen and its axis ranges are discovered with {@code getevent -pl};
+ * multi-touch devices get protocol B events and single-touch devices {@code ABS_X}/{@code ABS_Y}.
+ * </p>
+ */
+final class SendEventTouch implements TouchInput {
+
+	/** Command whose output is parsed by {@link #discover(String, int, int)}. */
+	static final String DISCOVERY_COMMAND = "getevent -pl";
+
+	private static final int EV_SYN = 0;
+	private static final int EV_KEY = 1;
+	private static final int EV_ABS = 3;
+	private static final int BTN_TOUCH = 330;
+	private static final int ABS_X = 0x00;
+	private static final int ABS_Y = 0x01;
+	private static final int ABS_MT_SLOT = 0x2f;
+	private static final int ABS_MT_POSITION_X = 0x35;
+	private static final int ABS_MT_POSITION_Y = 0x36;
+	private static final int ABS_MT_TRACKING_ID = 0x39;
+
+	// Mismos valores por defecto que "input swipe"
+	private static final int SWIPE_DURATION_MS = 300;
+	private static final int SWIPE_STEPS = 15;
+
+	private static final Pattern DEVICE_PATTERN = Pattern.compile("add device \\d+: (\\S+)");
+	private static final Pattern AXIS_PATTERN = Pattern.compile("(ABS_MT_POSITION_X|ABS_MT_POSITION_Y|ABS_X|ABS_Y)\\s*:.*?min (-?\\d+), max (-?\\d+)");
+
+	private final String device;
+	private final boolean multiTouch;
+	private final int[] rangeX;
+	private final int[] rangeY;
+	private final int width;
+	private final int height;
+	private int trackingId;
+
+	private SendEventTouch(String device, boolean multiTouch, int[] rangeX, int[] rangeY, int width, int height) {
+		this.device = device;
+		this.multiTouch = multiTouch;
+		this.rangeX = rangeX;
+		this.rangeY = rangeY;
+		this.width = width;
+		this.height = height;
+	}
+
+	/**
+	 * Finds the touchscreen in the output of {@link #DISCOVERY_COMMAND}.
+	 *
+	 * @param getevent Output of {@code getevent -pl}.
+	 * @param width    Display width, to scale points to the axis range.
+	 * @param height   Display height.
+	 * @return The touch input of the touchscreen, or null if the device has none.
+	 */
+	static SendEventTouch discover(String getevent, int width, int height) {
+		SendEventTouch found = null;
+		boolean foundDirect = false;
+		for (String block : getevent.split("(?=add device )")) {
+			Matcher deviceMatcher = DEVICE_PATTERN.matcher(block);
+			if (!deviceMatcher.find()) {
+				continue;
+			}
+			int[] mtX = null, mtY = null, x = null, y = null;
+			Matcher axis = AXIS_PATTERN.matcher(block);
+			while (axis.find()) {
+				int[] range = { Integer.parseInt(axis.group(2)), Integer.parseInt(axis.group(3)) };
+				switch (axis.group(1)) {
+				case "ABS_MT_POSITION_X" -> mtX = range;
+				case "ABS_MT_POSITION_Y" -> mtY = range;
+				case "ABS_X" -> x = range;
+				default -> y = range;
+				}
+			}
+			SendEventTouch touch = null;
+			if (mtX != null && mtY != null) {
+				touch = new SendEventTouch(deviceMatcher.group(1), true, mtX, mtY, width, height);
+			} else if (x != null && y != null) {
+				touch = new SendEventTouch(deviceMatcher.group(1), false, x, y, width, height);
+			}
+			// Se prefiere la pantalla táctil (INPUT_PROP_DIRECT) sobre tabletas o mouse absolutos
+			boolean direct = block.contains("INPUT_PROP_DIRECT");
+			if (touch != null && (found == null || direct && !foundDirect || touch.multiTouch && !found.multiTouch && direct == foundDirect)) {
+				found = touch;
+				foundDirect = direct;
+			}
+		}
+		return found;
+	}
+
+	@Override
+	public String tap(int x, int y) {
+		List<String> events = new ArrayList<>();
+		down(events, x, y);
+		up(events);
+		return String.join("; ", events);
+	}
+
+	@Override
+	public String swipe(int x1, int y1, int x2, int y2) {
+		List<String> events = new ArrayList<>();
+		down(events, x1, y1);
+		String pause = String.format(Locale.ROOT, "sleep %.3f", SWIPE_DURATION_MS / 1000.0 / SWIPE_STEPS);
+		for (int step = 1; step <= SWIPE_STEPS; step++) {
+			events.add(pause);
+			move(events, x1 + (x2 - x1) * step / SWIPE_STEPS, y1 + (y2 - y1) * step / SWIPE_STEPS);
+			sync(events);
+		}
+		up(events);
+		return String.join("; ", events);
+	}
+
+	String getDevice() {
+		return device;
+	}
+
+	private void down(List<String> events, int x, int y) {
+		if (multiTouch) {
+			event(events, EV_ABS, ABS_MT_SLOT, 0);
+			event(events, EV_ABS, ABS_MT_TRACKING_ID, nextTrackingId());
+		}
+		event(events, EV_KEY, BTN_TOUCH, 1);
+		move(events, x, y);
+		sync(events);
+	}
+
+	private void move(List<String> events, int x, int y) {
+		event(events, EV_ABS, multiTouch ? ABS_MT_POSITION_X : ABS_X, scale(x, width, rangeX));
+		event(events, EV_ABS, multiTouch ? ABS_MT_POSITION_Y : ABS_Y, scale(y, height, rangeY));
+	}
+
+	private void up(List<String> events) {
+		if (multiTouch) {
+			event(events, EV_ABS, ABS_MT_TRACKING_ID, -1);
+		}
+		event(events, EV_KEY, BTN_TOUCH, 0);
+		sync(events);
+	}
+
+	private void sync(List<String> events) {
+		event(events, EV_SYN, 0, 0);
+	}
+
+	private void event(List<String> events, int type, int code, int value) {
+		events.add("sendevent " + device + " " + type + " " + code + " " + value);
+	}
+
+	private synchronized int nextTrackingId() {
+		trackingId = (trackingId + 1) & 0xFFFF;
+		return trackingId;
+	}
+
+	/**
+	 * Converts a display coordinate to the axis range, the inverse of what Android does with the raw values.
+	 */
+	private static int scale(int value, int size, int[] range) {
+		long raw = range[0] + (long) value * (range[1] - range[0] + 1) / size;
+		return (int) Math.max(range[0], Math.min(range[1], raw));
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s (%s, x %d..%d, y %d..%d)", device, multiTouch ? "multi-touch" : "single-touch", rangeX[0], rangeX[1], rangeY[0], rangeY[1]);
+	}
+}
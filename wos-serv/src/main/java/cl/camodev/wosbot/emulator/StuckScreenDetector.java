@@ -0,0 +1,98 @@
+package cl.camodev.wosbot.emulator;
+
+import cl.camodev.utiles.ImageHashUtil;
+
+/**
+ * Tracks the perceptual hashes of the frames captured from one emulator and
+ * flags the screen as stuck when it stops reacting to input.
+ * <p>
+ * A screen is considered stuck when {@code frameThreshold} consecutive frames
+ * are identical (within {@code hashTolerance} bits) while at least
+ * {@code actionThreshold} input actions (taps, swipes, back presses) were sent
+ * to the device. Once flagged, the state remains stuck until {@link #reset()}
+ * is called, so the condition can not be swallowed by a task that catches
+ * exceptions and keeps going.
+ */
+public class StuckScreenDetector {
+
+	public static final int DEFAULT_FRAME_THRESHOLD = 8;
+	public static final int DEFAULT_ACTION_THRESHOLD = 6;
+	public static final int DEFAULT_HASH_TOLERANCE = 4;
+
+	private final int frameThreshold;
+	private final int actionThreshold;
+	private final int hashTolerance;
+
+	private long[] referenceHash;
+	private int identicalFrames;
+	private int actionsSinceChange;
+	private boolean stuck;
+
+	public StuckScreenDetector() {
+		this(DEFAULT_FRAME_THRESHOLD, DEFAULT_ACTION_THRESHOLD, DEFAULT_HASH_TOLERANCE);
+	}
+
+	public StuckScreenDetector(int frameThreshold, int actionThreshold, int hashTolerance) {
+		this.frameThreshold = frameThreshold;
+		this.actionThreshold = actionThreshold;
+		this.hashTolerance = hashTolerance;
+	}
+
+	/**
+	 * Registers a newly captured frame.
+	 * @param hash Perceptual hash of the frame
+	 */
+	public synchronized void onFrame(long[] hash) {
+		if (referenceHash != null && ImageHashUtil.hammingDistance(referenceHash, hash) <= hashTolerance) {
+			identicalFrames++;
+		} else {
+			referenceHash = hash;
+			identicalFrames = 1;
+			actionsSinceChange = 0;
+		}
+
+		if (identicalFrames >= frameThreshold && actionsSinceChange >= actionThreshold) {
+			stuck = true;
+		}
+	}
+
+	/**
+	 * Registers an input action sent to the device.
+	 */
+	public synchronized void onInputAction() {
+		if (referenceHash != null) {
+			actionsSinceChange++;
+		}
+	}
+
+	/**
+	 * @return true if the screen did not change across the configured number of frames and input actions
+	 */
+	public synchronized boolean isStuck() {
+		return stuck;
+	}
+
+	/**
+	 * @return Number of consecutive identical frames in the current run
+	 */
+	public synchronized int getIdenticalFrames() {
+		return identicalFrames;
+	}
+
+	/**
+	 * @return Number of input actions sent since the screen last changed
+	 */
+	public synchronized int getActionsSinceChange() {
+		return actionsSinceChange;
+	}
+
+	/**
+	 * Clears the frame history, typically after the game has been restarted.
+	 */
+	public synchronized void reset() {
+		referenceHash = null;
+		identicalFrames = 0;
+		actionsSinceChange = 0;
+		stuck = false;
+	}
+}
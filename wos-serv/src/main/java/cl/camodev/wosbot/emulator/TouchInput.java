@@ -0,0 +1,32 @@
+package cl.camodev.wosbot.emulator;
+
+/**
+ * Builds the shell commands that inject touches on a device, in device coordinates.
+ */
+interface TouchInput {
+
+	/**
+	 * Touches through the {@code input} command, which works on every device but starts a Java process for each touch.
+	 */
+	TouchInput INPUT_COMMAND = new TouchInput() {
+		@Override
+		public String tap(int x, int y) {
+			return "input tap " + x + " " + y;
+		}
+
+		@Override
+		public String swipe(int x1, int y1, int x2, int y2) {
+			return String.format("input swipe %d %d %d %d", x1, y1, x2, y2);
+		}
+	};
+
+	/**
+	 * @return Command that taps a point.
+	 */
+	String tap(int x, int y);
+
+	/**
+	 * @return Command that swipes from the first point to the second.
+	 */
+	String swipe(int x1, int y1, int x2, int y2);
+}
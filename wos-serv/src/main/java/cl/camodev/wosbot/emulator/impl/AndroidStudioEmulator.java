@@ -225,20 +225,12 @@ public class AndroidStudioEmulator extends Emulator {
     @Override
     public boolean isRunning(String emulatorNumber) {
         try {
-            String deviceSerial = getDeviceSerial(emulatorNumber);
-            
             // Directly check if device is available without using withRetries to avoid recursion
             if (bridge == null) {
                 initializeBridge();
             }
             
-            IDevice[] devices = bridge.getDevices();
-            for (IDevice device : devices) {
-                if (deviceSerial.equals(device.getSerialNumber()) && device.isOnline()) {
-                    return true;
-                }
-            }
-            return false;
+            return isDeviceOnline(emulatorNumber);
         } catch (Exception e) {
             logger.debug("Emulator {} is not running or not responsive: {}", emulatorNumber, e.getMessage());
             return false;
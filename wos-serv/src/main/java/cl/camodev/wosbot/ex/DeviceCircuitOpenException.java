@@ -0,0 +1,25 @@
+package cl.camodev.wosbot.ex;
+
+/**
+ * Thrown without contacting the device when its circuit breaker is open, after too many consecutive ADB failures.
+ */
+public class DeviceCircuitOpenException extends ADBConnectionException {
+    /**
+     *
+     */
+    private static final long serialVersionUID = 4817603298615072943L;
+
+    private final long retryAfterMs;
+
+    public DeviceCircuitOpenException(String message, long retryAfterMs) {
+        super(message);
+        this.retryAfterMs = retryAfterMs;
+    }
+
+    /**
+     * @return Milliseconds until the device will be tried again.
+     */
+    public long getRetryAfterMs() {
+        return retryAfterMs;
+    }
+}
@@ -0,0 +1,12 @@
+package cl.camodev.wosbot.ex;
+
+public class ScreenStuckException extends RuntimeException {
+	/**
+	 *
+	 */
+	private static final long serialVersionUID = -3178455120921694325L;
+
+	public ScreenStuckException(String message) {
+		super(message);
+	}
+}
@@ -1,5 +1,7 @@
 package cl.camodev.wosbot.serv.task;
 
+import cl.camodev.utiles.ImageFrame;
+import cl.camodev.utiles.ImageSearchUtil;
 import cl.camodev.wosbot.console.enumerable.EnumTemplates;
 import cl.camodev.wosbot.console.enumerable.EnumTpMessageSeverity;
 import cl.camodev.wosbot.console.enumerable.TpDailyTaskEnum;
@@ -19,7 +21,11 @@ import org.slf4j.LoggerFactory;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.Delayed;
 import java.util.concurrent.TimeUnit;
 
@@ -38,6 +44,7 @@ public abstract class DelayedTask implements Runnable, Delayed, Comparable<Delay
     protected EmulatorManager emuManager = EmulatorManager.getInstance();
     protected ServScheduler servScheduler = ServScheduler.getServices();
     protected ServLogs servLogs = ServLogs.getServices();
+    protected PopupResolver popupResolver = new PopupResolver(emuManager);
 
     public DelayedTask(DTOProfiles profile, TpDailyTaskEnum tpTask) {
         this.profile = profile;
@@ -60,8 +67,50 @@ public abstract class DelayedTask implements Runnable, Delayed, Comparable<Delay
         return EnumStartLocation.ANY;
     }
 
+    /**
+     * Override this method to declare the templates the task needs, so they are loaded before it runs.
+     * Templates used in previous executions are added automatically, see {@link #getTemplateManifest()}.
+     *
+     * @return Templates required by the task
+     */
+    protected Collection<EnumTemplates> getRequiredTemplates() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Template dependencies of the task: the declared ones plus the ones learned from previous executions.
+     *
+     * @return Template resource paths
+     */
+    public Set<String> getTemplateManifest() {
+        Set<String> manifest = new LinkedHashSet<>();
+        getRequiredTemplates().forEach(template -> manifest.add(template.getTemplate()));
+        manifest.addAll(TemplateUsageRegistry.getUsedTemplates(getClass()));
+        return manifest;
+    }
+
+    /**
+     * Loads the templates of the task in background.
+     */
+    public void prefetchTemplates() {
+        Set<String> manifest = getTemplateManifest();
+        if (!manifest.isEmpty()) {
+            logger.debug("Prefetching {} templates for task {}", manifest.size(), taskName);
+            ImageSearchUtil.preloadTemplates(manifest);
+        }
+    }
+
     @Override
     public void run() {
+        TemplateUsageRegistry.beginTask(getClass());
+        try {
+            runTask();
+        } finally {
+            TemplateUsageRegistry.endTask();
+        }
+    }
+
+    private void runTask() {
 
         if (this instanceof InitializeTask) {
             execute();
@@ -75,15 +124,15 @@ public abstract class DelayedTask implements Runnable, Delayed, Comparable<Delay
         EnumStartLocation requiredLocation = getRequiredStartLocation();
 
         for (int attempt = 1; attempt <= 10; attempt++) {
-            DTOImageSearchResult home = emuManager.searchTemplate(EMULATOR_NUMBER, EnumTemplates.GAME_HOME_FURNACE.getTemplate(), 90);
-            DTOImageSearchResult world = emuManager.searchTemplate(EMULATOR_NUMBER, EnumTemplates.GAME_HOME_WORLD.getTemplate(), 90);
-            DTOImageSearchResult reconnect = emuManager.searchTemplate(EMULATOR_NUMBER, EnumTemplates.GAME_HOME_RECONNECT.getTemplate(), 90);
+            PopupResolver.Resolution screen = popupResolver.resolve(EMULATOR_NUMBER);
+            DTOImageSearchResult home = screen.getHome();
+            DTOImageSearchResult world = screen.getWorld();
 
-            if (reconnect.isFound()) {
+            if (screen.getState() == PopupResolver.State.BLOCKED) {
                 throw new ProfileInReconnectStateException("Profile " + profile.getName() + " is in reconnect state, cannot execute task: " + taskName);
             }
 
-            if (home.isFound() || world.isFound()) {
+            if (screen.isHomeOrWorld()) {
                 // Found either home or world, now check if we need to navigate to the correct location
                 if (requiredLocation == EnumStartLocation.HOME && !home.isFound()) {
                     // We need HOME but we're in WORLD, navigate to HOME
@@ -113,6 +162,9 @@ public abstract class DelayedTask implements Runnable, Delayed, Comparable<Delay
 
                 execute();
                 return;
+            } else if (screen.getState() == PopupResolver.State.DISMISSED) {
+                logDebug("Dismissed popup " + screen.getPopup());
+                sleepTask(300);
             } else {
                 EmulatorManager.getInstance().tapBackButton(EMULATOR_NUMBER);
                 sleepTask(100);
@@ -164,6 +216,29 @@ public abstract class DelayedTask implements Runnable, Delayed, Comparable<Delay
         }
     }
 
+    /**
+     * Home and world buttons found on one capture of the screen, see {@link #searchHomeScreen()}.
+     */
+    protected record HomeScreen(DTOImageSearchResult home, DTOImageSearchResult world) {
+
+        /**
+         * @return true if the game is on the home or the world screen.
+         */
+        public boolean isHomeOrWorld() {
+            return home.isFound() || world.isFound();
+        }
+    }
+
+    /**
+     * Searches the home (furnace) and world buttons on a single capture of the screen.
+     */
+    protected HomeScreen searchHomeScreen() {
+        try (ImageFrame frame = emuManager.captureFrame(EMULATOR_NUMBER)) {
+            return new HomeScreen(emuManager.searchTemplate(frame, EnumTemplates.GAME_HOME_FURNACE.getTemplate(), 90),
+                    emuManager.searchTemplate(frame, EnumTemplates.GAME_HOME_WORLD.getTemplate(), 90));
+        }
+    }
+
     public String getTaskName() {
         return taskName;
     }
@@ -0,0 +1,61 @@
+package cl.camodev.wosbot.serv.task;
+
+import cl.camodev.wosbot.console.enumerable.EnumTemplates;
+import cl.camodev.wosbot.ot.DTOPoint;
+
+/**
+ * Catalog of known overlays that can cover the home/world screen, together with the way to dismiss each of them.
+ * <p>
+ * Entries are checked in declaration order by {@link PopupResolver}, so more specific popups should be declared first.
+ * Adding support for a new popup only requires its template and a new entry here.
+ */
+public enum EnumPopup {
+
+    // @formatter:off
+    RECONNECT(EnumTemplates.GAME_HOME_RECONNECT, 90, Action.ABORT, null),
+    NEW_SURVIVORS_WELCOME(EnumTemplates.GAME_HOME_NEW_SURVIVORS_WELCOME_IN, 90, Action.TAP_MATCH, null),
+    ;
+    // @formatter:on
+
+    /**
+     * How a detected popup is dismissed.
+     */
+    public enum Action {
+        /** Tap the center of the detected template. */
+        TAP_MATCH,
+        /** Tap a fixed point of the screen. */
+        TAP_POINT,
+        /** Press the back button. */
+        BACK,
+        /** The popup can not be dismissed, the caller must handle it. */
+        ABORT
+    }
+
+    private final EnumTemplates template;
+    private final double threshold;
+    private final Action action;
+    private final DTOPoint tapPoint;
+
+    EnumPopup(EnumTemplates template, double threshold, Action action, DTOPoint tapPoint) {
+        this.template = template;
+        this.threshold = threshold;
+        this.action = action;
+        this.tapPoint = tapPoint;
+    }
+
+    public EnumTemplates getTemplate() {
+        return template;
+    }
+
+    public double getThreshold() {
+        return threshold;
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    public DTOPoint getTapPoint() {
+        return tapPoint;
+    }
+}
@@ -0,0 +1,156 @@
+package cl.camodev.wosbot.serv.task;
+
+import cl.camodev.wosbot.console.enumerable.EnumTemplates;
+import cl.camodev.wosbot.emulator.EmulatorManager;
+import cl.camodev.wosbot.ot.DTOImageSearchResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Identifies the current screen of the game with a single capture and dismisses known popups directly.
+ * <p>
+ * The home and world templates and every entry of {@link EnumPopup} are matched in one pass against the same frame.
+ * When neither home nor world is visible, the first detected popup is dismissed using its catalog action. Callers only
+ * need to fall back to the back button when nothing known was found.
+ */
+public class PopupResolver {
+
+    private static final Logger logger = LoggerFactory.getLogger(PopupResolver.class);
+
+    private static final double HOME_THRESHOLD = 90;
+
+    /**
+     * Screen state detected by {@link #resolve(String)}.
+     */
+    public enum State {
+        /** The home (city) screen is visible. */
+        HOME,
+        /** The world screen is visible. */
+        WORLD,
+        /** A known popup was found and dismissed. */
+        DISMISSED,
+        /** A known popup that can not be dismissed was found. */
+        BLOCKED,
+        /** Nothing known was found. */
+        UNKNOWN
+    }
+
+    /**
+     * Outcome of a resolution pass.
+     */
+    public static class Resolution {
+        private final State state;
+        private final DTOImageSearchResult home;
+        private final DTOImageSearchResult world;
+        private final EnumPopup popup;
+
+        private Resolution(State state, DTOImageSearchResult home, DTOImageSearchResult world, EnumPopup popup) {
+            this.state = state;
+            this.home = home;
+            this.world = world;
+            this.popup = popup;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public DTOImageSearchResult getHome() {
+            return home;
+        }
+
+        public DTOImageSearchResult getWorld() {
+            return world;
+        }
+
+        /**
+         * @return The popup detected, or null if the state is not {@link State#DISMISSED} or {@link State#BLOCKED}
+         */
+        public EnumPopup getPopup() {
+            return popup;
+        }
+
+        public boolean isHomeOrWorld() {
+            return state == State.HOME || state == State.WORLD;
+        }
+    }
+
+    private static final Set<String> TEMPLATES = new LinkedHashSet<>();
+    private static final double BATCH_THRESHOLD;
+
+    static {
+        TEMPLATES.add(EnumTemplates.GAME_HOME_FURNACE.getTemplate());
+        TEMPLATES.add(EnumTemplates.GAME_HOME_WORLD.getTemplate());
+        double threshold = HOME_THRESHOLD;
+        for (EnumPopup popup : EnumPopup.values()) {
+            TEMPLATES.add(popup.getTemplate().getTemplate());
+            threshold = Math.min(threshold, popup.getThreshold());
+        }
+        BATCH_THRESHOLD = threshold;
+    }
+
+    private final EmulatorManager emuManager;
+
+    public PopupResolver(EmulatorManager emuManager) {
+        this.emuManager = emuManager;
+    }
+
+    /**
+     * Captures the screen once, detects home/world or a known popup, and dismisses the popup if possible.
+     *
+     * @param emulatorNumber Emulator identifier
+     * @return The detected state
+     */
+    public Resolution resolve(String emulatorNumber) {
+        Map<String, DTOImageSearchResult> results = emuManager.searchTemplatesBatch(emulatorNumber, TEMPLATES, BATCH_THRESHOLD);
+
+        DTOImageSearchResult home = matched(results.get(EnumTemplates.GAME_HOME_FURNACE.getTemplate()), HOME_THRESHOLD);
+        DTOImageSearchResult world = matched(results.get(EnumTemplates.GAME_HOME_WORLD.getTemplate()), HOME_THRESHOLD);
+
+        // Popups that block the game take precedence over the screen underneath
+        for (EnumPopup popup : EnumPopup.values()) {
+            if (popup.getAction() == EnumPopup.Action.ABORT && matched(results.get(popup.getTemplate().getTemplate()), popup.getThreshold()).isFound()) {
+                logger.info("Blocking popup {} detected on emulator {}", popup, emulatorNumber);
+                return new Resolution(State.BLOCKED, home, world, popup);
+            }
+        }
+
+        if (home.isFound()) {
+            return new Resolution(State.HOME, home, world, null);
+        }
+        if (world.isFound()) {
+            return new Resolution(State.WORLD, home, world, null);
+        }
+
+        for (EnumPopup popup : EnumPopup.values()) {
+            DTOImageSearchResult result = matched(results.get(popup.getTemplate().getTemplate()), popup.getThreshold());
+            if (popup.getAction() == EnumPopup.Action.ABORT || !result.isFound()) {
+                continue;
+            }
+
+            logger.info("Dismissing popup {} on emulator {}", popup, emulatorNumber);
+            switch (popup.getAction()) {
+                case TAP_MATCH -> emuManager.tapAtPoint(emulatorNumber, result.getPoint());
+                case TAP_POINT -> emuManager.tapAtPoint(emulatorNumber, popup.getTapPoint());
+                default -> emuManager.tapBackButton(emulatorNumber);
+            }
+            return new Resolution(State.DISMISSED, home, world, popup);
+        }
+
+        return new Resolution(State.UNKNOWN, home, world, null);
+    }
+
+    private static DTOImageSearchResult matched(DTOImageSearchResult result, double threshold) {
+        if (result == null) {
+            return new DTOImageSearchResult(false, null, 0.0);
+        }
+        if (result.isFound() && result.getMatchPercentage() < threshold) {
+            return new DTOImageSearchResult(false, null, result.getMatchPercentage());
+        }
+        return result;
+    }
+}
@@ -3,6 +3,7 @@ package cl.camodev.wosbot.serv.task;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -16,8 +17,10 @@ import cl.camodev.wosbot.console.enumerable.EnumTpMessageSeverity;
 import cl.camodev.wosbot.console.enumerable.TpDailyTaskEnum;
 import cl.camodev.wosbot.emulator.EmulatorManager;
 import cl.camodev.wosbot.ex.ADBConnectionException;
+import cl.camodev.wosbot.ex.DeviceCircuitOpenException;
 import cl.camodev.wosbot.ex.HomeNotFoundException;
 import cl.camodev.wosbot.ex.ProfileInReconnectStateException;
+import cl.camodev.wosbot.ex.ScreenStuckException;
 import cl.camodev.wosbot.ex.StopExecutionException;
 import cl.camodev.wosbot.ot.DTOImageSearchResult;
 import cl.camodev.wosbot.ot.DTOProfileStatus;
@@ -35,6 +38,10 @@ public class TaskQueue {
 
 
 	private static final Logger logger = LoggerFactory.getLogger(TaskQueue.class);
+	// Recuperaciones de pantalla congelada consecutivas antes de reiniciar el emulador completo.
+	private static final int MAX_STUCK_SCREEN_RECOVERIES = 3;
+	// Segundos de anticipación con los que se precargan los templates de la próxima tarea
+	private static final long TEMPLATE_PREFETCH_LEAD_SECONDS = 30;
 	private final PriorityBlockingQueue<DelayedTask> taskQueue = new PriorityBlockingQueue<>();
 	// Bandera para detener el loop del scheduler.
 	private volatile boolean running = false;
@@ -43,6 +50,10 @@ public class TaskQueue {
 	// Hilo que se encargará de evaluar y ejecutar las tareas.
 	private Thread schedulerThread;
 	private DTOProfiles profile;
+	private int consecutiveStuckRecoveries = 0;
+	// Tipo y hora de la última ejecución precargada; una tarea recurrente vuelve a la cola como la misma instancia
+	private TpDailyTaskEnum prefetchedTpTask;
+	private LocalDateTime prefetchedSchedule;
 	protected EmulatorManager emuManager = EmulatorManager.getInstance();
 
 	public TaskQueue(DTOProfiles profile) {
@@ -165,7 +176,10 @@ public class TaskQueue {
 
 						task.setLastExecutionTime(LocalDateTime.now());
 						task.run();
+						consecutiveStuckRecoveries = 0;
 
+					} catch (ScreenStuckException e) {
+						recoverFromStuckScreen(task, e);
 					} catch (HomeNotFoundException e) {
 						ServLogs.getServices().appendLog(EnumTpMessageSeverity.ERROR, task.getTaskName(), profile.getName(), e.getMessage());
 						logger.error("Error executing task " + task.getTaskName() + " for profile " + profile.getName() + ": " + e.getMessage(), e);
@@ -204,6 +218,17 @@ public class TaskQueue {
 							logger.error("Profile {} is in reconnect state, but no reconnection time set, resuming execution", profile.getName());
 							addTask(new InitializeTask(profile, TpDailyTaskEnum.INITIALIZE));
 						}
+					} catch (DeviceCircuitOpenException e) {
+						// El dispositivo no responde: liberar el slot y reintentar cuando el circuito permita una prueba
+						long retrySeconds = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(e.getRetryAfterMs()));
+						ServLogs.getServices().appendLog(EnumTpMessageSeverity.WARNING, task.getTaskName(), profile.getName(), "Device not responding, retrying in " + retrySeconds + " seconds");
+						logger.warn("Circuit open executing task {} for profile {}: {}", task.getTaskName(), profile.getName(), e.getMessage());
+						ServProfiles.getServices().notifyProfileStatusChange(new DTOProfileStatus(profile.getId(), "Device not responding"));
+						task.reschedule(LocalDateTime.now().plusSeconds(retrySeconds));
+						if (!idlingTimeExceded) {
+							idlingTimeExceded = true;
+							EmulatorManager.getInstance().releaseEmulatorSlot(profile);
+						}
 					} catch (ADBConnectionException e) {
 						logger.error("ADB connection error executing task {} for profile {}: {}", task.getTaskName(), profile.getName(), e.getMessage(), e);
 						addTask(new InitializeTask(profile, TpDailyTaskEnum.INITIALIZE));
@@ -280,6 +305,15 @@ public class TaskQueue {
 					}
 				}
 
+				// Precargar los templates de la tarea que está por ejecutarse
+				DelayedTask headTask = taskQueue.peek();
+				if (headTask != null && headTask.getDelay(TimeUnit.SECONDS) <= TEMPLATE_PREFETCH_LEAD_SECONDS
+						&& (headTask.getTpTask() != prefetchedTpTask || !Objects.equals(headTask.getScheduled(), prefetchedSchedule))) {
+					prefetchedTpTask = headTask.getTpTask();
+					prefetchedSchedule = headTask.getScheduled();
+					headTask.prefetchTemplates();
+				}
+
 				// Verificar condiciones según el delay mínimo de la cola de tareas
 				if (minDelay != Long.MAX_VALUE) { // Asegurar que hay tareas en la cola
 					long maxIdle = 0;
@@ -324,6 +358,30 @@ public class TaskQueue {
 	}
 
 	// Métodos auxiliares
+
+	/**
+	 * Restarts the game when the screen stopped reacting to input, escalating to an emulator restart
+	 * if the game keeps getting stuck.
+	 */
+	private void recoverFromStuckScreen(DelayedTask task, ScreenStuckException e) {
+		consecutiveStuckRecoveries++;
+		logger.warn("Stuck screen detected executing task {} for profile {} ({} consecutive): {}", task.getTaskName(), profile.getName(), consecutiveStuckRecoveries, e.getMessage());
+		ServProfiles.getServices().notifyProfileStatusChange(new DTOProfileStatus(profile.getId(), "Screen stuck, restarting game"));
+		try {
+			if (consecutiveStuckRecoveries >= MAX_STUCK_SCREEN_RECOVERIES) {
+				ServLogs.getServices().appendLog(EnumTpMessageSeverity.ERROR, task.getTaskName(), profile.getName(), "Screen stuck after " + consecutiveStuckRecoveries + " game restarts, restarting emulator");
+				emuManager.closeEmulator(profile.getEmulatorNumber());
+				consecutiveStuckRecoveries = 0;
+			} else {
+				ServLogs.getServices().appendLog(EnumTpMessageSeverity.WARNING, task.getTaskName(), profile.getName(), "Screen is not responding to input, restarting game");
+				emuManager.forceStopApp(profile.getEmulatorNumber(), EmulatorManager.WHITEOUT_PACKAGE);
+			}
+		} catch (Exception ex) {
+			logger.error("Error recovering from stuck screen for profile {}: {}", profile.getName(), ex.getMessage(), ex);
+		}
+		addTask(new InitializeTask(profile, TpDailyTaskEnum.INITIALIZE));
+	}
+
 	private void idlingEmulator(long minDelay) {
 		EmulatorManager.getInstance().closeEmulator(profile.getEmulatorNumber());
 		ServLogs.getServices().appendLog(EnumTpMessageSeverity.INFO, "TaskQueue", profile.getName(), "Closing game due to large inactivity");
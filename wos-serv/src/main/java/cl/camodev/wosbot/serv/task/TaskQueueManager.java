@@ -1,10 +1,13 @@
 package cl.camodev.wosbot.serv.task;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import cl.camodev.wosbot.console.enumerable.EnumTpMessageSeverity;
 import cl.camodev.wosbot.console.enumerable.TpDailyTaskEnum;
+import cl.camodev.wosbot.emulator.CircuitBreaker;
+import cl.camodev.wosbot.emulator.EmulatorManager;
 import cl.camodev.wosbot.ot.DTOProfiles;
 import cl.camodev.wosbot.ot.DTOTaskState;
 import cl.camodev.wosbot.serv.impl.ServLogs;
@@ -14,16 +17,19 @@ import org.slf4j.LoggerFactory;
 
 public class TaskQueueManager {
 	private final static Logger logger = LoggerFactory.getLogger(TaskQueueManager.class);
-	private final Map<Long, TaskQueue> taskQueues = new HashMap<>();
+	private final Map<Long, TaskQueue> taskQueues = new ConcurrentHashMap<>();
+
+	public TaskQueueManager() {
+		EmulatorManager.getInstance().addCircuitBreakerListener(this::onCircuitStateChange);
+	}
 
 	public void createQueue(DTOProfiles profile) {
-		if (!taskQueues.containsKey(profile.getId())) {
-			taskQueues.put(profile.getId(), new TaskQueue(profile));
-		}
+		taskQueues.computeIfAbsent(profile.getId(), id -> new TaskQueue(profile));
 	}
 
 	public TaskQueue getQueue(Long queueName) {
-		return taskQueues.get(queueName);
+		// ConcurrentHashMap no admite claves nulas
+		return queueName == null ? null : taskQueues.get(queueName);
 	}
 
 	public void startQueues() {
@@ -69,6 +75,23 @@ public class TaskQueueManager {
 		});
 	}
 
+	/**
+	 * Informs the profiles running on an emulator that its device stopped responding or recovered.
+	 */
+	private void onCircuitStateChange(String emulatorNumber, CircuitBreaker.State state, long retryAfterMs) {
+		if (state == CircuitBreaker.State.HALF_OPEN) {
+			return;
+		}
+		String message = state == CircuitBreaker.State.OPEN
+				? "Device not responding, retrying in " + TimeUnit.MILLISECONDS.toSeconds(retryAfterMs) + " seconds"
+				: "Device responding again";
+		taskQueues.values().stream()
+			.map(TaskQueue::getProfile)
+			.filter(profile -> emulatorNumber.equals(profile.getEmulatorNumber()))
+			.forEach(profile -> ServLogs.getServices().appendLog(state == CircuitBreaker.State.OPEN ? EnumTpMessageSeverity.WARNING : EnumTpMessageSeverity.INFO,
+				"TaskQueueManager", profile.getName(), message));
+	}
+
 	public void resumeQueues() {
 		ServLogs.getServices().appendLog(EnumTpMessageSeverity.INFO, "TaskQueueManager", "-", "Resuming queues");
 		logger.info("Resuming queues");
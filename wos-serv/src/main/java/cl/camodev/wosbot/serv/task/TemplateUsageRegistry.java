@@ -0,0 +1,57 @@
+package cl.camodev.wosbot.serv.task;
+
+import cl.camodev.utiles.ImageSearchUtil;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Learns which templates each task type uses while it runs.
+ * <p>
+ * While a task is executing, every template searched from its thread is recorded under the task class. The recorded
+ * templates form the derived part of the task's template manifest, which is prefetched the next time the task is about
+ * to run.
+ */
+public final class TemplateUsageRegistry {
+
+    private static final Map<Class<? extends DelayedTask>, Set<String>> usedTemplates = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Class<? extends DelayedTask>> currentTask = new ThreadLocal<>();
+
+    static {
+        ImageSearchUtil.setTemplateUsageListener(TemplateUsageRegistry::record);
+    }
+
+    private TemplateUsageRegistry() {
+    }
+
+    /**
+     * Starts recording the templates used by the current thread for the given task type.
+     */
+    static void beginTask(Class<? extends DelayedTask> taskClass) {
+        currentTask.set(taskClass);
+    }
+
+    /**
+     * Stops recording for the current thread.
+     */
+    static void endTask() {
+        currentTask.remove();
+    }
+
+    private static void record(String templatePath) {
+        Class<? extends DelayedTask> taskClass = currentTask.get();
+        if (taskClass != null) {
+            usedTemplates.computeIfAbsent(taskClass, key -> ConcurrentHashMap.newKeySet()).add(templatePath);
+        }
+    }
+
+    /**
+     * @return Templates used so far by the given task type
+     */
+    public static Set<String> getUsedTemplates(Class<? extends DelayedTask> taskClass) {
+        Set<String> templates = usedTemplates.get(taskClass);
+        return templates == null ? Collections.emptySet() : Collections.unmodifiableSet(templates);
+    }
+}
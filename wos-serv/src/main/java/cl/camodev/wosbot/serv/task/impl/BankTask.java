@@ -35,10 +35,7 @@ public class BankTask extends DelayedTask {
 
 		while (attempt < 5) {
 			// Check if we are on the home screen
-			DTOImageSearchResult homeResult = emuManager.searchTemplate(EMULATOR_NUMBER, EnumTemplates.GAME_HOME_FURNACE.getTemplate(),  90);
-			DTOImageSearchResult worldResult = emuManager.searchTemplate(EMULATOR_NUMBER, EnumTemplates.GAME_HOME_WORLD.getTemplate(), 90);
-
-			if (homeResult.isFound() || worldResult.isFound()) {
+			if (searchHomeScreen().isHomeOrWorld()) {
 				if (navigateToBank()) {
 					handleBankOperations(bankDelay);
 					return;
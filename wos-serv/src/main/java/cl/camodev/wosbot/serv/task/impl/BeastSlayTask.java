@@ -1,15 +1,17 @@
 package cl.camodev.wosbot.serv.task.impl;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import cl.camodev.wosbot.console.enumerable.EnumTemplates;
+import cl.camodev.utiles.EnumOcrProfile;
 import cl.camodev.wosbot.console.enumerable.EnumTpMessageSeverity;
 import cl.camodev.wosbot.console.enumerable.TpDailyTaskEnum;
 import cl.camodev.wosbot.emulator.EmulatorManager;
@@ -48,8 +50,9 @@ public class BeastSlayTask extends DelayedTask {
 	@Override
 	protected void execute() {
 
-		DTOImageSearchResult homeResult = emuManager.searchTemplate(EMULATOR_NUMBER, EnumTemplates.GAME_HOME_FURNACE.getTemplate(), 90);
-		DTOImageSearchResult worldResult = emuManager.searchTemplate(EMULATOR_NUMBER, EnumTemplates.GAME_HOME_WORLD.getTemplate(), 90);
+		HomeScreen screen = searchHomeScreen();
+		DTOImageSearchResult homeResult = screen.home();
+		DTOImageSearchResult worldResult = screen.world();
 
 		if (homeResult.isFound() || worldResult.isFound()) {
 			if (homeResult.isFound()) {
@@ -67,7 +70,7 @@ public class BeastSlayTask extends DelayedTask {
 			// hacer ocr a la stamina 350,270 490,300
 
 			try {
-				String staminaText = emuManager.ocrRegionText(EMULATOR_NUMBER, new DTOPoint(350, 270), new DTOPoint(490, 300));
+				String staminaText = emuManager.ocrRegionText(EMULATOR_NUMBER, new DTOPoint(350, 270), new DTOPoint(490, 300), EnumOcrProfile.INTEGER);
 				System.out.println(staminaText);
 				emuManager.tapBackButton(EMULATOR_NUMBER);
 				emuManager.tapBackButton(EMULATOR_NUMBER);
@@ -97,7 +100,7 @@ public class BeastSlayTask extends DelayedTask {
 				emuManager.tapAtRandomPoint(EMULATOR_NUMBER, new DTOPoint(210, 1190), new DTOPoint(330, 1250));
 				sleepTask(1000);
 
-				String queueText = emuManager.ocrRegionText(EMULATOR_NUMBER, new DTOPoint(280, 230), new DTOPoint(340, 252));
+				String queueText = emuManager.ocrRegionText(EMULATOR_NUMBER, new DTOPoint(280, 230), new DTOPoint(340, 252), EnumOcrProfile.INTEGER);
 				System.out.println(queueText);
 				emuManager.tapBackButton(EMULATOR_NUMBER);
 				emuManager.tapBackButton(EMULATOR_NUMBER);
@@ -167,10 +170,8 @@ public class BeastSlayTask extends DelayedTask {
 						try {
 							// Obtener stamina y tiempo restante via OCR
 
-							String timeText = emuManager.ocrRegionText(EMULATOR_NUMBER, new DTOPoint(519, 1141), new DTOPoint(618, 1164));
-							System.out.println("Time remaining: " + timeText);
-
-							timeText = timeText.trim().replaceAll("[^0-9:]", ""); // Solo dejar números y ":"
+							Optional<Duration> timeRemaining = emuManager.ocrDuration(EMULATOR_NUMBER, new DTOPoint(519, 1141), new DTOPoint(618, 1164));
+							logInfo("Time remaining: " + timeRemaining.map(time -> String.format("%02d:%02d:%02d", time.toHours(), time.toMinutesPart(), time.toSecondsPart())).orElse("unknown"));
 
 							// atacar
 							emuManager.tapAtRandomPoint(EMULATOR_NUMBER, new DTOPoint(450, 1183), new DTOPoint(640, 1240));
@@ -178,19 +179,8 @@ public class BeastSlayTask extends DelayedTask {
 							stamina -= 10;
 							availableQueues--;
 
-							int totalSeconds = 0;
-							String[] timeParts = timeText.split(":");
-
-							if (timeParts.length == 3) {
-								// Formato HH:mm:ss
-								totalSeconds = Integer.parseInt(timeParts[0]) * 3600 + Integer.parseInt(timeParts[1]) * 60 + Integer.parseInt(timeParts[2]);
-							} else if (timeParts.length == 2) {
-								// Formato mm:ss
-								totalSeconds = Integer.parseInt(timeParts[0]) * 60 + Integer.parseInt(timeParts[1]);
-							} else {
-								// Formato inválido o incompleto, asignar un valor por defecto
-								totalSeconds = 10; // Por defecto 10 segundos de espera
-							}
+							// Si no se pudo leer el tiempo, por defecto 10 segundos de espera
+							long totalSeconds = timeRemaining.map(Duration::getSeconds).orElse(10L);
 
 							// Calcular el tiempo de finalización de la bestia
 							long finishTime = System.currentTimeMillis() + ((totalSeconds * 1000L) * 2);
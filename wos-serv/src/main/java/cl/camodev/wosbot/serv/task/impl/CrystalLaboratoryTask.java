@@ -46,9 +46,7 @@ public class CrystalLaboratoryTask extends DelayedTask {
 	@Override
 	protected void execute() {
 
-		DTOImageSearchResult homeResult = EmulatorManager.getInstance().searchTemplate(EMULATOR_NUMBER, EnumTemplates.GAME_HOME_FURNACE.getTemplate(),  90);
-		DTOImageSearchResult worldResult = EmulatorManager.getInstance().searchTemplate(EMULATOR_NUMBER, EnumTemplates.GAME_HOME_WORLD.getTemplate(),  90);
-		if (homeResult.isFound() || worldResult.isFound()) {
+		if (searchHomeScreen().isHomeOrWorld()) {
 			ServLogs.getServices().appendLog(EnumTpMessageSeverity.INFO, taskName, profile.getName(), "going to crystal laboratory");
 			EmulatorManager.getInstance().tapAtRandomPoint(EMULATOR_NUMBER, new DTOPoint(1, 500), new DTOPoint(25, 590));
 			sleepTask(2000);
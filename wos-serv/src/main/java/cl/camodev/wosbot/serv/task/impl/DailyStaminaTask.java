@@ -24,8 +24,9 @@ public class DailyStaminaTask extends DelayedTask {
 
 	@Override
 	protected void execute() {
-		DTOImageSearchResult homeResult = emuManager.searchTemplate(EMULATOR_NUMBER, EnumTemplates.GAME_HOME_FURNACE.getTemplate(),  90);
-		DTOImageSearchResult worldResult = emuManager.searchTemplate(EMULATOR_NUMBER, EnumTemplates.GAME_HOME_WORLD.getTemplate(),  90);
+		HomeScreen screen = searchHomeScreen();
+		DTOImageSearchResult homeResult = screen.home();
+		DTOImageSearchResult worldResult = screen.world();
 
 		if (homeResult.isFound() || worldResult.isFound()) {
 			if (worldResult.isFound()) {
@@ -1,7 +1,9 @@
 package cl.camodev.wosbot.serv.task.impl;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.Optional;
 
 import cl.camodev.wosbot.almac.entity.DailyTask;
 import cl.camodev.wosbot.almac.repo.DailyTaskRepository;
@@ -115,9 +117,9 @@ public class GatherTask extends DelayedTask {
                 int index = obtenerIndice(resource.getPoint());
                 if (index != -1) {
                     try {
-                        String time = emuManager.ocrRegionText(EMULATOR_NUMBER, queues[index][2],
+                        Optional<Duration> remaining = emuManager.ocrDuration(EMULATOR_NUMBER, queues[index][2],
                                 new DTOPoint(queues[index][2].getX() + 140, queues[index][2].getY() + 19));
-                        LocalDateTime nextSchedule = parseRemaining(time).plusMinutes(2);
+                        LocalDateTime nextSchedule = remaining.map(LocalDateTime.now()::plus).orElseGet(LocalDateTime::now).plusMinutes(2);
                         this.reschedule(nextSchedule);
                     } catch (Exception e) {
 
@@ -158,10 +160,12 @@ public class GatherTask extends DelayedTask {
                     emuManager.tapAtPoint(EMULATOR_NUMBER, tile.getPoint());
                     // regresar al nivel 1
                     sleepTask(500);
-                    emuManager.executeSwipe(EMULATOR_NUMBER, new DTOPoint(435, 1052), new DTOPoint(40, 1052));
-                    sleepTask(300);
-                    emuManager.tapAtRandomPoint(EMULATOR_NUMBER, new DTOPoint(487, 1055), new DTOPoint(487, 1055),
-                            (profile.getConfig(gatherType.getConfig(), Integer.class) - 1), 100);
+                    emuManager.gesture(EMULATOR_NUMBER)
+                            .swipe(new DTOPoint(435, 1052), new DTOPoint(40, 1052))
+                            .sleep(300)
+                            .tap(new DTOPoint(487, 1055), new DTOPoint(487, 1055),
+                                    (profile.getConfig(gatherType.getConfig(), Integer.class) - 1), 100)
+                            .run();
 
                     DTOImageSearchResult tick = emuManager.searchTemplate(EMULATOR_NUMBER,
                             EnumTemplates.GAME_HOME_SHORTCUTS_FARM_TICK.getTemplate(), 90);
@@ -2,6 +2,7 @@ package cl.camodev.wosbot.serv.task.impl;
 
 import cl.camodev.wosbot.console.enumerable.EnumTemplates;
 import cl.camodev.wosbot.console.enumerable.TpDailyTaskEnum;
+import cl.camodev.wosbot.ot.DTOArea;
 import cl.camodev.wosbot.ot.DTOImageSearchResult;
 import cl.camodev.wosbot.ot.DTOPoint;
 import cl.camodev.wosbot.ot.DTOProfiles;
@@ -12,11 +13,16 @@ import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class HeroRecruitmentTask extends DelayedTask {
 
+    private static final String ADVANCED_TIMER = "advanced";
+    private static final String EPIC_TIMER = "epic";
+
     public HeroRecruitmentTask(DTOProfiles profile, TpDailyTaskEnum tpDailyTask) {
         super(profile, tpDailyTask);
     }
@@ -34,8 +40,6 @@ public class HeroRecruitmentTask extends DelayedTask {
         logInfo("evaluating advanced recruitment");
         DTOImageSearchResult claimResult = emuManager.searchTemplate(EMULATOR_NUMBER,
                 EnumTemplates.HERO_RECRUIT_CLAIM.getTemplate(), new DTOPoint(40, 800), new DTOPoint(340, 1100), 95);
-        LocalDateTime nextAdvanced = null;
-        String text = "";
         if (claimResult.isFound()) {
             logInfo("advanced recruitment available, tapping");
             emuManager.tapAtRandomPoint(EMULATOR_NUMBER, new DTOPoint(80, 827), new DTOPoint(315, 875));
@@ -58,18 +62,9 @@ public class HeroRecruitmentTask extends DelayedTask {
 
         }
 
-        try {
-            text = emuManager.ocrRegionText(EMULATOR_NUMBER, new DTOPoint(40, 770), new DTOPoint(350, 810));
-        } catch (Exception e) {
-            // TODO Auto-generated catch block
-            e.printStackTrace();
-        }
-        logInfo(text + " rescheduling task");
-        nextAdvanced = parseNextFree(text);
         logInfo("evaluating epic recruitment");
         DTOImageSearchResult claimResultEpic = emuManager.searchTemplate(EMULATOR_NUMBER,
                 EnumTemplates.HERO_RECRUIT_CLAIM.getTemplate(), new DTOPoint(40, 1160), new DTOPoint(340, 1255), 95);
-        LocalDateTime nextEpic;
         if (claimResultEpic.isFound()) {
             logInfo("epic recruitment available, tapping");
             emuManager.tapAtRandomPoint(EMULATOR_NUMBER, new DTOPoint(70, 1180), new DTOPoint(315, 1230));
@@ -92,13 +87,20 @@ public class HeroRecruitmentTask extends DelayedTask {
         }
 
 
+        // Both timers are on the same screen, read them from a single capture
+        Map<String, DTOArea> timerRegions = new LinkedHashMap<>();
+        timerRegions.put(ADVANCED_TIMER, new DTOArea(new DTOPoint(40, 770), new DTOPoint(350, 810)));
+        timerRegions.put(EPIC_TIMER, new DTOArea(new DTOPoint(53, 1130), new DTOPoint(330, 1160)));
+        Map<String, String> timers = Map.of(ADVANCED_TIMER, "", EPIC_TIMER, "");
         try {
-            text = emuManager.ocrRegionText(EMULATOR_NUMBER, new DTOPoint(53, 1130), new DTOPoint(330, 1160));
+            timers = emuManager.ocrRegions(EMULATOR_NUMBER, timerRegions);
         } catch (IOException | TesseractException e) {
             // TODO Auto-generated catch block
             e.printStackTrace();
         }
-        nextEpic = parseNextFree(text);
+        logInfo(timers.get(ADVANCED_TIMER) + " rescheduling task");
+        LocalDateTime nextAdvanced = parseNextFree(timers.get(ADVANCED_TIMER));
+        LocalDateTime nextEpic = parseNextFree(timers.get(EPIC_TIMER));
 
         LocalDateTime nextExecution = getEarliest(nextAdvanced, nextEpic);
         this.reschedule(nextExecution);
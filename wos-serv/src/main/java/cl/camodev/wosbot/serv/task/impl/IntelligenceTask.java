@@ -1,10 +1,11 @@
 package cl.camodev.wosbot.serv.task.impl;
 
-import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -22,7 +23,6 @@ import cl.camodev.wosbot.ot.DTOProfiles;
 import cl.camodev.wosbot.serv.impl.ServLogs;
 import cl.camodev.wosbot.serv.impl.ServScheduler;
 import cl.camodev.wosbot.serv.task.DelayedTask;
-import net.sourceforge.tess4j.TesseractException;
 
 public class IntelligenceTask extends DelayedTask {
 
@@ -52,8 +52,9 @@ public class IntelligenceTask extends DelayedTask {
 		boolean intelFound = false;
 		marchQueueLimitReached = false;
 
-		DTOImageSearchResult homeResult = emuManager.searchTemplate(EMULATOR_NUMBER, EnumTemplates.GAME_HOME_FURNACE.getTemplate(),  90);
-		DTOImageSearchResult worldResult = emuManager.searchTemplate(EMULATOR_NUMBER, EnumTemplates.GAME_HOME_WORLD.getTemplate(),  90);
+		HomeScreen screen = searchHomeScreen();
+		DTOImageSearchResult homeResult = screen.home();
+		DTOImageSearchResult worldResult = screen.world();
 
 		if (homeResult.isFound() || worldResult.isFound()) {
 			if (homeResult.isFound()) {
@@ -70,8 +71,11 @@ public class IntelligenceTask extends DelayedTask {
 					servLogs.appendLog(EnumTpMessageSeverity.DEBUG, taskName, profile.getName(), "Searching for completed missions attempt " + i);
 					DTOImageSearchResult completed = emuManager.searchTemplate(EMULATOR_NUMBER, EnumTemplates.INTEL_COMPLETED.getTemplate(),  90);
 					if (completed.isFound()) {
-						emuManager.tapAtPoint(EMULATOR_NUMBER, completed.getPoint());
-						emuManager.tapAtRandomPoint(EMULATOR_NUMBER, new DTOPoint(700, 1270), new DTOPoint(710, 1280), 10, 100);
+						emuManager.gesture(EMULATOR_NUMBER)
+								.tap(completed.getPoint())
+								.sleep(100)
+								.tap(new DTOPoint(700, 1270), new DTOPoint(710, 1280), 10, 100)
+								.run();
 					}
 				}
 			}
@@ -210,16 +214,17 @@ public class IntelligenceTask extends DelayedTask {
 
 			sleepTask(500);
 			if (intelFound == false) {
+				// El OCR se lee mientras se vuelve atrás, solo se necesita para reprogramar
+				CompletableFuture<String> rescheduleTime = emuManager.ocrRegionTextAsync(EMULATOR_NUMBER, new DTOPoint(120, 110), new DTOPoint(600, 146));
+				emuManager.tapBackButton(EMULATOR_NUMBER);
 				try {
-					String rescheduleTime = emuManager.ocrRegionText(EMULATOR_NUMBER, new DTOPoint(120, 110), new DTOPoint(600, 146));
-					LocalDateTime reshchedule = parseAndAddTime(rescheduleTime);
+					LocalDateTime reshchedule = parseAndAddTime(rescheduleTime.join());
 					this.reschedule(reshchedule);
-					emuManager.tapBackButton(EMULATOR_NUMBER);
 					ServScheduler.getServices().updateDailyTaskStatus(profile, tpTask, reshchedule);
 					servLogs.appendLog(EnumTpMessageSeverity.INFO, taskName, profile.getName(), "No intelligence tasks found, rescheduling to: " + reshchedule);
-				} catch (IOException | TesseractException e) {
+				} catch (CompletionException e) {
 					this.reschedule(LocalDateTime.now().plusMinutes(5));
-					servLogs.appendLog(EnumTpMessageSeverity.ERROR, taskName, profile.getName(), "Error occurred while processing: " + e.getMessage());
+					servLogs.appendLog(EnumTpMessageSeverity.ERROR, taskName, profile.getName(), "Error occurred while processing: " + e.getCause().getMessage());
 					e.printStackTrace();
 				}
 			} else {
@@ -33,9 +33,7 @@ public class LifeEssenceTask extends DelayedTask {
 		}
 
 		// Buscar la plantilla de la pantalla HOME
-		DTOImageSearchResult homeResult = emuManager.searchTemplate(EMULATOR_NUMBER, EnumTemplates.GAME_HOME_FURNACE.getTemplate(), 90);
-		DTOImageSearchResult worldResult = emuManager.searchTemplate(EMULATOR_NUMBER, EnumTemplates.GAME_HOME_WORLD.getTemplate(),  90);
-		if (homeResult.isFound() || worldResult.isFound()) {
+		if (searchHomeScreen().isHomeOrWorld()) {
 			ServLogs.getServices().appendLog(EnumTpMessageSeverity.INFO, taskName, profile.getName(), "going life essence");
 			emuManager.tapAtRandomPoint(EMULATOR_NUMBER, new DTOPoint(1, 509), new DTOPoint(24, 592));
 			// asegurarse de esta en el shortcut de ciudad
@@ -1,6 +1,8 @@
 package cl.camodev.wosbot.serv.task.impl;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 
 import cl.camodev.utiles.UtilTime;
@@ -11,6 +13,7 @@ import cl.camodev.wosbot.ot.DTOImageSearchResult;
 import cl.camodev.wosbot.ot.DTOPoint;
 import cl.camodev.wosbot.ot.DTOProfiles;
 import cl.camodev.wosbot.serv.task.DelayedTask;
+import cl.camodev.wosbot.serv.task.PopupResolver;
 
 public class MysteryShopTask extends DelayedTask {
 
@@ -18,21 +21,33 @@ public class MysteryShopTask extends DelayedTask {
 		super(profile, tpTask);
 	}
 
+	@Override
+	protected Collection<EnumTemplates> getRequiredTemplates() {
+		return Arrays.asList(
+			EnumTemplates.GAME_HOME_BOTTOM_BAR_SHOP_BUTTON,
+			EnumTemplates.SHOP_MYSTERY_BUTTON,
+			EnumTemplates.MYSTERY_SHOP_FREE_REWARD,
+			EnumTemplates.MYSTERY_SHOP_DAILY_REFRESH
+		);
+	}
+
 	@Override
 	protected void execute() {
 		int attempt = 0;
 
 		while (attempt < 5) {
-			// Check if we are on the home screen
-			DTOImageSearchResult homeResult = emuManager.searchTemplate(EMULATOR_NUMBER, EnumTemplates.GAME_HOME_FURNACE.getTemplate(),  90);
-			DTOImageSearchResult worldResult = emuManager.searchTemplate(EMULATOR_NUMBER, EnumTemplates.GAME_HOME_WORLD.getTemplate(),  90);
+			// Check if we are on the home screen, dismissing known popups on the way
+			PopupResolver.Resolution screen = popupResolver.resolve(EMULATOR_NUMBER);
 
-			if (homeResult.isFound() || worldResult.isFound()) {
+			if (screen.isHomeOrWorld()) {
 				if (navigateToShop()) {
 					handleMysteryShopOperations();
 					return;
 				}
 				return;
+			} else if (screen.getState() == PopupResolver.State.DISMISSED) {
+				logInfo("Dismissed popup " + screen.getPopup());
+				sleepTask(500);
 			} else {
 				// If home screen is not found, log warning and go back
 				logWarning("Home not found");
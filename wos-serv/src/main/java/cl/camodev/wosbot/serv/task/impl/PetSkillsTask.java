@@ -1,6 +1,7 @@
 package cl.camodev.wosbot.serv.task.impl;
 
 import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
 
 import cl.camodev.wosbot.console.enumerable.EnumTemplates;
 import cl.camodev.wosbot.console.enumerable.EnumTpMessageSeverity;
@@ -35,9 +36,7 @@ public class PetSkillsTask extends DelayedTask {
 			return;
 		}
 
-		DTOImageSearchResult homeResult = emuManager.searchTemplate(EMULATOR_NUMBER, EnumTemplates.GAME_HOME_FURNACE.getTemplate(),  90);
-		DTOImageSearchResult worldResult = emuManager.searchTemplate(EMULATOR_NUMBER, EnumTemplates.GAME_HOME_WORLD.getTemplate(),  90);
-		if (homeResult.isFound() || worldResult.isFound()) {
+		if (searchHomeScreen().isHomeOrWorld()) {
 			servLogs.appendLog(EnumTpMessageSeverity.INFO, taskName, profile.getName(), "going pet skills");
 
 			DTOImageSearchResult petsResult = EmulatorManager.getInstance().searchTemplate(EMULATOR_NUMBER, EnumTemplates.GAME_HOME_PETS.getTemplate(),  90);
@@ -73,17 +72,18 @@ public class PetSkillsTask extends DelayedTask {
 					sleepTask(500);
 				}
 
+				servLogs.appendLog(EnumTpMessageSeverity.INFO, taskName, profile.getName(), "getting next schedule for " + petSkill.name());
+				// El OCR se lee mientras se vuelve atrás, solo se necesita para reprogramar
+				CompletableFuture<String> nextSchedulteText = EmulatorManager.getInstance().ocrRegionTextAsync(EMULATOR_NUMBER, new DTOPoint(210, 1080), new DTOPoint(520, 1105));
+				EmulatorManager.getInstance().tapBackButton(EMULATOR_NUMBER);
 				try {
-					servLogs.appendLog(EnumTpMessageSeverity.INFO, taskName, profile.getName(), "getting next schedule for " + petSkill.name());
-					String nextSchedulteText = EmulatorManager.getInstance().ocrRegionText(EMULATOR_NUMBER, new DTOPoint(210, 1080), new DTOPoint(520, 1105));
-					LocalDateTime nextSchedule = parseCooldown(nextSchedulteText);
-					this.reschedule(parseCooldown(nextSchedulteText));
+					LocalDateTime nextSchedule = parseCooldown(nextSchedulteText.join());
+					this.reschedule(nextSchedule);
 					ServScheduler.getServices().updateDailyTaskStatus(profile, tpTask, nextSchedule);
 				} catch (Exception e) {
 					e.printStackTrace();
 					this.reschedule(LocalDateTime.now().plusMinutes(5));
 				}
-				EmulatorManager.getInstance().tapBackButton(EMULATOR_NUMBER);
 			} else {
 				ServLogs.getServices().appendLog(EnumTpMessageSeverity.WARNING, taskName, profile.getName(), "button pets not found retrying later");
 				attempts++;
@@ -1,6 +1,7 @@
 package cl.camodev.wosbot.serv.task.impl;
 
 import cl.camodev.wosbot.console.enumerable.EnumConfigurationKey;
+import cl.camodev.wosbot.console.enumerable.EnumStatusLabel;
 import cl.camodev.wosbot.console.enumerable.EnumTemplates;
 import cl.camodev.wosbot.console.enumerable.EnumTpMessageSeverity;
 import cl.camodev.wosbot.console.enumerable.TpDailyTaskEnum;
@@ -8,12 +9,14 @@ import cl.camodev.wosbot.emulator.EmulatorManager;
 import cl.camodev.wosbot.ot.DTOImageSearchResult;
 import cl.camodev.wosbot.ot.DTOPoint;
 import cl.camodev.wosbot.ot.DTOProfiles;
+import cl.camodev.wosbot.ot.DTOStatusLabel;
 import cl.camodev.wosbot.serv.impl.ServLogs;
 import cl.camodev.wosbot.serv.task.DelayedTask;
 import cl.camodev.wosbot.serv.task.EnumStartLocation;
 import net.sourceforge.tess4j.TesseractException;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
@@ -34,6 +37,9 @@ public class TrainingTroopsTask extends DelayedTask {
     // CONSTANTS AND FIELDS
     // ===============================
 
+    // One read, and one more after reopening the troops interface
+    private static final int MAX_STATUS_ATTEMPTS = 2;
+
     private final TroopType troopType;
 
     // ===============================
@@ -112,15 +118,15 @@ public class TrainingTroopsTask extends DelayedTask {
      * @param troopsResult The search result for the troop type
      */
     private void handleTroopStatusCheck(DTOImageSearchResult troopsResult) {
-        // Attempt multiple times to read troop status (OCR can be unreliable)
-        for (int attempt = 1; attempt <= 5; attempt++) {
+        // Each read already votes among several OCR variants, a retry only helps after reopening the interface
+        for (int attempt = 1; attempt <= MAX_STATUS_ATTEMPTS; attempt++) {
             try {
                 logInfo("Attempting to read troop status - Attempt " + attempt);
 
                 DTOPoint[] points = getTroopsPoints(troopType);
-                String rawText = emuManager.ocrRegionText(EMULATOR_NUMBER, points[0], points[1]);
+                DTOStatusLabel status = emuManager.readStatusLabel(EMULATOR_NUMBER, points[0], points[1]);
 
-                if (handleTroopStatus(rawText, troopsResult)) {
+                if (handleTroopStatus(status, troopsResult)) {
                     return; // Status handled successfully, exit
                 }
 
@@ -141,7 +147,7 @@ public class TrainingTroopsTask extends DelayedTask {
 
             } catch (Exception e) {
                 logInfo("Error during training check attempt " + attempt + ": " + e.getMessage());
-                if (attempt == 5) {
+                if (attempt == MAX_STATUS_ATTEMPTS) {
                     logInfo("All attempts failed, rescheduling in 1 hour");
                     reschedule(LocalDateTime.now().plusHours(1));
                 }
@@ -172,22 +178,24 @@ public class TrainingTroopsTask extends DelayedTask {
 
     /**
      * Process the troop status and take appropriate action
-     * @param statusText The OCR text containing troop status
+     * @param status The troop status label, or the OCR text containing the remaining time
      * @param troopsResult The search result for the troop type
      * @return true if status was handled, false if should retry
      */
-    private boolean handleTroopStatus(String statusText, DTOImageSearchResult troopsResult) {
-        logInfo("Processing troop status: " + statusText);
+    private boolean handleTroopStatus(DTOStatusLabel status, DTOImageSearchResult troopsResult) {
+        EnumStatusLabel label = status.getLabel();
+        String statusText = status.getText();
+        logInfo("Processing troop status: " + (label != null ? label.getText() : statusText));
 
         // Check if troops are currently upgrading
-        if (statusText.contains("Upgrading")) {
+        if (label == EnumStatusLabel.UPGRADING) {
             logInfo("Troops are upgrading, rescheduling in 1 hour");
             reschedule(LocalDateTime.now().plusHours(1));
             return true;
         }
 
         // Check if training is completed or troops are idle
-        if (statusText.contains("Completed") || statusText.contains("Idle")) {
+        if (label == EnumStatusLabel.COMPLETED || label == EnumStatusLabel.IDLE) {
             logInfo("Training completed or troops idle, starting new training process");
 
             // Tap on troop to enter training interface
@@ -542,10 +550,15 @@ public class TrainingTroopsTask extends DelayedTask {
     private Optional<LocalDateTime> extractNextTime() {
         try {
             // OCR region containing training completion time
-            String text = EmulatorManager.getInstance().ocrRegionText(EMULATOR_NUMBER,
+            Optional<Duration> remaining = EmulatorManager.getInstance().ocrDuration(EMULATOR_NUMBER,
                 new DTOPoint(410, 997), new DTOPoint(586, 1048));
+            if (remaining.isEmpty()) {
+                ServLogs.getServices().appendLog(EnumTpMessageSeverity.ERROR, taskName, profile.getName(),
+                    "Could not read training time");
+                return Optional.empty();
+            }
 
-            LocalDateTime nextTime = addTimeToLocalDateTime(LocalDateTime.now(), text);
+            LocalDateTime nextTime = LocalDateTime.now().plus(remaining.get());
             logInfo("Successfully extracted next training time: " + nextTime);
             return Optional.of(nextTime);
 
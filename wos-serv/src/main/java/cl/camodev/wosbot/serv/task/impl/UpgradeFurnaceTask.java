@@ -14,6 +14,7 @@ import cl.camodev.wosbot.emulator.EmulatorManager;
 import cl.camodev.wosbot.ot.DTOImageSearchResult;
 import cl.camodev.wosbot.ot.DTOPoint;
 import cl.camodev.wosbot.ot.DTOProfiles;
+import cl.camodev.wosbot.ot.DTOStatusLabel;
 import cl.camodev.wosbot.ot.DTOTaskState;
 import cl.camodev.wosbot.serv.impl.ServLogs;
 import cl.camodev.wosbot.serv.impl.ServScheduler;
@@ -22,6 +23,9 @@ import cl.camodev.wosbot.serv.task.DelayedTask;
 
 public class UpgradeFurnaceTask extends DelayedTask {
 
+	// Búsquedas del botón de ayuda de la alianza tras iniciar una mejora
+	private static final int HELP_REQUEST_ATTEMPTS = 10;
+
 	private final Map<EnumTemplates, TpDailyTaskEnum> TROOP_TASK_MAP = Map.of(
 			EnumTemplates.BUILDING_DETAILS_INFANTRY, TpDailyTaskEnum.TRAINING_INFANTRY,
 			EnumTemplates.BUILDING_DETAILS_MARKSMAN,  TpDailyTaskEnum.TRAINING_MARKSMAN,
@@ -34,8 +38,9 @@ public class UpgradeFurnaceTask extends DelayedTask {
 
 	@Override
 	protected void execute() {
-		DTOImageSearchResult homeResult = emuManager.searchTemplate(EMULATOR_NUMBER, EnumTemplates.GAME_HOME_FURNACE.getTemplate(),  90);
-		DTOImageSearchResult worldResult = emuManager.searchTemplate(EMULATOR_NUMBER, EnumTemplates.GAME_HOME_WORLD.getTemplate(),  90);
+		HomeScreen screen = searchHomeScreen();
+		DTOImageSearchResult homeResult = screen.home();
+		DTOImageSearchResult worldResult = screen.world();
 
 		if (homeResult.isFound() || worldResult.isFound()) {
 			if (worldResult.isFound()) {
@@ -55,30 +60,31 @@ public class UpgradeFurnaceTask extends DelayedTask {
 
 			// ocr to check current building queue status
 
-			final int MAX_ATTEMPTS = 10;
-			boolean success = false;
 			LocalDateTime upgradeTime = null;
 
 			try {
-				for (int i = 0; i < MAX_ATTEMPTS; i++) {
-					try {
-						String rawText = emuManager.ocrRegionText(EMULATOR_NUMBER, new DTOPoint(162, 378), new DTOPoint(293, 397));
-						if (rawText.contains("Idle")) {
-							break;
+				// Una sola captura; el OCR ya vota entre varias variantes del recorte
+				try {
+					DTOStatusLabel status = emuManager.readStatusLabel(EMULATOR_NUMBER, new DTOPoint(162, 378), new DTOPoint(293, 397));
+					if (status.getLabel() == null) {
+						// Sin palabra conocida la región muestra el tiempo restante de la mejora en curso
+						if (status.getText() != null && !status.getText().isEmpty()) {
+							upgradeTime = parseNextFree(status.getText());
+						} else {
+							logInfo("Could not read building queue status");
+						}
+					} else {
+						switch (status.getLabel()) {
+							case IDLE, COMPLETED -> logInfo("Building queue status: " + status.getLabel().getText());
+							// La cola está ocupada, pero la etiqueta no indica cuánto falta
+							case UPGRADING -> upgradeTime = LocalDateTime.now().plusMinutes(5);
 						}
-
-						// Sumar la mitad al tiempo actual
-						upgradeTime = parseNextFree(rawText);
-
-						success = true;
-						break;
-					} catch (Exception e) {
-						// Opcional: loggear intento fallido
-						// System.out.println("OCR parsing failed at attempt " + (i + 1));
 					}
+				} catch (Exception e) {
+					logInfo("Could not read building queue status: " + e.getMessage());
 				}
 
-				if (success) {
+				if (upgradeTime != null) {
 					logInfo("Queue is already busy");
 					reschedule(upgradeTime);
 					return;
@@ -188,7 +194,7 @@ public class UpgradeFurnaceTask extends DelayedTask {
 									return;
 								}
 
-								for (int i = 0; i < MAX_ATTEMPTS; i++) {
+								for (int i = 0; i < HELP_REQUEST_ATTEMPTS; i++) {
 									DTOImageSearchResult alliesHelpButton = emuManager.searchTemplate(EMULATOR_NUMBER, EnumTemplates.GAME_HOME_SHORTCUTS_HELP_REQUEST.getTemplate(), 90);
 
 									if (alliesHelpButton.isFound()) {
@@ -196,7 +202,7 @@ public class UpgradeFurnaceTask extends DelayedTask {
 										emuManager.tapAtRandomPoint(EMULATOR_NUMBER, alliesHelpButton.getPoint(), alliesHelpButton.getPoint());
 										sleepTask(300);
 										break;
-									} else if (i == MAX_ATTEMPTS - 1) {
+									} else if (i == HELP_REQUEST_ATTEMPTS - 1) {
 										logInfo("Allies help button not found, skipping request");
 										reschedule(LocalDateTime.now());
 										return;
@@ -228,7 +234,7 @@ public class UpgradeFurnaceTask extends DelayedTask {
 
 								// check if allies can help
 
-								for (int i = 0; i < MAX_ATTEMPTS; i++) {
+								for (int i = 0; i < HELP_REQUEST_ATTEMPTS; i++) {
 									DTOImageSearchResult alliesHelpButton = emuManager.searchTemplate(EMULATOR_NUMBER, EnumTemplates.GAME_HOME_SHORTCUTS_HELP_REQUEST.getTemplate(),  90);
 
 									if (alliesHelpButton.isFound()) {
@@ -236,7 +242,7 @@ public class UpgradeFurnaceTask extends DelayedTask {
 										emuManager.tapAtRandomPoint(EMULATOR_NUMBER, alliesHelpButton.getPoint(), alliesHelpButton.getPoint());
 										sleepTask(500);
 										break;
-									} else if (i == MAX_ATTEMPTS - 1) {
+									} else if (i == HELP_REQUEST_ATTEMPTS - 1) {
 										servLogs.appendLog(EnumTpMessageSeverity.WARNING, taskName, profile.getName(), "Allies help button not found, skipping request");
 									}
 								}
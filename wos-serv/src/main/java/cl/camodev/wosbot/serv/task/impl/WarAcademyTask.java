@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import cl.camodev.utiles.EnumOcrProfile;
 import cl.camodev.utiles.UtilTime;
 import cl.camodev.wosbot.console.enumerable.EnumTemplates;
 import cl.camodev.wosbot.console.enumerable.EnumTpMessageSeverity;
@@ -143,7 +144,7 @@ public class WarAcademyTask extends DelayedTask {
             logInfo("Reading remaining shards via OCR, attempt " + ocrAttempt + " of " + MAX_RETRY_ATTEMPTS);
 
             try {
-                ocrResult = emuManager.ocrRegionText(EMULATOR_NUMBER, new DTOPoint(466, 456), new DTOPoint(624, 484));
+                ocrResult = emuManager.ocrRegionText(EMULATOR_NUMBER, new DTOPoint(466, 456), new DTOPoint(624, 484), EnumOcrProfile.INTEGER);
                 matcher = pattern.matcher(ocrResult);
 
                 if (matcher.find()) {
@@ -196,7 +197,7 @@ public class WarAcademyTask extends DelayedTask {
             logInfo("Reading final remaining shards via OCR, attempt " + finalOcrAttempt + " of " + MAX_RETRY_ATTEMPTS);
 
             try {
-                ocrResult = emuManager.ocrRegionText(EMULATOR_NUMBER, new DTOPoint(466, 456), new DTOPoint(624, 484));
+                ocrResult = emuManager.ocrRegionText(EMULATOR_NUMBER, new DTOPoint(466, 456), new DTOPoint(624, 484), EnumOcrProfile.INTEGER);
                 matcher = pattern.matcher(ocrResult);
 
                 if (matcher.find()) {
@@ -0,0 +1,65 @@
+package cl.camodev.utiles;
+
+import net.sourceforge.tess4j.ITessAPI.TessPageSegMode;
+
+/**
+ * OCR settings for each kind of field read from the game screen.
+ * <p>
+ * Restricting the characters and reading a single line of a clean, upscaled and binarized crop is much faster and more
+ * reliable than reading a raw color crop with the default settings. {@link #DEFAULT} keeps the default settings for
+ * regions mixing labels and values.
+ */
+public enum EnumOcrProfile {
+
+	// @formatter:off
+	/** Raw crop with the default settings of tess4j {@code Tesseract}, a single block of text. */
+	DEFAULT(null, TessPageSegMode.PSM_SINGLE_BLOCK, 1, false),
+	/** Timers like {@code 12:34:56} or {@code 1d 02:03:04}. */
+	TIMER_HHMMSS("0123456789:d ", TessPageSegMode.PSM_SINGLE_LINE, 2, true),
+	/** Numbers and counters like {@code 1,234} or {@code 2/3}. */
+	INTEGER("0123456789,/", TessPageSegMode.PSM_SINGLE_LINE, 2, true),
+	/** Status labels of a building or queue, such as {@code Idle}, {@code Upgrading} or a remaining time. */
+	STATUS_WORD("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789: ", TessPageSegMode.PSM_SINGLE_LINE, 2, true),
+	;
+	// @formatter:on
+
+	private final String whitelist;
+	private final int pageSegMode;
+	private final int scale;
+	private final boolean binarize;
+
+	EnumOcrProfile(String whitelist, int pageSegMode, int scale, boolean binarize) {
+		this.whitelist = whitelist;
+		this.pageSegMode = pageSegMode;
+		this.scale = scale;
+		this.binarize = binarize;
+	}
+
+	/**
+	 * @return Allowed characters, or null to allow every character
+	 */
+	public String getWhitelist() {
+		return whitelist;
+	}
+
+	/**
+	 * @return Tesseract page segmentation mode
+	 */
+	public int getPageSegMode() {
+		return pageSegMode;
+	}
+
+	/**
+	 * @return Upscale factor applied to the crop before reading it
+	 */
+	public int getScale() {
+		return scale;
+	}
+
+	/**
+	 * @return true if the crop is binarized to dark text on a light background
+	 */
+	public boolean isBinarize() {
+		return binarize;
+	}
+}
@@ -0,0 +1,254 @@
+package cl.camodev.utiles;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * Decoded screen capture shared by all the searches done on it.
+ * <p>
+ * The frame is decoded once to BGR and every derived view (grayscale, HSV, pyramid levels, integral images and the raw
+ * BGR bytes) is computed the first time it is requested and reused afterwards. All the views are owned by the frame and
+ * are released together by {@link #close()}, so callers must not release them.
+ * </p>
+ */
+public class ImageFrame implements AutoCloseable {
+
+	private final Mat bgr;
+	private final Map<Integer, Mat> pyramid = new HashMap<>();
+	private Mat gray;
+	private Mat hsv;
+	private Mat integral;
+	private Mat squaredIntegral;
+	private byte[] bgrBytes;
+	private boolean closed;
+
+	private ImageFrame(Mat bgr) {
+		this.bgr = bgr;
+	}
+
+	/**
+	 * Decodes an encoded image (QOI, PNG, JPG...) into a frame.
+	 *
+	 * @param image Encoded image bytes.
+	 * @return The frame. It is empty if the image could not be decoded.
+	 */
+	public static ImageFrame decode(byte[] image) {
+		if (image == null || image.length == 0) {
+			return new ImageFrame(new Mat());
+		}
+		if (QoiCodec.isQoi(image)) {
+			return decodeQoi(image);
+		}
+		MatOfByte buffer = new MatOfByte(image);
+		try {
+			return new ImageFrame(Imgcodecs.imdecode(buffer, Imgcodecs.IMREAD_COLOR));
+		} finally {
+			buffer.release();
+		}
+	}
+
+	/**
+	 * QOI frames are decoded in Java straight to BGR bytes, which are kept as the byte view of the frame.
+	 */
+	private static ImageFrame decodeQoi(byte[] image) {
+		QoiCodec.DecodedImage decoded;
+		try {
+			decoded = QoiCodec.decode(image);
+		} catch (IllegalArgumentException e) {
+			return new ImageFrame(new Mat());
+		}
+		Mat bgr = new Mat(decoded.getHeight(), decoded.getWidth(), CvType.CV_8UC3);
+		bgr.put(0, 0, decoded.getBgr());
+		ImageFrame frame = new ImageFrame(bgr);
+		frame.bgrBytes = decoded.getBgr();
+		return frame;
+	}
+
+	/**
+	 * Wraps an already decoded BGR image. The frame takes ownership of the Mat.
+	 */
+	public static ImageFrame of(Mat bgr) {
+		return new ImageFrame(bgr);
+	}
+
+	public synchronized boolean isEmpty() {
+		return closed || bgr.empty();
+	}
+
+	public synchronized int getWidth() {
+		ensureOpen();
+		return bgr.cols();
+	}
+
+	public synchronized int getHeight() {
+		ensureOpen();
+		return bgr.rows();
+	}
+
+	/**
+	 * @return The decoded image in BGR.
+	 */
+	public synchronized Mat getBgr() {
+		ensureOpen();
+		return bgr;
+	}
+
+	/**
+	 * @return The image in grayscale.
+	 */
+	public synchronized Mat getGray() {
+		ensureOpen();
+		if (gray == null) {
+			gray = new Mat();
+			Imgproc.cvtColor(bgr, gray, Imgproc.COLOR_BGR2GRAY);
+		}
+		return gray;
+	}
+
+	/**
+	 * @return The image in HSV.
+	 */
+	public synchronized Mat getHsv() {
+		ensureOpen();
+		if (hsv == null) {
+			hsv = new Mat();
+			Imgproc.cvtColor(bgr, hsv, Imgproc.COLOR_BGR2HSV);
+		}
+		return hsv;
+	}
+
+	/**
+	 * Gaussian pyramid level of the BGR image. Each level halves the size of the previous one.
+	 *
+	 * @param level Pyramid level, 0 being the full resolution image.
+	 * @return The image at the requested level.
+	 */
+	public synchronized Mat getPyramidLevel(int level) {
+		ensureOpen();
+		if (level < 0) {
+			throw new IllegalArgumentException("Invalid pyramid level: " + level);
+		}
+		if (level == 0) {
+			return bgr;
+		}
+		Mat cached = pyramid.get(level);
+		if (cached == null) {
+			cached = new Mat();
+			Imgproc.pyrDown(getPyramidLevel(level - 1), cached);
+			pyramid.put(level, cached);
+		}
+		return cached;
+	}
+
+	/**
+	 * @return Integral image of the grayscale image.
+	 */
+	public synchronized Mat getIntegral() {
+		ensureOpen();
+		if (integral == null) {
+			computeIntegrals();
+		}
+		return integral;
+	}
+
+	/**
+	 * @return Integral image of the squared grayscale image.
+	 */
+	public synchronized Mat getSquaredIntegral() {
+		ensureOpen();
+		if (squaredIntegral == null) {
+			computeIntegrals();
+		}
+		return squaredIntegral;
+	}
+
+	/**
+	 * @return The BGR pixels, row by row without padding. The array must not be modified.
+	 */
+	public synchronized byte[] getBgrBytes() {
+		ensureOpen();
+		if (bgrBytes == null) {
+			Mat continuous = bgr.isContinuous() ? bgr : bgr.clone();
+			bgrBytes = new byte[(int) (continuous.total() * continuous.channels())];
+			continuous.get(0, 0, bgrBytes);
+			if (continuous != bgr) {
+				continuous.release();
+			}
+		}
+		return bgrBytes;
+	}
+
+	/**
+	 * @return true if the byte view of the frame was already computed, so {@link #getBgrBytes()} does not copy it.
+	 */
+	synchronized boolean hasBgrBytes() {
+		return bgrBytes != null;
+	}
+
+	/**
+	 * Copies a region of the frame into a new image, straight from the BGR bytes.
+	 *
+	 * @return The region as a {@link BufferedImage#TYPE_3BYTE_BGR} image, independent from the frame.
+	 * @throws IllegalArgumentException if the region is empty or exceeds the frame.
+	 */
+	public synchronized BufferedImage crop(int x, int y, int width, int height) {
+		ensureOpen();
+		if (width <= 0 || height <= 0 || x < 0 || y < 0 || x + width > bgr.cols() || y + height > bgr.rows() || bgr.channels() != 3) {
+			throw new IllegalArgumentException("Region " + x + "," + y + " " + width + "x" + height + " exceeds the frame");
+		}
+		byte[] pixels = getBgrBytes();
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+		byte[] target = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+		int stride = bgr.cols() * 3;
+		int rowBytes = width * 3;
+		for (int row = 0; row < height; row++) {
+			System.arraycopy(pixels, (y + row) * stride + x * 3, target, row * rowBytes, rowBytes);
+		}
+		return image;
+	}
+
+	private void computeIntegrals() {
+		if (integral != null) integral.release();
+		if (squaredIntegral != null) squaredIntegral.release();
+		integral = new Mat();
+		squaredIntegral = new Mat();
+		Imgproc.integral2(getGray(), integral, squaredIntegral);
+	}
+
+	private void ensureOpen() {
+		if (closed) {
+			throw new IllegalStateException("Frame already released");
+		}
+	}
+
+	/**
+	 * Releases the image and all its derived views.
+	 */
+	@Override
+	public synchronized void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		bgr.release();
+		pyramid.values().forEach(Mat::release);
+		pyramid.clear();
+		if (gray != null) gray.release();
+		if (hsv != null) hsv.release();
+		if (integral != null) integral.release();
+		if (squaredIntegral != null) squaredIntegral.release();
+		gray = null;
+		hsv = null;
+		integral = null;
+		squaredIntegral = null;
+		bgrBytes = null;
+	}
+}
@@ -0,0 +1,87 @@
+package cl.camodev.utiles;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Perceptual hashing helpers used to compare captured frames cheaply.
+ * <p>
+ * The hash is a gradient (difference) hash: the image is reduced to a small grid of average luminance values and each bit records
+ * whether a cell is brighter than its right neighbour. Two frames showing the same screen produce the same (or almost the same) bits
+ * regardless of compression noise, so comparing hashes is enough to tell whether the screen changed.
+ * </p>
+ */
+public class ImageHashUtil {
+
+	private static final int HASH_COLUMNS = 16;
+	private static final int HASH_ROWS = 16;
+	private static final int SAMPLES_PER_AXIS = 4;
+
+	/**
+	 * Number of bits produced by {@link #differenceHash(BufferedImage)}.
+	 */
+	public static final int HASH_BITS = HASH_COLUMNS * HASH_ROWS;
+
+	/**
+	 * Calculates the 256 bit difference hash of an image.
+	 *
+	 * @param image Image to hash.
+	 * @return Hash bits packed in {@code HASH_BITS / 64} longs.
+	 */
+	public static long[] differenceHash(BufferedImage image) {
+		int width = image.getWidth();
+		int height = image.getHeight();
+		int gridColumns = HASH_COLUMNS + 1;
+
+		// Average luminance of each cell, sampling a few pixels per cell
+		int[] luminance = new int[gridColumns * HASH_ROWS];
+		for (int row = 0; row < HASH_ROWS; row++) {
+			int cellTop = row * height / HASH_ROWS;
+			int cellHeight = Math.max(1, (row + 1) * height / HASH_ROWS - cellTop);
+			for (int col = 0; col < gridColumns; col++) {
+				int cellLeft = col * width / gridColumns;
+				int cellWidth = Math.max(1, (col + 1) * width / gridColumns - cellLeft);
+
+				int sum = 0;
+				for (int sy = 0; sy < SAMPLES_PER_AXIS; sy++) {
+					int y = Math.min(height - 1, cellTop + (2 * sy + 1) * cellHeight / (2 * SAMPLES_PER_AXIS));
+					for (int sx = 0; sx < SAMPLES_PER_AXIS; sx++) {
+						int x = Math.min(width - 1, cellLeft + (2 * sx + 1) * cellWidth / (2 * SAMPLES_PER_AXIS));
+						int rgb = image.getRGB(x, y);
+						sum += (((rgb >> 16) & 0xFF) * 299 + ((rgb >> 8) & 0xFF) * 587 + (rgb & 0xFF) * 114) / 1000;
+					}
+				}
+				luminance[row * gridColumns + col] = sum;
+			}
+		}
+
+		long[] hash = new long[HASH_BITS / 64];
+		int bit = 0;
+		for (int row = 0; row < HASH_ROWS; row++) {
+			for (int col = 0; col < HASH_COLUMNS; col++) {
+				if (luminance[row * gridColumns + col] > luminance[row * gridColumns + col + 1]) {
+					hash[bit >>> 6] |= 1L << (bit & 63);
+				}
+				bit++;
+			}
+		}
+		return hash;
+	}
+
+	/**
+	 * Counts the number of different bits between two hashes.
+	 *
+	 * @param first  First hash.
+	 * @param second Second hash.
+	 * @return Hamming distance, or {@link #HASH_BITS} if the hashes are not comparable.
+	 */
+	public static int hammingDistance(long[] first, long[] second) {
+		if (first == null || second == null || first.length != second.length) {
+			return HASH_BITS;
+		}
+		int distance = 0;
+		for (int i = 0; i < first.length; i++) {
+			distance += Long.bitCount(first[i] ^ second[i]);
+		}
+		return distance;
+	}
+}
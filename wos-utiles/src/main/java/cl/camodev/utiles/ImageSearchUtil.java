@@ -2,10 +2,17 @@ package cl.camodev.utiles;
 
 import java.io.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 
 import org.opencv.core.Core;
 import org.opencv.core.CvType;
@@ -13,6 +20,7 @@ import org.opencv.core.Mat;
 import org.opencv.core.MatOfByte;
 import org.opencv.core.Point;
 import org.opencv.core.Rect;
+import org.opencv.core.Size;
 import org.opencv.imgcodecs.Imgcodecs;
 import org.opencv.imgproc.Imgproc;
 
@@ -24,8 +32,18 @@ import org.slf4j.*;
 public class ImageSearchUtil {
 	private static final Logger logger = LoggerFactory.getLogger(ImageSearchUtil.class);
 
-	// Cache thread-safe para templates precargados
-	private static final ConcurrentHashMap<String, Mat> templateCache = new ConcurrentHashMap<>();
+	// Presupuesto de memoria nativa por defecto para los templates decodificados
+	public static final long DEFAULT_TEMPLATE_CACHE_BUDGET_BYTES = 16L * 1024 * 1024;
+
+	// Cache LRU de templates decodificados, protegido por su propio monitor
+	private static final LinkedHashMap<String, Mat> templateCache = new LinkedHashMap<>(64, 0.75f, true);
+
+	// Memoria nativa ocupada por los templates del cache y sus máscaras, y su límite
+	private static long templateCacheBytes = 0;
+	private static long templateCacheBudgetBytes = DEFAULT_TEMPLATE_CACHE_BUDGET_BYTES;
+
+	// Listener opcional notificado cada vez que se usa un template
+	private static volatile Consumer<String> templateUsageListener;
 
 	// Pool de threads personalizado para operaciones de OpenCV
 	private static final ForkJoinPool openCVThreadPool = new ForkJoinPool(
@@ -35,51 +53,34 @@ public class ImageSearchUtil {
 	// Cache para byte arrays de templates
 	private static final ConcurrentHashMap<String, byte[]> templateBytesCache = new ConcurrentHashMap<>();
 
-	// Estado de inicialización del cache
-	private static volatile boolean cacheInitialized = false;
+	// Cache de máscaras de templates (NO_MASK si el template no tiene máscara), se desaloja junto con su template
+	private static final ConcurrentHashMap<String, TemplateMask> templateMaskCache = new ConcurrentHashMap<>();
 
-	static {
-		// Inicialización automática del cache en background
-		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-			openCVThreadPool.shutdown();
-			// Limpiar cache y liberar memoria de OpenCV
-			templateCache.values().forEach(Mat::release);
-			templateCache.clear();
-			templateBytesCache.clear();
-		}));
+	// Sufijo del recurso opcional que define la máscara de un template
+	private static final String MASK_SUFFIX = "_mask.png";
 
-		// Precargar todos los templates del enum en background
-		initializeTemplateCache();
-	}
+	// Tamaño mínimo del template para evaluar primero el nivel reducido de la pirámide
+	private static final int COARSE_MIN_TEMPLATE_SIZE = 16;
 
-	/**
-	 * Inicializa el cache de templates cargando todos los templates del enum EnumTemplates
-	 */
-	private static void initializeTemplateCache() {
-		if (cacheInitialized) return;
+	// Margen (en puntos porcentuales) bajo el umbral con el que se descarta un match en el nivel reducido
+	private static final double COARSE_REJECTION_MARGIN = 20.0;
 
-		openCVThreadPool.submit(() -> {
-			try {
-				logger.info("Caching templates...");
-
-				// Precargar todos los templates del enum
-				for (EnumTemplates enumTemplate : EnumTemplates.values()) {
-					String templatePath = enumTemplate.getTemplate();
-					try {
-						loadTemplateOptimized(templatePath);
-						logger.debug("Template {} cached successfully", templatePath);
-					} catch (Exception e) {
-						logger.warn("Error precargando template {}: {}", templatePath, e.getMessage());
-					}
-				}
+	// Cache de pixeles de templates para el matcher en Java (vacío si el template no es apto)
+	private static final ConcurrentHashMap<String, Optional<SmallTemplateMatcher.PixelTemplate>> pixelTemplateCache = new ConcurrentHashMap<>();
 
-				cacheInitialized = true;
-				logger.info("Template cache initialized with {} templates", templateCache.size());
+	// Separador entre la ruta del template y la escala de su variante redimensionada
+	private static final char SCALE_SEPARATOR = '@';
 
-			} catch (Exception e) {
-				logger.error("Error initializing template cache: {}", e.getMessage());
-			}
-		});
+	// Optimizaciones del matching, desactivables para medir su efecto en la precisión
+	private static volatile boolean smallTemplateMatcherEnabled = true;
+	private static volatile boolean coarseRejectionEnabled = true;
+
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			openCVThreadPool.shutdown();
+			// Limpiar cache y liberar memoria de OpenCV
+			clearCache();
+		}));
 	}
 
 	/**
@@ -135,15 +136,23 @@ public class ImageSearchUtil {
 	 * Método optimizado para carga y cache de templates
 	 */
 	private static Mat loadTemplateOptimized(String templateResourcePath) {
+		String resourcePath = baseTemplatePath(templateResourcePath);
+		Consumer<String> listener = templateUsageListener;
+		if (listener != null) {
+			listener.accept(resourcePath);
+		}
+
 		// Intentar obtener del cache primero
-		Mat cachedTemplate = templateCache.get(templateResourcePath);
-		if (cachedTemplate != null && !cachedTemplate.empty()) {
-			return cachedTemplate.clone(); // Retornar copia para thread safety
+		synchronized (templateCache) {
+			Mat cachedTemplate = templateCache.get(templateResourcePath);
+			if (cachedTemplate != null && !cachedTemplate.empty()) {
+				return cachedTemplate.clone(); // Retornar copia para thread safety
+			}
 		}
 
 		try {
 			// Cargar bytes del cache o del recurso
-			byte[] templateBytes = templateBytesCache.computeIfAbsent(templateResourcePath, path -> {
+			byte[] templateBytes = templateBytesCache.computeIfAbsent(resourcePath, path -> {
 				try (InputStream is = ImageSearchUtil.class.getResourceAsStream(path)) {
 					if (is == null) {
 						logger.error("Template resource not found: {}", path);
@@ -163,10 +172,11 @@ public class ImageSearchUtil {
 			// Decodificar template
 			MatOfByte templateMatOfByte = new MatOfByte(templateBytes);
 			Mat template = Imgcodecs.imdecode(templateMatOfByte, Imgcodecs.IMREAD_COLOR);
+			template = resizeToScale(template, templateScale(templateResourcePath), Imgproc.INTER_AREA);
 
 			if (!template.empty()) {
 				// Guardar en cache (clone para evitar modificaciones)
-				templateCache.put(templateResourcePath, template.clone());
+				cacheTemplate(templateResourcePath, template.clone());
 			}
 
 			return template;
@@ -177,51 +187,546 @@ public class ImageSearchUtil {
 		}
 	}
 
+	/**
+	 * Adds a decoded template to the LRU cache, evicting the least recently used templates while the cache is over budget.
+	 */
+	private static void cacheTemplate(String templateResourcePath, Mat template) {
+		synchronized (templateCache) {
+			Mat previous = templateCache.put(templateResourcePath, template);
+			if (previous != null) {
+				templateCacheBytes -= sizeOf(previous);
+				previous.release();
+			}
+			templateCacheBytes += sizeOf(template);
+			evictTemplatesOverBudget();
+		}
+	}
+
+	/**
+	 * Evicts cold templates until the cache fits its budget. Must be called holding the cache monitor.
+	 */
+	private static void evictTemplatesOverBudget() {
+		Iterator<Map.Entry<String, Mat>> iterator = templateCache.entrySet().iterator();
+		// Siempre se conserva al menos el template más reciente
+		while (templateCacheBytes > templateCacheBudgetBytes && templateCache.size() > 1 && iterator.hasNext()) {
+			Map.Entry<String, Mat> eldest = iterator.next();
+			iterator.remove();
+			templateCacheBytes -= sizeOf(eldest.getValue());
+			eldest.getValue().release();
+			templateBytesCache.remove(baseTemplatePath(eldest.getKey()));
+			Optional<SmallTemplateMatcher.PixelTemplate> pixelTemplate = pixelTemplateCache.remove(eldest.getKey());
+			if (pixelTemplate != null && pixelTemplate.isPresent()) {
+				templateCacheBytes -= pixelTemplate.get().sizeBytes();
+			}
+			// Una búsqueda en curso puede estar usando la máscara; no se libera, sus Mat se liberan al recolectarse
+			TemplateMask mask = templateMaskCache.remove(eldest.getKey());
+			if (mask != null) {
+				templateCacheBytes -= mask.sizeBytes();
+			}
+			logger.debug("Template {} evicted from cache", eldest.getKey());
+		}
+	}
+
+	private static long sizeOf(Mat mat) {
+		return mat.total() * mat.elemSize();
+	}
+
+	/**
+	 * Path of a template resized by the given scale, to search it on screens whose resolution differs from the one the
+	 * template was captured at. The resized template (and its mask) is built from the original resource the first time
+	 * it is used and cached like any other template.
+	 *
+	 * @param templateResourcePath Template resource path.
+	 * @param scale                Scale factor, 1 being the original size.
+	 * @return The path to use in searches.
+	 */
+	public static String scaledTemplatePath(String templateResourcePath, double scale) {
+		if (Math.abs(scale - 1.0) < 0.001) {
+			return templateResourcePath;
+		}
+		return templateResourcePath + SCALE_SEPARATOR + String.format(Locale.ROOT, "%.3f", scale);
+	}
+
+	private static String baseTemplatePath(String templatePath) {
+		int separator = templatePath.lastIndexOf(SCALE_SEPARATOR);
+		return separator < 0 ? templatePath : templatePath.substring(0, separator);
+	}
+
+	private static double templateScale(String templatePath) {
+		int separator = templatePath.lastIndexOf(SCALE_SEPARATOR);
+		if (separator < 0) {
+			return 1.0;
+		}
+		try {
+			return Double.parseDouble(templatePath.substring(separator + 1));
+		} catch (NumberFormatException e) {
+			logger.warn("Invalid scale in template path {}", templatePath);
+			return 1.0;
+		}
+	}
+
+	/**
+	 * Resizes an image by a scale factor, releasing the original. Both dimensions are kept at least one pixel.
+	 */
+	private static Mat resizeToScale(Mat image, double scale, int interpolation) {
+		if (image.empty() || Math.abs(scale - 1.0) < 0.001) {
+			return image;
+		}
+		Size size = new Size(Math.max(1, Math.round(image.cols() * scale)), Math.max(1, Math.round(image.rows() * scale)));
+		Mat resized = new Mat();
+		Imgproc.resize(image, resized, size, 0, 0, interpolation);
+		image.release();
+		return resized;
+	}
+
+	/**
+	 * Sets the native memory budget of the decoded template cache, evicting templates if it is already over it.
+	 *
+	 * @param budgetBytes Maximum bytes of decoded templates kept in memory.
+	 */
+	public static void setTemplateCacheBudget(long budgetBytes) {
+		synchronized (templateCache) {
+			templateCacheBudgetBytes = budgetBytes;
+			evictTemplatesOverBudget();
+		}
+	}
+
+	/**
+	 * Enables or disables the pure Java matcher for small searches. When disabled every search uses OpenCV.
+	 */
+	public static void setSmallTemplateMatcherEnabled(boolean enabled) {
+		smallTemplateMatcherEnabled = enabled;
+	}
+
+	/**
+	 * Enables or disables the early rejection of masked templates on the half resolution pyramid level.
+	 */
+	public static void setCoarseRejectionEnabled(boolean enabled) {
+		coarseRejectionEnabled = enabled;
+	}
+
+	/**
+	 * Registers a listener notified with the path of every template used in a search, or null to remove it.
+	 */
+	public static void setTemplateUsageListener(Consumer<String> listener) {
+		templateUsageListener = listener;
+	}
+
+	/**
+	 * Loads the mask of a template, if it has one.
+	 * <p>
+	 * The mask is taken from a {@code *_mask.png} resource next to the template (any non black pixel is part of the
+	 * template) or, if there is no such resource, from the alpha channel of the template itself. Fully opaque templates
+	 * have no mask and keep using plain matching.
+	 * </p>
+	 */
+	private static TemplateMask loadTemplateMask(String templateResourcePath) {
+		TemplateMask cached = templateMaskCache.get(templateResourcePath);
+		if (cached != null) {
+			return cached;
+		}
+
+		// Se calcula fuera del mapa, cargar el template puede desalojar entradas de este mismo cache
+		TemplateMask templateMask = readTemplateMask(templateResourcePath);
+		synchronized (templateCache) {
+			TemplateMask previous = templateMaskCache.putIfAbsent(templateResourcePath, templateMask);
+			if (previous != null) {
+				templateMask.release();
+				return previous;
+			}
+			templateCacheBytes += templateMask.sizeBytes();
+			evictTemplatesOverBudget();
+		}
+		return templateMask;
+	}
+
+	private static TemplateMask readTemplateMask(String path) {
+		Mat mask = null;
+		Mat template = null;
+		try {
+			mask = readMaskResource(path);
+			if (mask == null || mask.empty()) {
+				return TemplateMask.NO_MASK;
+			}
+
+			// Un template totalmente opaco no necesita máscara
+			if (Core.countNonZero(mask) == mask.total()) {
+				return TemplateMask.NO_MASK;
+			}
+
+			template = loadTemplateOptimized(path);
+			if (template.empty() || template.cols() != mask.cols() || template.rows() != mask.rows()) {
+				logger.warn("Mask of template {} does not match the template size, ignoring it", path);
+				return TemplateMask.NO_MASK;
+			}
+
+			logger.debug("Template {} loaded with mask", path);
+			TemplateMask templateMask = new TemplateMask(mask, template);
+			mask = null;
+			return templateMask;
+		} catch (Exception e) {
+			logger.warn("Error loading mask for template {}: {}", path, e.getMessage());
+			return TemplateMask.NO_MASK;
+		} finally {
+			if (mask != null) mask.release();
+			if (template != null) template.release();
+		}
+	}
+
+	/**
+	 * Reads the binary mask of a template from its companion resource or from its alpha channel.
+	 *
+	 * @return The 8 bit mask (0 or 255), or null if the template has neither.
+	 */
+	private static Mat readMaskResource(String templatePath) throws IOException {
+		String templateResourcePath = baseTemplatePath(templatePath);
+		String maskPath = templateResourcePath.endsWith(".png")
+				? templateResourcePath.substring(0, templateResourcePath.length() - 4) + MASK_SUFFIX
+				: templateResourcePath + MASK_SUFFIX;
+
+		Mat raw;
+		try (InputStream is = ImageSearchUtil.class.getResourceAsStream(maskPath)) {
+			if (is != null) {
+				raw = Imgcodecs.imdecode(new MatOfByte(is.readAllBytes()), Imgcodecs.IMREAD_GRAYSCALE);
+			} else {
+				byte[] templateBytes = templateBytesCache.get(templateResourcePath);
+				if (templateBytes == null) {
+					return null;
+				}
+				Mat unchanged = Imgcodecs.imdecode(new MatOfByte(templateBytes), Imgcodecs.IMREAD_UNCHANGED);
+				if (unchanged.channels() != 4) {
+					unchanged.release();
+					return null;
+				}
+				raw = new Mat();
+				Core.extractChannel(unchanged, raw, 3);
+				unchanged.release();
+			}
+		}
+
+		// La máscara se escala sin interpolar para que siga siendo binaria
+		raw = resizeToScale(raw, templateScale(templatePath), Imgproc.INTER_NEAREST);
+		Mat mask = new Mat();
+		Imgproc.threshold(raw, mask, 0, 255, Imgproc.THRESH_BINARY);
+		raw.release();
+		return mask;
+	}
+
+	/**
+	 * Gets the pixels of a template for {@link SmallTemplateMatcher}, copying them from the loaded template the first
+	 * time. Masked templates are not supported by it. The pixels count towards the template cache budget.
+	 */
+	private static Optional<SmallTemplateMatcher.PixelTemplate> loadPixelTemplate(String templateResourcePath, Mat template) {
+		Optional<SmallTemplateMatcher.PixelTemplate> cached = pixelTemplateCache.get(templateResourcePath);
+		if (cached != null) {
+			return cached;
+		}
+
+		// Se calcula fuera del mapa, cargar la máscara puede desalojar entradas de este mismo cache
+		Optional<SmallTemplateMatcher.PixelTemplate> pixelTemplate;
+		if (template.type() != CvType.CV_8UC3 || !template.isContinuous() || loadTemplateMask(templateResourcePath).hasMask()) {
+			pixelTemplate = Optional.empty();
+		} else {
+			byte[] pixels = new byte[(int) (template.total() * template.channels())];
+			template.get(0, 0, pixels);
+			pixelTemplate = Optional.of(new SmallTemplateMatcher.PixelTemplate(pixels, template.cols(), template.rows()));
+		}
+		synchronized (templateCache) {
+			Optional<SmallTemplateMatcher.PixelTemplate> previous = pixelTemplateCache.putIfAbsent(templateResourcePath, pixelTemplate);
+			if (previous != null) {
+				return previous;
+			}
+			if (pixelTemplate.isPresent()) {
+				templateCacheBytes += pixelTemplate.get().sizeBytes();
+				evictTemplatesOverBudget();
+			}
+		}
+		return pixelTemplate;
+	}
+
+	/**
+	 * Searches a small template with {@link SmallTemplateMatcher} on the BGR bytes of the frame. If the byte view of the
+	 * frame was not computed by an earlier search, only the rows of the ROI are copied out of the image.
+	 */
+	private static DTOImageSearchResult matchSmallTemplate(ImageFrame frame, String templateResourcePath, SmallTemplateMatcher.PixelTemplate template,
+			Rect roi, double thresholdPercentage, boolean logBelowThreshold) {
+		Mat image = frame.getBgr();
+		int stride = image.cols() * image.channels();
+		byte[] pixels;
+		int roiY;
+		if (frame.hasBgrBytes()) {
+			pixels = frame.getBgrBytes();
+			roiY = roi.y;
+		} else {
+			pixels = new byte[roi.height * stride];
+			image.get(roi.y, 0, pixels);
+			roiY = 0;
+		}
+
+		SmallTemplateMatcher.Match match = SmallTemplateMatcher.findBest(pixels, stride, roi.x, roiY, roi.width, roi.height, template, thresholdPercentage / 100.0);
+		double matchPercentage = match.getScore() * 100.0;
+
+		if (matchPercentage < thresholdPercentage) {
+			if (logBelowThreshold) {
+				logger.warn("Template {} match percentage {} below threshold {}", templateResourcePath, matchPercentage, thresholdPercentage);
+			}
+			return new DTOImageSearchResult(false, null, matchPercentage);
+		}
+
+		double centerX = match.getX() + roi.x + (template.getWidth() / 2.0);
+		double centerY = match.getY() + roi.y + (template.getHeight() / 2.0);
+		return new DTOImageSearchResult(true, new DTOPoint((int) centerX, (int) centerY), matchPercentage);
+	}
+
+	/**
+	 * Mask of a template together with its half resolution versions used for early rejection.
+	 */
+	private static final class TemplateMask {
+		private static final TemplateMask NO_MASK = new TemplateMask();
+
+		private final Mat mask;
+		private final Mat coarseTemplate;
+		private final Mat coarseMask;
+
+		private TemplateMask() {
+			this.mask = null;
+			this.coarseTemplate = null;
+			this.coarseMask = null;
+		}
+
+		private TemplateMask(Mat mask, Mat template) {
+			this.mask = mask;
+			if (Math.min(template.cols(), template.rows()) >= COARSE_MIN_TEMPLATE_SIZE) {
+				this.coarseTemplate = new Mat();
+				Imgproc.pyrDown(template, coarseTemplate);
+				this.coarseMask = new Mat();
+				Imgproc.resize(mask, coarseMask, coarseTemplate.size(), 0, 0, Imgproc.INTER_NEAREST);
+			} else {
+				this.coarseTemplate = null;
+				this.coarseMask = null;
+			}
+		}
+
+		/**
+		 * Runs TM_CCOEFF_NORMED, ignoring the pixels outside the mask if there is one.
+		 */
+		private void match(Mat image, Mat template, Mat result) {
+			if (mask == null) {
+				Imgproc.matchTemplate(image, template, result, Imgproc.TM_CCOEFF_NORMED);
+				return;
+			}
+			Imgproc.matchTemplate(image, template, result, Imgproc.TM_CCOEFF_NORMED, mask);
+			sanitize(result);
+		}
+
+		/**
+		 * Best match percentage at half resolution, used to discard searches before the full resolution match.
+		 * The half resolution image is the first pyramid level of the frame, shared with other searches.
+		 *
+		 * @return The coarse match percentage, or 100 when the coarse level can not be evaluated.
+		 */
+		private double coarseMatchPercentage(ImageFrame frame, Rect roi) {
+			if (coarseTemplate == null) {
+				return 100.0;
+			}
+
+			Mat level = frame.getPyramidLevel(1);
+			int x = roi.x / 2;
+			int y = roi.y / 2;
+			Rect coarseRoi = new Rect(x, y, Math.min(roi.width / 2, level.cols() - x), Math.min(roi.height / 2, level.rows() - y));
+			if (coarseRoi.width < coarseTemplate.cols() || coarseRoi.height < coarseTemplate.rows()) {
+				return 100.0;
+			}
+
+			Mat coarseImage = new Mat(level, coarseRoi);
+			Mat result = new Mat();
+			try {
+				Imgproc.matchTemplate(coarseImage, coarseTemplate, result, Imgproc.TM_CCOEFF_NORMED, coarseMask);
+				sanitize(result);
+				return Core.minMaxLoc(result).maxVal * 100.0;
+			} finally {
+				coarseImage.release();
+				result.release();
+			}
+		}
+
+		/**
+		 * Masked matching yields NaN or infinite values on flat areas, those are not matches.
+		 */
+		private static void sanitize(Mat result) {
+			Core.patchNaNs(result, 0);
+			Imgproc.threshold(result, result, 1.0, 0, Imgproc.THRESH_TOZERO_INV);
+		}
+
+		private boolean hasMask() {
+			return mask != null;
+		}
+
+		private long sizeBytes() {
+			return (mask != null ? sizeOf(mask) : 0) + (coarseTemplate != null ? sizeOf(coarseTemplate) : 0) + (coarseMask != null ? sizeOf(coarseMask) : 0);
+		}
+
+		private void release() {
+			if (mask != null) mask.release();
+			if (coarseTemplate != null) coarseTemplate.release();
+			if (coarseMask != null) coarseMask.release();
+		}
+	}
+
 	/**
 	 * Versión optimizada del método buscarTemplate con cache y mejor gestión de memoria
 	 */
 	public static DTOImageSearchResult buscarTemplateOptimized(byte[] image, String templateResourcePath,
 			DTOPoint topLeftCorner, DTOPoint bottomRightCorner, double thresholdPercentage) {
 
-		Mat imagenPrincipal = null;
-		Mat template = null;
-		Mat imagenROI = null;
-		Mat resultado = null;
+		// Decodificación de imagen principal, liberada junto a sus vistas derivadas
+		try (ImageFrame frame = ImageFrame.decode(image)) {
+			return buscarTemplate(frame, templateResourcePath, topLeftCorner, bottomRightCorner, thresholdPercentage);
+		}
+	}
 
+	/**
+	 * Searches a template in an already decoded frame.
+	 * <p>
+	 * Same as {@link #buscarTemplate(byte[], String, DTOPoint, DTOPoint, double)}, but the frame and its derived views are
+	 * shared with any other search done on it.
+	 * </p>
+	 *
+	 * @param frame                Decoded frame.
+	 * @param templateResourcePath Path of the template within the jar resources.
+	 * @param topLeftCorner        Point of the upper left corner of the ROI.
+	 * @param bottomRightCorner    Point of the lower right corner of the ROI.
+	 * @param thresholdPercentage  Match threshold as a percentage (0 to 100).
+	 * @return The best match.
+	 */
+	public static DTOImageSearchResult buscarTemplate(ImageFrame frame, String templateResourcePath,
+			DTOPoint topLeftCorner, DTOPoint bottomRightCorner, double thresholdPercentage) {
 		try {
 			// Validación rápida de ROI
-			int roiX = topLeftCorner.getX();
-			int roiY = topLeftCorner.getY();
-			int roiWidth = bottomRightCorner.getX() - topLeftCorner.getX();
-			int roiHeight = bottomRightCorner.getY() - topLeftCorner.getY();
-
-			if (roiWidth <= 0 || roiHeight <= 0) {
+			Rect roi = toRoi(topLeftCorner, bottomRightCorner);
+			if (roi == null) {
 				logger.error("Invalid ROI dimensions");
 				return new DTOImageSearchResult(false, null, 0.0);
 			}
 
-			// Decodificación de imagen principal (reutilizable)
-			MatOfByte matOfByte = new MatOfByte(image);
-			imagenPrincipal = Imgcodecs.imdecode(matOfByte, Imgcodecs.IMREAD_COLOR);
+			if (frame.isEmpty()) {
+				return new DTOImageSearchResult(false, null, 0.0);
+			}
+
+			return matchTemplate(frame, templateResourcePath, roi, thresholdPercentage, true);
+
+		} catch (Exception e) {
+			logger.error("Exception during optimized template search", e);
+			return new DTOImageSearchResult(false, null, 0.0);
+		}
+	}
 
-			if (imagenPrincipal.empty()) {
+	/**
+	 * Searches several templates in the same image, decoding the image only once.
+	 *
+	 * @see #searchTemplatesBatch(ImageFrame, Collection, DTOPoint, DTOPoint, double)
+	 */
+	public static Map<String, DTOImageSearchResult> searchTemplatesBatch(byte[] image, Collection<String> templateResourcePaths,
+			DTOPoint topLeftCorner, DTOPoint bottomRightCorner, double thresholdPercentage) {
+		try (ImageFrame frame = ImageFrame.decode(image)) {
+			return searchTemplatesBatch(frame, templateResourcePaths, topLeftCorner, bottomRightCorner, thresholdPercentage);
+		}
+	}
+
+	/**
+	 * Searches several templates in the same frame.
+	 * <p>
+	 * Every template is matched against the same ROI using TM_CCOEFF_NORMED. The result of each template is reported
+	 * even when it is below the threshold, so callers can apply their own per-template thresholds using the match percentage.
+	 * </p>
+	 *
+	 * @param frame                 Decoded frame.
+	 * @param templateResourcePaths Paths of the templates within the jar resources.
+	 * @param topLeftCorner         Point of the upper left corner of the ROI.
+	 * @param bottomRightCorner     Point of the lower right corner of the ROI.
+	 * @param thresholdPercentage   Match threshold as a percentage (0 to 100) used to flag each result as found.
+	 * @return Results keyed by template path, in the same order as the given paths.
+	 */
+	public static Map<String, DTOImageSearchResult> searchTemplatesBatch(ImageFrame frame, Collection<String> templateResourcePaths,
+			DTOPoint topLeftCorner, DTOPoint bottomRightCorner, double thresholdPercentage) {
+
+		Map<String, DTOImageSearchResult> results = new LinkedHashMap<>();
+		templateResourcePaths.forEach(path -> results.put(path, new DTOImageSearchResult(false, null, 0.0)));
+
+		try {
+			Rect roi = toRoi(topLeftCorner, bottomRightCorner);
+			if (roi == null) {
+				logger.error("Invalid ROI dimensions");
+				return results;
+			}
+
+			if (frame.isEmpty()) {
+				return results;
+			}
+
+			for (String templatePath : templateResourcePaths) {
+				results.put(templatePath, matchTemplate(frame, templatePath, roi, thresholdPercentage, false));
+			}
+		} catch (Exception e) {
+			logger.error("Exception during batch template search", e);
+		}
+		return results;
+	}
+
+	/**
+	 * Builds the ROI rectangle from its corners.
+	 *
+	 * @return The ROI, or null if its dimensions are not valid.
+	 */
+	private static Rect toRoi(DTOPoint topLeftCorner, DTOPoint bottomRightCorner) {
+		int roiWidth = bottomRightCorner.getX() - topLeftCorner.getX();
+		int roiHeight = bottomRightCorner.getY() - topLeftCorner.getY();
+		if (roiWidth <= 0 || roiHeight <= 0) {
+			return null;
+		}
+		return new Rect(topLeftCorner.getX(), topLeftCorner.getY(), roiWidth, roiHeight);
+	}
+
+	/**
+	 * Busca el mejor match de un template dentro del ROI de una imagen ya decodificada.
+	 *
+	 * @param logBelowThreshold Si se debe registrar un warning cuando el match no alcanza el umbral.
+	 */
+	private static DTOImageSearchResult matchTemplate(ImageFrame frame, String templateResourcePath, Rect roi, double thresholdPercentage, boolean logBelowThreshold) {
+		Mat imagenPrincipal = frame.getBgr();
+		Mat template = null;
+		Mat imagenROI = null;
+		Mat resultado = null;
+
+		try {
+			// Validación de ROI vs imagen
+			if (roi.x + roi.width > imagenPrincipal.cols() || roi.y + roi.height > imagenPrincipal.rows()) {
+				logger.error("ROI exceeds image dimensions");
 				return new DTOImageSearchResult(false, null, 0.0);
 			}
 
+			// Búsquedas pequeñas: matching en Java sin asignaciones nativas
+			boolean small = smallTemplateMatcherEnabled && imagenPrincipal.type() == CvType.CV_8UC3;
+			Optional<SmallTemplateMatcher.PixelTemplate> cachedPixels = small ? pixelTemplateCache.get(templateResourcePath) : null;
+			if (cachedPixels != null && cachedPixels.isPresent() && SmallTemplateMatcher.accepts(roi.width, roi.height, cachedPixels.get())) {
+				return matchSmallTemplate(frame, templateResourcePath, cachedPixels.get(), roi, thresholdPercentage, logBelowThreshold);
+			}
+
 			// Cargar template optimizado con cache
 			template = loadTemplateOptimized(templateResourcePath);
 			if (template.empty()) {
 				return new DTOImageSearchResult(false, null, 0.0);
 			}
 
-			// Validación de ROI vs imagen
-			if (roiX + roiWidth > imagenPrincipal.cols() || roiY + roiHeight > imagenPrincipal.rows()) {
-				logger.error("ROI exceeds image dimensions");
-				return new DTOImageSearchResult(false, null, 0.0);
+			// Los pixeles se copian solo para los templates que el matcher en Java acepta
+			if (small && cachedPixels == null && SmallTemplateMatcher.accepts(roi.width, roi.height, template.cols(), template.rows())) {
+				SmallTemplateMatcher.PixelTemplate pixelTemplate = loadPixelTemplate(templateResourcePath, template).orElse(null);
+				if (pixelTemplate != null) {
+					return matchSmallTemplate(frame, templateResourcePath, pixelTemplate, roi, thresholdPercentage, logBelowThreshold);
+				}
 			}
 
 			// Crear ROI
-			Rect roi = new Rect(roiX, roiY, roiWidth, roiHeight);
 			imagenROI = new Mat(imagenPrincipal, roi);
 
 			// Verificación de tamaño optimizada
@@ -231,16 +736,28 @@ public class ImageSearchUtil {
 				return new DTOImageSearchResult(false, null, 0.0);
 			}
 
+			// Descarte temprano en el nivel reducido para templates con máscara
+			TemplateMask mask = loadTemplateMask(templateResourcePath);
+			double coarsePercentage = coarseRejectionEnabled ? mask.coarseMatchPercentage(frame, roi) : 100.0;
+			if (coarsePercentage < thresholdPercentage - COARSE_REJECTION_MARGIN) {
+				if (logBelowThreshold) {
+					logger.warn("Template {} coarse match percentage {} below threshold {}", templateResourcePath, coarsePercentage, thresholdPercentage);
+				}
+				return new DTOImageSearchResult(false, null, coarsePercentage);
+			}
+
 			// Template matching
 			resultado = new Mat(resultRows, resultCols, CvType.CV_32FC1);
-			Imgproc.matchTemplate(imagenROI, template, resultado, Imgproc.TM_CCOEFF_NORMED);
+			mask.match(imagenROI, template, resultado);
 
 			// Búsqueda del mejor match
 			Core.MinMaxLocResult mmr = Core.minMaxLoc(resultado);
 			double matchPercentage = mmr.maxVal * 100.0;
 
 			if (matchPercentage < thresholdPercentage) {
-				logger.warn("Template {} match percentage {} below threshold {}", templateResourcePath, matchPercentage, thresholdPercentage);
+				if (logBelowThreshold) {
+					logger.warn("Template {} match percentage {} below threshold {}", templateResourcePath, matchPercentage, thresholdPercentage);
+				}
 				return new DTOImageSearchResult(false, null, matchPercentage);
 			}
 
@@ -251,12 +768,7 @@ public class ImageSearchUtil {
 
 			return new DTOImageSearchResult(true, new DTOPoint((int) centerX, (int) centerY), matchPercentage);
 
-		} catch (Exception e) {
-			logger.error("Exception during optimized template search", e);
-			return new DTOImageSearchResult(false, null, 0.0);
 		} finally {
-			// Liberación explícita de memoria OpenCV
-			if (imagenPrincipal != null) imagenPrincipal.release();
 			if (template != null) template.release();
 			if (imagenROI != null) imagenROI.release();
 			if (resultado != null) resultado.release();
@@ -283,8 +795,22 @@ public class ImageSearchUtil {
 			String templateResourcePath, DTOPoint topLeftCorner, DTOPoint bottomRightCorner,
 			double thresholdPercentage, int maxResults) {
 
+		// Decodificación optimizada, liberada junto a sus vistas derivadas
+		try (ImageFrame frame = ImageFrame.decode(image)) {
+			return searchTemplateMultiple(frame, templateResourcePath, topLeftCorner, bottomRightCorner, thresholdPercentage, maxResults);
+		}
+	}
+
+	/**
+	 * Searches multiple matches of a template in an already decoded frame.
+	 *
+	 * @see #searchTemplateMultiple(byte[], String, DTOPoint, DTOPoint, double, int)
+	 */
+	public static List<DTOImageSearchResult> searchTemplateMultiple(ImageFrame frame,
+			String templateResourcePath, DTOPoint topLeftCorner, DTOPoint bottomRightCorner,
+			double thresholdPercentage, int maxResults) {
+
 		List<DTOImageSearchResult> results = new ArrayList<>();
-		Mat mainImage = null;
 		Mat template = null;
 		Mat imageROI = null;
 		Mat matchResult = null;
@@ -301,13 +827,10 @@ public class ImageSearchUtil {
 				return results;
 			}
 
-			// Decodificación optimizada
-			MatOfByte matOfByte = new MatOfByte(image);
-			mainImage = Imgcodecs.imdecode(matOfByte, Imgcodecs.IMREAD_COLOR);
-
-			if (mainImage.empty()) {
+			if (frame.isEmpty()) {
 				return results;
 			}
+			Mat mainImage = frame.getBgr();
 
 			// Cargar template con cache
 			template = loadTemplateOptimized(templateResourcePath);
@@ -330,9 +853,15 @@ public class ImageSearchUtil {
 				return results;
 			}
 
+			// Descarte temprano en el nivel reducido para templates con máscara
+			TemplateMask mask = loadTemplateMask(templateResourcePath);
+			if (coarseRejectionEnabled && mask.coarseMatchPercentage(frame, roi) < thresholdPercentage - COARSE_REJECTION_MARGIN) {
+				return results;
+			}
+
 			// Template matching
 			matchResult = new Mat(resultRows, resultCols, CvType.CV_32FC1);
-			Imgproc.matchTemplate(imageROI, template, matchResult, Imgproc.TM_CCOEFF_NORMED);
+			mask.match(imageROI, template, matchResult);
 
 			// Búsqueda optimizada de múltiples matches
 			double thresholdDecimal = thresholdPercentage / 100.0;
@@ -377,7 +906,6 @@ public class ImageSearchUtil {
 			logger.error("Exception during optimized multiple template search", e);
 		} finally {
 			// Liberación explícita de memoria
-			if (mainImage != null) mainImage.release();
 			if (template != null) template.release();
 			if (imageROI != null) imageROI.release();
 			if (matchResult != null) matchResult.release();
@@ -391,17 +919,43 @@ public class ImageSearchUtil {
 	 * Método para precarga de templates comunes
 	 */
 	public static void preloadTemplate(String templateResourcePath) {
-		openCVThreadPool.submit(() -> loadTemplateOptimized(templateResourcePath));
+		openCVThreadPool.submit(() -> preload(templateResourcePath));
+	}
+
+	/**
+	 * Loads a set of templates in background, typically the templates of a task that is about to run.
+	 * Templates already cached are only marked as recently used.
+	 *
+	 * @param templateResourcePaths Paths of the templates within the jar resources.
+	 * @return Future completed when all the templates are loaded.
+	 */
+	public static CompletableFuture<Void> preloadTemplates(Collection<String> templateResourcePaths) {
+		List<String> paths = new ArrayList<>(templateResourcePaths);
+		return CompletableFuture.runAsync(() -> paths.forEach(ImageSearchUtil::preload), openCVThreadPool);
+	}
+
+	private static void preload(String templateResourcePath) {
+		try {
+			loadTemplateOptimized(templateResourcePath).release();
+			loadTemplateMask(templateResourcePath);
+		} catch (Exception e) {
+			logger.warn("Error precargando template {}: {}", templateResourcePath, e.getMessage());
+		}
 	}
 
 	/**
 	 * Método para limpiar cache manualmente
 	 */
 	public static void clearCache() {
-		templateCache.values().forEach(Mat::release);
-		templateCache.clear();
+		synchronized (templateCache) {
+			templateCache.values().forEach(Mat::release);
+			templateCache.clear();
+			templateMaskCache.values().forEach(TemplateMask::release);
+			templateMaskCache.clear();
+			pixelTemplateCache.clear();
+			templateCacheBytes = 0;
+		}
 		templateBytesCache.clear();
-		cacheInitialized = false;
 	}
 
 	/**
@@ -429,19 +983,14 @@ public class ImageSearchUtil {
 		return searchTemplateMultipleAsync(image, enumTemplate.getTemplate(), topLeftCorner, bottomRightCorner, thresholdPercentage, maxResults);
 	}
 
-	/**
-	 * Verifica si el cache está completamente inicializado
-	 */
-	public static boolean isCacheInitialized() {
-		return cacheInitialized;
-	}
-
 	/**
 	 * Obtiene estadísticas del cache
 	 */
 	public static String getCacheStats() {
-		return String.format("Templates en cache: %d/%d, Bytes cache: %d",
-			templateCache.size(), EnumTemplates.values().length, templateBytesCache.size());
+		synchronized (templateCache) {
+			return String.format("Templates en cache: %d/%d (%d/%d KB), Bytes cache: %d",
+				templateCache.size(), EnumTemplates.values().length, templateCacheBytes / 1024, templateCacheBudgetBytes / 1024, templateBytesCache.size());
+		}
 	}
 
 	public static void loadNativeLibrary(String resourcePath) throws IOException {
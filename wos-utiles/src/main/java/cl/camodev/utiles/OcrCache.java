@@ -0,0 +1,157 @@
+package cl.camodev.utiles;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of OCR results keyed by the pixels of the crop and the settings used to read it.
+ * <p>
+ * Static labels and timers that did not change are read many times within a task and across retries. Two crops with
+ * the same pixels and settings always give the same text, so the second read is answered from the cache without
+ * calling Tesseract. Entries are evicted by least recent use and expire after {@link #TTL_MS}.
+ * </p>
+ */
+public final class OcrCache {
+
+	// Entradas máximas, cada una es solo un texto corto y su clave
+	private static final int MAX_ENTRIES = 512;
+
+	// Tiempo de vida de una entrada
+	private static final long TTL_MS = TimeUnit.MINUTES.toMillis(10);
+
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private static final OcrCache INSTANCE = new OcrCache();
+
+	private record Key(long hash, int width, int height, int type, String settings) {
+	}
+
+	private record Entry(Object value, long created) {
+	}
+
+	private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+	// Desactivable para medir el OCR sin resultados repetidos
+	private volatile boolean enabled = true;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+	private final AtomicLong expirations = new AtomicLong();
+
+	private OcrCache() {
+	}
+
+	public static OcrCache getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Gets the result of a previous read of the same pixels with the same settings.
+	 *
+	 * @param image    Crop read.
+	 * @param settings Profile and preprocessing used to read it.
+	 * @return The cached result, or null if there is none or it expired.
+	 */
+	@SuppressWarnings("unchecked")
+	public <V> V get(BufferedImage image, String settings) {
+		if (!enabled) {
+			return null;
+		}
+		// El hash se calcula fuera del monitor, es lo más costoso de la consulta
+		Key key = key(image, settings);
+		synchronized (this) {
+			Entry entry = entries.get(key);
+			if (entry == null) {
+				misses.incrementAndGet();
+				return null;
+			}
+			if (System.currentTimeMillis() - entry.created() > TTL_MS) {
+				entries.remove(key);
+				expirations.incrementAndGet();
+				misses.incrementAndGet();
+				return null;
+			}
+			hits.incrementAndGet();
+			return (V) entry.value();
+		}
+	}
+
+	/**
+	 * Stores the result of reading a crop with some settings.
+	 */
+	public void put(BufferedImage image, String settings, Object value) {
+		if (!enabled) {
+			return;
+		}
+		Key key = key(image, settings);
+		synchronized (this) {
+			entries.put(key, new Entry(value, System.currentTimeMillis()));
+			Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+			while (entries.size() > MAX_ENTRIES && eldest.hasNext()) {
+				eldest.next();
+				eldest.remove();
+				evictions.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Enables or disables the cache. While disabled every read calls Tesseract and nothing is stored.
+	 */
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public synchronized void clear() {
+		entries.clear();
+	}
+
+	/**
+	 * @return Fraction of the lookups answered from the cache, from 0 to 1.
+	 */
+	public double getHitRate() {
+		long lookups = hits.get() + misses.get();
+		return lookups == 0 ? 0.0 : (double) hits.get() / lookups;
+	}
+
+	/**
+	 * @return Size, hits, misses and evictions of the cache.
+	 */
+	public synchronized String getStats() {
+		return String.format("OCR cache: %d/%d entries, %d hits, %d misses (%.1f%% hit rate), %d evicted, %d expired",
+				entries.size(), MAX_ENTRIES, hits.get(), misses.get(), getHitRate() * 100, evictions.get(), expirations.get());
+	}
+
+	private static Key key(BufferedImage image, String settings) {
+		return new Key(hash(image), image.getWidth(), image.getHeight(), image.getType(), settings);
+	}
+
+	/**
+	 * 64 bit FNV-1a hash of the pixels of the crop.
+	 */
+	private static long hash(BufferedImage image) {
+		long hash = FNV_OFFSET;
+		if (image.getRaster().getDataBuffer() instanceof DataBufferByte buffer
+				&& buffer.getData().length == image.getWidth() * image.getHeight() * image.getRaster().getNumBands()) {
+			for (byte value : buffer.getData()) {
+				hash ^= value & 0xFF;
+				hash *= FNV_PRIME;
+			}
+			return hash;
+		}
+		for (int y = 0; y < image.getHeight(); y++) {
+			for (int x = 0; x < image.getWidth(); x++) {
+				hash ^= image.getRGB(x, y);
+				hash *= FNV_PRIME;
+			}
+		}
+		return hash;
+	}
+}
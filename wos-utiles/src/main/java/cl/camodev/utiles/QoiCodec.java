@@ -0,0 +1,362 @@
+package cl.camodev.utiles;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Lossless image codec in the QOI format ("Quite OK Image", https://qoiformat.org).
+ * <p>
+ * Screen captures are mostly flat UI colors, which QOI compresses to a size close to PNG while encoding and decoding
+ * many times faster, since it is a single pass over the pixels with no entropy coding. This is the format used for
+ * frames stored or passed around inside the bot; PNG is only meant for images exported for people to look at.
+ * Encoding and decoding work on streams, so frames can be written to or read from files and sockets without holding
+ * the encoded copy in memory.
+ * </p>
+ */
+public final class QoiCodec {
+
+	private static final int MAGIC = 0x716f6966; // "qoif"
+	private static final int HEADER_SIZE = 14;
+	private static final byte[] END_MARKER = { 0, 0, 0, 0, 0, 0, 0, 1 };
+
+	private static final int OP_INDEX = 0x00;
+	private static final int OP_DIFF = 0x40;
+	private static final int OP_LUMA = 0x80;
+	private static final int OP_RUN = 0xc0;
+	private static final int OP_RGB = 0xfe;
+	private static final int OP_RGBA = 0xff;
+	private static final int MASK_2 = 0xc0;
+	private static final int MAX_RUN = 62;
+
+	private static final int CHANNELS_RGB = 3;
+	private static final int COLORSPACE_SRGB = 0;
+
+	// Límite de pixeles aceptados al decodificar, para no reservar memoria por una cabecera corrupta
+	private static final long MAX_PIXELS = 400_000_000L;
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private QoiCodec() {
+	}
+
+	/**
+	 * @param data Encoded image bytes.
+	 * @return true if the bytes start with the QOI header.
+	 */
+	public static boolean isQoi(byte[] data) {
+		return data != null && data.length >= HEADER_SIZE && readInt(data, 0) == MAGIC;
+	}
+
+	/**
+	 * Encodes an image. The alpha channel, if any, is discarded.
+	 *
+	 * @param image Image to encode.
+	 * @return The QOI bytes.
+	 */
+	public static byte[] encode(BufferedImage image) {
+		int width = image.getWidth();
+		int height = image.getHeight();
+		ByteArrayOutputStream out = new ByteArrayOutputStream(width * height + HEADER_SIZE + END_MARKER.length);
+		try {
+			encode(rgbPixels(image), width, height, out);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Encodes packed RGB pixels ({@code 0xRRGGBB}, the upper byte is ignored) into a stream.
+	 *
+	 * @param rgb    Pixels, row by row.
+	 * @param width  Image width.
+	 * @param height Image height.
+	 * @param out    Destination stream. It is not closed.
+	 * @throws IOException if the stream can not be written.
+	 */
+	public static void encode(int[] rgb, int width, int height, OutputStream out) throws IOException {
+		if (width <= 0 || height <= 0 || (long) width * height > rgb.length) {
+			throw new IllegalArgumentException("Invalid image size " + width + "x" + height);
+		}
+
+		byte[] buffer = new byte[BUFFER_SIZE];
+		writeInt(buffer, 0, MAGIC);
+		writeInt(buffer, 4, width);
+		writeInt(buffer, 8, height);
+		buffer[12] = CHANNELS_RGB;
+		buffer[13] = COLORSPACE_SRGB;
+		int pos = HEADER_SIZE;
+
+		int[] index = new int[64];
+		int previous = 0xff000000;
+		int run = 0;
+		int last = width * height - 1;
+
+		for (int i = 0; i <= last; i++) {
+			// Cada pixel escribe como máximo 5 bytes: el fin de una racha pendiente (1) y un OP_RGB (4)
+			if (pos > BUFFER_SIZE - 5) {
+				out.write(buffer, 0, pos);
+				pos = 0;
+			}
+
+			int pixel = rgb[i] | 0xff000000;
+			if (pixel == previous) {
+				run++;
+				if (run == MAX_RUN || i == last) {
+					buffer[pos++] = (byte) (OP_RUN | (run - 1));
+					run = 0;
+				}
+				continue;
+			}
+
+			if (run > 0) {
+				buffer[pos++] = (byte) (OP_RUN | (run - 1));
+				run = 0;
+			}
+
+			int r = (pixel >> 16) & 0xff;
+			int g = (pixel >> 8) & 0xff;
+			int b = pixel & 0xff;
+			int hash = hash(r, g, b, 0xff);
+
+			if (index[hash] == pixel) {
+				buffer[pos++] = (byte) (OP_INDEX | hash);
+			} else {
+				index[hash] = pixel;
+
+				int vr = (byte) (r - ((previous >> 16) & 0xff));
+				int vg = (byte) (g - ((previous >> 8) & 0xff));
+				int vb = (byte) (b - (previous & 0xff));
+				int vgr = vr - vg;
+				int vgb = vb - vg;
+
+				if (vr > -3 && vr < 2 && vg > -3 && vg < 2 && vb > -3 && vb < 2) {
+					buffer[pos++] = (byte) (OP_DIFF | (vr + 2) << 4 | (vg + 2) << 2 | (vb + 2));
+				} else if (vgr > -9 && vgr < 8 && vg > -33 && vg < 32 && vgb > -9 && vgb < 8) {
+					buffer[pos++] = (byte) (OP_LUMA | (vg + 32));
+					buffer[pos++] = (byte) ((vgr + 8) << 4 | (vgb + 8));
+				} else {
+					buffer[pos++] = (byte) OP_RGB;
+					buffer[pos++] = (byte) r;
+					buffer[pos++] = (byte) g;
+					buffer[pos++] = (byte) b;
+				}
+			}
+			previous = pixel;
+		}
+
+		if (pos > BUFFER_SIZE - END_MARKER.length) {
+			out.write(buffer, 0, pos);
+			pos = 0;
+		}
+		System.arraycopy(END_MARKER, 0, buffer, pos, END_MARKER.length);
+		pos += END_MARKER.length;
+		out.write(buffer, 0, pos);
+	}
+
+	/**
+	 * Decodes a QOI image.
+	 *
+	 * @param data QOI bytes.
+	 * @return The decoded image.
+	 * @throws IllegalArgumentException if the data is not a valid QOI image.
+	 */
+	public static DecodedImage decode(byte[] data) {
+		try {
+			return decode(new ByteArrayInputStream(data));
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Invalid QOI image", e);
+		}
+	}
+
+	/**
+	 * Decodes a QOI image from a stream. Only the bytes of the image are consumed when the stream supports marking;
+	 * otherwise the stream may be read past the end of the image.
+	 *
+	 * @param in Source stream. It is not closed.
+	 * @return The decoded image, as BGR bytes.
+	 * @throws IOException if the stream can not be read or does not hold a valid QOI image.
+	 */
+	public static DecodedImage decode(InputStream in) throws IOException {
+		Reader reader = new Reader(in);
+		byte[] header = new byte[HEADER_SIZE];
+		for (int i = 0; i < HEADER_SIZE; i++) {
+			header[i] = (byte) reader.read();
+		}
+		if (readInt(header, 0) != MAGIC) {
+			throw new IOException("Not a QOI image");
+		}
+		int width = readInt(header, 4);
+		int height = readInt(header, 8);
+		if (width <= 0 || height <= 0 || (long) width * height > MAX_PIXELS) {
+			throw new IOException("Invalid QOI image size " + width + "x" + height);
+		}
+
+		byte[] bgr = new byte[width * height * 3];
+		int[] index = new int[64];
+		int r = 0, g = 0, b = 0, a = 0xff;
+		int run = 0;
+
+		for (int pos = 0; pos < bgr.length; pos += 3) {
+			if (run > 0) {
+				run--;
+			} else {
+				int op = reader.read();
+				if (op == OP_RGB) {
+					r = reader.read();
+					g = reader.read();
+					b = reader.read();
+				} else if (op == OP_RGBA) {
+					r = reader.read();
+					g = reader.read();
+					b = reader.read();
+					a = reader.read();
+				} else if ((op & MASK_2) == OP_INDEX) {
+					int pixel = index[op];
+					r = (pixel >> 16) & 0xff;
+					g = (pixel >> 8) & 0xff;
+					b = pixel & 0xff;
+					a = (pixel >>> 24) & 0xff;
+				} else if ((op & MASK_2) == OP_DIFF) {
+					r = (r + ((op >> 4) & 0x03) - 2) & 0xff;
+					g = (g + ((op >> 2) & 0x03) - 2) & 0xff;
+					b = (b + (op & 0x03) - 2) & 0xff;
+				} else if ((op & MASK_2) == OP_LUMA) {
+					int second = reader.read();
+					int vg = (op & 0x3f) - 32;
+					r = (r + vg - 8 + ((second >> 4) & 0x0f)) & 0xff;
+					g = (g + vg) & 0xff;
+					b = (b + vg - 8 + (second & 0x0f)) & 0xff;
+				} else {
+					run = op & 0x3f;
+				}
+				index[hash(r, g, b, a)] = a << 24 | r << 16 | g << 8 | b;
+			}
+			bgr[pos] = (byte) b;
+			bgr[pos + 1] = (byte) g;
+			bgr[pos + 2] = (byte) r;
+		}
+
+		reader.finish();
+		return new DecodedImage(width, height, bgr);
+	}
+
+	private static int hash(int r, int g, int b, int a) {
+		return (r * 3 + g * 5 + b * 7 + a * 11) & 63;
+	}
+
+	private static int[] rgbPixels(BufferedImage image) {
+		if ((image.getType() == BufferedImage.TYPE_INT_RGB || image.getType() == BufferedImage.TYPE_INT_ARGB)
+				&& image.getRaster().getDataBuffer() instanceof DataBufferInt dataBuffer
+				&& dataBuffer.getNumBanks() == 1
+				&& dataBuffer.getData().length == image.getWidth() * image.getHeight()) {
+			// Se codifica directamente desde el buffer de la imagen, sin copiarlo
+			return dataBuffer.getData();
+		}
+		return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+	}
+
+	private static int readInt(byte[] data, int offset) {
+		return (data[offset] & 0xff) << 24 | (data[offset + 1] & 0xff) << 16 | (data[offset + 2] & 0xff) << 8 | (data[offset + 3] & 0xff);
+	}
+
+	private static void writeInt(byte[] data, int offset, int value) {
+		data[offset] = (byte) (value >>> 24);
+		data[offset + 1] = (byte) (value >>> 16);
+		data[offset + 2] = (byte) (value >>> 8);
+		data[offset + 3] = (byte) value;
+	}
+
+	/**
+	 * Buffered byte reader, avoiding a virtual call per byte on the source stream.
+	 */
+	private static final class Reader {
+		private final InputStream in;
+		private final byte[] buffer = new byte[BUFFER_SIZE];
+		private int position;
+		private int limit;
+
+		private Reader(InputStream in) {
+			this.in = in;
+		}
+
+		private int read() throws IOException {
+			if (position == limit) {
+				if (in.markSupported()) {
+					in.mark(BUFFER_SIZE);
+				}
+				limit = in.read(buffer, 0, BUFFER_SIZE);
+				position = 0;
+				if (limit <= 0) {
+					limit = 0;
+					throw new EOFException("Truncated QOI image");
+				}
+			}
+			return buffer[position++] & 0xff;
+		}
+
+		/**
+		 * Consumes the end marker and gives back to the stream any byte read past it.
+		 */
+		private void finish() throws IOException {
+			for (byte expected : END_MARKER) {
+				if (read() != expected) {
+					throw new IOException("Missing QOI end marker");
+				}
+			}
+			if (in.markSupported() && position < limit) {
+				in.reset();
+				in.skip(position);
+			}
+		}
+	}
+
+	/**
+	 * Image decoded by {@link QoiCodec}, as BGR bytes row by row without padding.
+	 */
+	public static final class DecodedImage {
+		private final int width;
+		private final int height;
+		private final byte[] bgr;
+
+		private DecodedImage(int width, int height, byte[] bgr) {
+			this.width = width;
+			this.height = height;
+			this.bgr = bgr;
+		}
+
+		public int getWidth() {
+			return width;
+		}
+
+		public int getHeight() {
+			return height;
+		}
+
+		/**
+		 * @return The BGR pixels, in the layout of an OpenCV CV_8UC3 Mat.
+		 */
+		public byte[] getBgr() {
+			return bgr;
+		}
+
+		/**
+		 * @return The image as a {@link BufferedImage} of type {@link BufferedImage#TYPE_INT_RGB}.
+		 */
+		public BufferedImage toBufferedImage() {
+			BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+			int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+			for (int i = 0, pos = 0; i < pixels.length; i++, pos += 3) {
+				pixels[i] = (bgr[pos + 2] & 0xff) << 16 | (bgr[pos + 1] & 0xff) << 8 | (bgr[pos] & 0xff);
+			}
+			return image;
+		}
+	}
+}
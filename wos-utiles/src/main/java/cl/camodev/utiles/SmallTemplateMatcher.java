@@ -0,0 +1,287 @@
+package cl.camodev.utiles;
+
+import java.util.Arrays;
+
+/**
+ * Pure Java implementation of TM_CCOEFF_NORMED for small templates and small regions.
+ * <p>
+ * For tiny searches the fixed cost of OpenCV (native Mat allocations, JNI calls and the result matrix) is higher than the
+ * matching itself. This matcher works directly on the BGR bytes of the frame, allocates nothing native and stops
+ * evaluating a position as soon as it can no longer beat the best score (or the threshold). Scores are the same as
+ * OpenCV's TM_CCOEFF_NORMED on 3 channel images, so thresholds do not change between both implementations.
+ * </p>
+ */
+public final class SmallTemplateMatcher {
+
+	private static final int CHANNELS = 3;
+
+	/**
+	 * Maximum number of multiply-adds (positions x template bytes) for which this matcher is used instead of OpenCV.
+	 */
+	public static final long MAX_OPERATIONS = 4_000_000L;
+
+	private SmallTemplateMatcher() {
+	}
+
+	/**
+	 * Checks if a search is small enough to be faster in Java than in OpenCV.
+	 *
+	 * @param roiWidth  Width of the region to search.
+	 * @param roiHeight Height of the region to search.
+	 * @param template  Template to search.
+	 * @return true if the search should use this matcher.
+	 */
+	public static boolean accepts(int roiWidth, int roiHeight, PixelTemplate template) {
+		return accepts(roiWidth, roiHeight, template.width, template.height);
+	}
+
+	/**
+	 * Checks if a search is small enough to be faster in Java than in OpenCV, before the template pixels are copied.
+	 *
+	 * @param roiWidth       Width of the region to search.
+	 * @param roiHeight      Height of the region to search.
+	 * @param templateWidth  Width of the template.
+	 * @param templateHeight Height of the template.
+	 * @return true if the search should use this matcher.
+	 */
+	public static boolean accepts(int roiWidth, int roiHeight, int templateWidth, int templateHeight) {
+		long positions = (long) (roiWidth - templateWidth + 1) * (roiHeight - templateHeight + 1);
+		return positions > 0 && positions * templateWidth * templateHeight * CHANNELS <= MAX_OPERATIONS;
+	}
+
+	/**
+	 * Best match of a template inside a region of a BGR image.
+	 *
+	 * @param image    BGR bytes of the image, row by row.
+	 * @param stride   Bytes per image row.
+	 * @param roiX     Left column of the region.
+	 * @param roiY     Top row of the region, relative to the first row of {@code image}.
+	 * @param roiWidth Width of the region.
+	 * @param roiHeight Height of the region.
+	 * @param template Template to search.
+	 * @param minScore Minimum score (0 to 1) of interest. Positions that can not reach it are abandoned early; if none
+	 *                 reaches it, the region is searched again for the true maximum.
+	 * @return The best match, with its position relative to the region.
+	 */
+	public static Match findBest(byte[] image, int stride, int roiX, int roiY, int roiWidth, int roiHeight, PixelTemplate template, double minScore) {
+		// Integral images of each channel and of its squares
+		int iw = roiWidth + 1;
+		long[] sum = new long[iw * (roiHeight + 1) * CHANNELS];
+		long[] sumSq = new long[iw * (roiHeight + 1) * CHANNELS];
+		long[] rowSum = new long[CHANNELS];
+		long[] rowSumSq = new long[CHANNELS];
+		for (int y = 0; y < roiHeight; y++) {
+			int rowOffset = (roiY + y) * stride + roiX * CHANNELS;
+			Arrays.fill(rowSum, 0);
+			Arrays.fill(rowSumSq, 0);
+			for (int x = 0; x < roiWidth; x++) {
+				for (int c = 0; c < CHANNELS; c++) {
+					int value = image[rowOffset + x * CHANNELS + c] & 0xFF;
+					rowSum[c] += value;
+					rowSumSq[c] += value * value;
+					int idx = ((y + 1) * iw + x + 1) * CHANNELS + c;
+					int above = (y * iw + x + 1) * CHANNELS + c;
+					sum[idx] = sum[above] + rowSum[c];
+					sumSq[idx] = sumSq[above] + rowSumSq[c];
+				}
+			}
+		}
+
+		Match best = scan(image, stride, roiX, roiY, roiWidth, roiHeight, template, sum, sumSq, iw, minScore, null);
+		if (best.getScore() < minScore) {
+			// Nothing reaches the threshold: search again without it to report the true maximum, as OpenCV does. The
+			// positions already evaluated bound the search, so only those rejected by the threshold are revisited.
+			best = scan(image, stride, roiX, roiY, roiWidth, roiHeight, template, sum, sumSq, iw, Double.NEGATIVE_INFINITY, best);
+		}
+		return best;
+	}
+
+	/**
+	 * Evaluates every position, abandoning those that can not beat the best score so far nor reach the floor.
+	 *
+	 * @param floor Score that a position must be able to reach to be fully evaluated.
+	 * @param start Best match already known, or null.
+	 */
+	private static Match scan(byte[] image, int stride, int roiX, int roiY, int roiWidth, int roiHeight, PixelTemplate template, long[] sum, long[] sumSq, int iw,
+			double floor, Match start) {
+		int tw = template.width;
+		int th = template.height;
+		int rowBytes = tw * CHANNELS;
+		double n = (double) tw * th;
+
+		double bestScore = start != null && start.evaluated ? start.score : Double.NEGATIVE_INFINITY;
+		int bestX = start != null ? start.x : 0;
+		int bestY = start != null ? start.y : 0;
+		double[] windowMean = new double[CHANNELS];
+
+		for (int y = 0; y <= roiHeight - th; y++) {
+			for (int x = 0; x <= roiWidth - tw; x++) {
+				double windowVariance = 0;
+				for (int c = 0; c < CHANNELS; c++) {
+					long s = area(sum, iw, x, y, tw, th, c);
+					long q = area(sumSq, iw, x, y, tw, th, c);
+					windowMean[c] = s / n;
+					windowVariance += q - (double) s * s / n;
+				}
+				double denominator = Math.sqrt(template.variance * windowVariance);
+				if (denominator < 1e-6) {
+					continue;
+				}
+
+				double needed = Math.max(bestScore, floor) * denominator;
+				double windowDeviation = Math.sqrt(windowVariance);
+				long raw = 0;
+				double centered = 0;
+				boolean rejected = false;
+
+				for (int row = 0; row < th; row++) {
+					int imageOffset = (roiY + y + row) * stride + (roiX + x) * CHANNELS;
+					int templateOffset = row * rowBytes;
+					int dot = 0;
+					for (int j = 0; j < rowBytes; j++) {
+						dot += template.pixels[templateOffset + j] * (image[imageOffset + j] & 0xFF);
+					}
+					raw += dot;
+
+					// Correlation of the rows seen so far, centered on the means of the whole window and template
+					int rows = row + 1;
+					centered = raw;
+					for (int c = 0; c < CHANNELS; c++) {
+						long imagePartial = area(sum, iw, x, y, tw, rows, c);
+						long templatePartial = template.rowPrefixSum[rows * CHANNELS + c];
+						centered -= template.mean[c] * imagePartial + windowMean[c] * templatePartial
+								- (double) rows * tw * template.mean[c] * windowMean[c];
+					}
+
+					// Cauchy-Schwarz bound of what the remaining rows can still add
+					if (rows < th && centered + Math.sqrt(template.remainingEnergy[rows]) * windowDeviation < needed) {
+						rejected = true;
+						break;
+					}
+				}
+
+				if (!rejected) {
+					double score = centered / denominator;
+					if (score > bestScore) {
+						bestScore = score;
+						bestX = x;
+						bestY = y;
+					}
+				}
+			}
+		}
+
+		// Without any position to evaluate (flat windows) the correlation is undefined
+		return Double.isInfinite(bestScore) ? new Match(0, 0, 0.0, false) : new Match(bestX, bestY, bestScore, true);
+	}
+
+	private static long area(long[] integral, int iw, int x, int y, int width, int height, int c) {
+		return integral[((y + height) * iw + x + width) * CHANNELS + c]
+				- integral[(y * iw + x + width) * CHANNELS + c]
+				- integral[((y + height) * iw + x) * CHANNELS + c]
+				+ integral[(y * iw + x) * CHANNELS + c];
+	}
+
+	/**
+	 * Template pixels and the statistics precomputed for matching.
+	 */
+	public static final class PixelTemplate {
+		private final int width;
+		private final int height;
+		private final int[] pixels;
+		private final double[] mean = new double[CHANNELS];
+		private final long[] rowPrefixSum;
+		private final double[] remainingEnergy;
+		private final double variance;
+
+		/**
+		 * @param bgr    BGR bytes of the template, row by row and without padding.
+		 * @param width  Template width.
+		 * @param height Template height.
+		 */
+		public PixelTemplate(byte[] bgr, int width, int height) {
+			this.width = width;
+			this.height = height;
+			this.pixels = new int[width * height * CHANNELS];
+			for (int i = 0; i < pixels.length; i++) {
+				pixels[i] = bgr[i] & 0xFF;
+			}
+
+			double n = (double) width * height;
+			rowPrefixSum = new long[(height + 1) * CHANNELS];
+			for (int row = 0; row < height; row++) {
+				for (int c = 0; c < CHANNELS; c++) {
+					long rowSum = 0;
+					for (int x = 0; x < width; x++) {
+						rowSum += pixels[(row * width + x) * CHANNELS + c];
+					}
+					rowPrefixSum[(row + 1) * CHANNELS + c] = rowPrefixSum[row * CHANNELS + c] + rowSum;
+				}
+			}
+			for (int c = 0; c < CHANNELS; c++) {
+				mean[c] = rowPrefixSum[height * CHANNELS + c] / n;
+			}
+
+			remainingEnergy = new double[height + 1];
+			for (int row = height - 1; row >= 0; row--) {
+				double energy = 0;
+				for (int x = 0; x < width; x++) {
+					for (int c = 0; c < CHANNELS; c++) {
+						double d = pixels[(row * width + x) * CHANNELS + c] - mean[c];
+						energy += d * d;
+					}
+				}
+				remainingEnergy[row] = remainingEnergy[row + 1] + energy;
+			}
+			variance = remainingEnergy[0];
+		}
+
+		public int getWidth() {
+			return width;
+		}
+
+		public int getHeight() {
+			return height;
+		}
+
+		/**
+		 * @return Approximate heap used by the template, for cache budgets.
+		 */
+		public long sizeBytes() {
+			return (long) pixels.length * Integer.BYTES + (long) rowPrefixSum.length * Long.BYTES
+					+ (long) (remainingEnergy.length + mean.length) * Double.BYTES;
+		}
+	}
+
+	/**
+	 * Best match found by {@link #findBest}.
+	 */
+	public static final class Match {
+		private final int x;
+		private final int y;
+		private final double score;
+		private final boolean evaluated;
+
+		private Match(int x, int y, double score, boolean evaluated) {
+			this.x = x;
+			this.y = y;
+			this.score = score;
+			this.evaluated = evaluated;
+		}
+
+		public int getX() {
+			return x;
+		}
+
+		public int getY() {
+			return y;
+		}
+
+		/**
+		 * @return Score between -1 and 1, as TM_CCOEFF_NORMED, or 0 if every window of the region is flat.
+		 */
+		public double getScore() {
+			return score;
+		}
+	}
+}
@@ -0,0 +1,197 @@
+package cl.camodev.utiles;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.imageio.ImageIO;
+
+import cl.camodev.wosbot.console.enumerable.EnumStatusLabel;
+import cl.camodev.wosbot.ot.DTOStatusLabel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Classifies a region showing one of the known status words ({@link EnumStatusLabel}) by comparing its binarized text
+ * with images of each word.
+ * <p>
+ * The images are loaded from {@link EnumStatusLabel#getTemplate()} when present and are otherwise learned from the
+ * regions where OCR found the word, see {@link #learn(BufferedImage, EnumStatusLabel)}. A region that does not look
+ * like any known word, such as a remaining time, is not classified.
+ * </p>
+ */
+public final class StatusLabelClassifier {
+
+	private static final Logger logger = LoggerFactory.getLogger(StatusLabelClassifier.class);
+
+	// Resolución a la que se normaliza la palabra antes de compararla
+	private static final int GRID_COLUMNS = 48;
+	private static final int GRID_ROWS = 12;
+
+	// Puntaje mínimo y diferencia mínima con la segunda mejor palabra
+	private static final double MIN_SCORE = 0.88;
+	private static final double MIN_MARGIN = 0.05;
+
+	// Peso de la diferencia de proporciones (ancho / alto) en el puntaje
+	private static final double ASPECT_WEIGHT = 0.1;
+
+	private static final int MAX_SAMPLES = 4;
+	private static final double DUPLICATE_SCORE = 0.97;
+
+	private static final StatusLabelClassifier INSTANCE = new StatusLabelClassifier();
+
+	private final Map<EnumStatusLabel, List<Sample>> samples = new EnumMap<>(EnumStatusLabel.class);
+
+	private StatusLabelClassifier() {
+		for (EnumStatusLabel label : EnumStatusLabel.values()) {
+			samples.put(label, new CopyOnWriteArrayList<>());
+			loadResource(label);
+		}
+	}
+
+	public static StatusLabelClassifier getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Classifies a region.
+	 *
+	 * @param image Crop containing only the status word.
+	 * @return The status, with a null label if the region is not confidently one of the known words.
+	 */
+	public DTOStatusLabel classify(BufferedImage image) {
+		Sample region = Sample.of(image);
+		if (region == null) {
+			return new DTOStatusLabel(null, 0, null);
+		}
+
+		EnumStatusLabel best = null;
+		double bestScore = 0;
+		double secondScore = 0;
+		for (Map.Entry<EnumStatusLabel, List<Sample>> entry : samples.entrySet()) {
+			double score = 0;
+			for (Sample sample : entry.getValue()) {
+				score = Math.max(score, region.similarity(sample));
+			}
+			if (score > bestScore) {
+				secondScore = bestScore;
+				bestScore = score;
+				best = entry.getKey();
+			} else if (score > secondScore) {
+				secondScore = score;
+			}
+		}
+
+		boolean confident = bestScore >= MIN_SCORE && bestScore - secondScore >= MIN_MARGIN;
+		return new DTOStatusLabel(confident ? best : null, bestScore, null);
+	}
+
+	/**
+	 * Uses a region known to show a status word, usually read by OCR, as a sample of that word.
+	 *
+	 * @return true if the region was added as a new sample.
+	 */
+	public boolean learn(BufferedImage image, EnumStatusLabel label) {
+		Sample sample = Sample.of(image);
+		if (sample == null) {
+			return false;
+		}
+		List<Sample> known = samples.get(label);
+		if (known.size() >= MAX_SAMPLES) {
+			return false;
+		}
+		for (Sample other : known) {
+			if (sample.similarity(other) >= DUPLICATE_SCORE) {
+				return false;
+			}
+		}
+		known.add(sample);
+		logger.debug("Status label {} learned, {} samples", label, known.size());
+		return true;
+	}
+
+	/**
+	 * Forgets the learned regions, keeping only the bundled images.
+	 */
+	public void reset() {
+		for (EnumStatusLabel label : EnumStatusLabel.values()) {
+			samples.get(label).clear();
+			loadResource(label);
+		}
+	}
+
+	/**
+	 * @return The only status word contained in an OCR text, or null if there is none or more than one.
+	 */
+	public static EnumStatusLabel find(String text) {
+		if (text == null) {
+			return null;
+		}
+		EnumStatusLabel found = null;
+		for (EnumStatusLabel label : EnumStatusLabel.values()) {
+			if (text.contains(label.getText())) {
+				if (found != null) {
+					return null;
+				}
+				found = label;
+			}
+		}
+		return found;
+	}
+
+	private void loadResource(EnumStatusLabel label) {
+		try (InputStream stream = StatusLabelClassifier.class.getResourceAsStream(label.getTemplate())) {
+			if (stream == null) {
+				return;
+			}
+			BufferedImage image = ImageIO.read(stream);
+			Sample sample = image != null ? Sample.of(image) : null;
+			if (sample != null) {
+				samples.get(label).add(sample);
+			}
+		} catch (IOException e) {
+			logger.warn("Could not read status label {}: {}", label.getTemplate(), e.getMessage());
+		}
+	}
+
+	/**
+	 * Word normalized to a fixed grid, with the proportions of its bounding box.
+	 */
+	private static final class Sample {
+
+		private final boolean[] bits;
+		private final double aspect;
+
+		private Sample(boolean[] bits, double aspect) {
+			this.bits = bits;
+			this.aspect = aspect;
+		}
+
+		private static Sample of(BufferedImage image) {
+			TextMask mask = TextMask.of(image);
+			if (mask == null) {
+				return null;
+			}
+			int[] box = mask.bounds();
+			if (box[4] == 0) {
+				return null;
+			}
+			double aspect = (double) (box[2] - box[0] + 1) / (box[3] - box[1] + 1);
+			return new Sample(mask.sample(box, GRID_COLUMNS, GRID_ROWS), aspect);
+		}
+
+		private double similarity(Sample other) {
+			int matching = 0;
+			for (int i = 0; i < bits.length; i++) {
+				if (bits[i] == other.bits[i]) {
+					matching++;
+				}
+			}
+			return (double) matching / bits.length - ASPECT_WEIGHT * Math.abs(aspect - other.aspect);
+		}
+	}
+}
@@ -0,0 +1,275 @@
+package cl.camodev.utiles;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.jna.Pointer;
+
+import net.sourceforge.tess4j.ITessAPI;
+import net.sourceforge.tess4j.TessAPI;
+import net.sourceforge.tess4j.TesseractException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded pool of initialized Tesseract engines.
+ * <p>
+ * {@code Tesseract.doOCR} creates a native engine and loads the trained data on every call, which takes much longer
+ * than recognizing a small screen region. The engines of this pool are initialized once with their datapath and
+ * language and then leased, so each OCR only pays for the recognition itself. Engines are created on demand up to the
+ * pool size; when all of them are in use, callers wait for one to be returned.
+ * </p>
+ */
+public final class TesseractPool {
+
+	private static final Logger logger = LoggerFactory.getLogger(TesseractPool.class);
+
+	// Motores por defecto: un emulador por núcleo, hasta 4
+	public static final int DEFAULT_MAX_ENGINES = Math.min(Runtime.getRuntime().availableProcessors(), 4);
+
+	// Tiempo máximo de espera por un motor libre antes de fallar
+	private static final long LEASE_TIMEOUT_MS = 30_000;
+
+	private static final Map<String, TesseractPool> pools = new ConcurrentHashMap<>();
+
+	private final String datapath;
+	private final String language;
+	private final int maxEngines;
+	private final Deque<Engine> idle = new ArrayDeque<>();
+	private int created;
+	private boolean shutdown;
+
+	private final AtomicLong leases = new AtomicLong();
+	private final AtomicLong contendedLeases = new AtomicLong();
+	private final AtomicLong totalWaitNanos = new AtomicLong();
+	private final AtomicLong maxWaitNanos = new AtomicLong();
+
+	private TesseractPool(String datapath, String language, int maxEngines) {
+		this.datapath = datapath;
+		this.language = language;
+		this.maxEngines = maxEngines;
+	}
+
+	/**
+	 * Gets the shared pool for a tessdata directory and language, creating it on first use.
+	 *
+	 * @param datapath Path of the tessdata directory.
+	 * @param language Trained data language, e.g. "eng".
+	 * @return The pool.
+	 */
+	public static TesseractPool get(String datapath, String language) {
+		return pools.computeIfAbsent(datapath + "|" + language, key -> new TesseractPool(datapath, language, DEFAULT_MAX_ENGINES));
+	}
+
+	/**
+	 * Leases an engine, waiting for one to be free if the pool is exhausted. The engine must be closed to return it.
+	 *
+	 * @return An initialized engine.
+	 * @throws TesseractException if the engine can not be initialized or none is free in time.
+	 */
+	public Engine lease() throws TesseractException {
+		long start = System.nanoTime();
+		Engine engine = null;
+		boolean create = false;
+		boolean waited = false;
+
+		synchronized (this) {
+			long deadline = start + TimeUnit.MILLISECONDS.toNanos(LEASE_TIMEOUT_MS);
+			while (idle.isEmpty() && created >= maxEngines) {
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0) {
+					throw new TesseractException("No OCR engine available after " + LEASE_TIMEOUT_MS + " ms");
+				}
+				waited = true;
+				try {
+					TimeUnit.NANOSECONDS.timedWait(this, remaining);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new TesseractException("Interrupted while waiting for an OCR engine", e);
+				}
+			}
+			if (!idle.isEmpty()) {
+				engine = idle.pop();
+				engine.leased = true;
+			} else {
+				created++;
+				create = true;
+			}
+		}
+
+		// La inicialización carga el tessdata, se hace fuera del monitor
+		if (create) {
+			try {
+				engine = new Engine(this);
+			} catch (RuntimeException | TesseractException e) {
+				synchronized (this) {
+					created--;
+					notifyAll();
+				}
+				throw e instanceof TesseractException te ? te : new TesseractException("Error initializing OCR engine", e);
+			}
+			logger.debug("OCR engine {} created for {} ({})", created, language, datapath);
+		}
+
+		long wait = System.nanoTime() - start;
+		leases.incrementAndGet();
+		if (waited) {
+			contendedLeases.incrementAndGet();
+			totalWaitNanos.addAndGet(wait);
+			maxWaitNanos.accumulateAndGet(wait, Math::max);
+		}
+		return engine;
+	}
+
+	private synchronized void release(Engine engine) {
+		if (shutdown) {
+			engine.end();
+			created--;
+			return;
+		}
+		idle.push(engine);
+		notifyAll();
+	}
+
+	/**
+	 * Ends all the idle engines, and every leased engine when it is returned. The pool can still create new engines.
+	 */
+	public synchronized void shutdown() {
+		while (!idle.isEmpty()) {
+			idle.pop().end();
+			created--;
+		}
+		shutdown = true;
+		notifyAll();
+	}
+
+	/**
+	 * @return Pool size, leases and time spent waiting for a free engine.
+	 */
+	public synchronized String getStats() {
+		long contended = contendedLeases.get();
+		return String.format("OCR engines %s: %d/%d created, %d idle, %d leases, %d waited (avg %.1f ms, max %.1f ms)",
+				language, created, maxEngines, idle.size(), leases.get(), contended,
+				contended == 0 ? 0.0 : totalWaitNanos.get() / 1_000_000.0 / contended, maxWaitNanos.get() / 1_000_000.0);
+	}
+
+	/**
+	 * Initialized Tesseract engine leased from a {@link TesseractPool}. Not thread safe; it belongs to the thread that
+	 * leased it until it is closed.
+	 */
+	public static final class Engine implements AutoCloseable {
+
+		private final TesseractPool pool;
+		private final ITessAPI.TessBaseAPI handle;
+		private boolean leased = true;
+		private int confidence;
+
+		private Engine(TesseractPool pool) throws TesseractException {
+			this.pool = pool;
+			this.handle = TessAPI.INSTANCE.TessBaseAPICreate();
+			if (TessAPI.INSTANCE.TessBaseAPIInit3(handle, pool.datapath, pool.language) != 0) {
+				TessAPI.INSTANCE.TessBaseAPIDelete(handle);
+				throw new TesseractException("Could not initialize Tesseract with " + pool.language + " data from " + pool.datapath);
+			}
+			reset();
+		}
+
+		/**
+		 * Sets the page segmentation mode for this lease, see {@link ITessAPI.TessPageSegMode}.
+		 */
+		public Engine setPageSegMode(int mode) {
+			TessAPI.INSTANCE.TessBaseAPISetPageSegMode(handle, mode);
+			return this;
+		}
+
+		/**
+		 * Restricts the recognized characters for this lease. Null or empty allows every character.
+		 */
+		public Engine setCharWhitelist(String characters) {
+			TessAPI.INSTANCE.TessBaseAPISetVariable(handle, "tessedit_char_whitelist", characters == null ? "" : characters);
+			return this;
+		}
+
+		/**
+		 * Recognizes the text of an image.
+		 *
+		 * @param image Image to read. It is converted to grayscale, as Tesseract does internally.
+		 * @return The recognized text.
+		 * @throws TesseractException if the recognition fails.
+		 */
+		public String doOCR(BufferedImage image) throws TesseractException {
+			if (!leased) {
+				throw new IllegalStateException("OCR engine already returned to the pool");
+			}
+			BufferedImage gray = toGray(image);
+			byte[] pixels = ((DataBufferByte) gray.getRaster().getDataBuffer()).getData();
+			ByteBuffer buffer = ByteBuffer.allocateDirect(pixels.length);
+			buffer.put(pixels).flip();
+
+			Pointer text = null;
+			try {
+				TessAPI.INSTANCE.TessBaseAPISetImage(handle, buffer, gray.getWidth(), gray.getHeight(), 1, gray.getWidth());
+				text = TessAPI.INSTANCE.TessBaseAPIGetUTF8Text(handle);
+				confidence = TessAPI.INSTANCE.TessBaseAPIMeanTextConf(handle);
+				return text == null ? "" : text.getString(0, "UTF-8");
+			} catch (RuntimeException e) {
+				throw new TesseractException("Error during OCR", e);
+			} finally {
+				if (text != null) {
+					TessAPI.INSTANCE.TessDeleteText(text);
+				}
+				TessAPI.INSTANCE.TessBaseAPIClear(handle);
+			}
+		}
+
+		/**
+		 * @return Mean confidence of the words read by the last {@link #doOCR(BufferedImage)}, from 0 to 100.
+		 */
+		public int getConfidence() {
+			return confidence;
+		}
+
+		private static BufferedImage toGray(BufferedImage image) {
+			if (image.getType() == BufferedImage.TYPE_BYTE_GRAY && image.getRaster().getDataBuffer().getSize() == image.getWidth() * image.getHeight()) {
+				return image;
+			}
+			BufferedImage gray = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
+			Graphics2D graphics = gray.createGraphics();
+			graphics.drawImage(image, 0, 0, null);
+			graphics.dispose();
+			return gray;
+		}
+
+		private void reset() {
+			// El mismo modo que tess4j Tesseract usa por defecto
+			setPageSegMode(ITessAPI.TessPageSegMode.PSM_SINGLE_BLOCK);
+			setCharWhitelist(null);
+		}
+
+		private void end() {
+			TessAPI.INSTANCE.TessBaseAPIEnd(handle);
+			TessAPI.INSTANCE.TessBaseAPIDelete(handle);
+		}
+
+		/**
+		 * Restores the default settings and returns the engine to its pool.
+		 */
+		@Override
+		public void close() {
+			if (!leased) {
+				return;
+			}
+			leased = false;
+			reset();
+			pool.release(this);
+		}
+	}
+}
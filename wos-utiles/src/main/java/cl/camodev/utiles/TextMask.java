@@ -0,0 +1,149 @@
+package cl.camodev.utiles;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+
+/**
+ * Text pixels of a small crop, binarized with Otsu's threshold. The text is taken as the minority class, so it works for
+ * light text on a dark background and the other way around.
+ */
+final class TextMask {
+
+	private final int width;
+	private final int height;
+	private final boolean[] text;
+
+	private TextMask(int width, int height, boolean[] text) {
+		this.width = width;
+		this.height = height;
+		this.text = text;
+	}
+
+	/**
+	 * @return The mask of the crop, or null if the crop has a single color.
+	 */
+	static TextMask of(BufferedImage image) {
+		int[] luminance = luminance(image);
+		int[] histogram = new int[256];
+		for (int value : luminance) {
+			histogram[value]++;
+		}
+		int threshold = UtilOCR.otsuThreshold(histogram, luminance.length);
+		int light = 0;
+		for (int i = threshold + 1; i < 256; i++) {
+			light += histogram[i];
+		}
+		if (light == 0 || light == luminance.length) {
+			return null;
+		}
+		// El texto es la clase minoritaria, claro sobre fondo oscuro o al revés
+		boolean lightText = light <= luminance.length / 2;
+		boolean[] text = new boolean[luminance.length];
+		for (int i = 0; i < luminance.length; i++) {
+			text[i] = (luminance[i] > threshold) == lightText;
+		}
+		return new TextMask(image.getWidth(), image.getHeight(), text);
+	}
+
+	int getWidth() {
+		return width;
+	}
+
+	int getHeight() {
+		return height;
+	}
+
+	boolean columnHasText(int x) {
+		for (int y = 0; y < height; y++) {
+			if (text[y * width + x]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return left, top, right and bottom (inclusive) of the text between two columns, and its pixel count.
+	 */
+	int[] box(int left, int end) {
+		int top = height;
+		int bottom = -1;
+		int pixels = 0;
+		for (int y = 0; y < height; y++) {
+			for (int x = left; x < end; x++) {
+				if (text[y * width + x]) {
+					top = Math.min(top, y);
+					bottom = Math.max(bottom, y);
+					pixels++;
+				}
+			}
+		}
+		return new int[] { left, top, end - 1, bottom, pixels };
+	}
+
+	/**
+	 * @return Bounding box of all the text, see {@link #box(int, int)}.
+	 */
+	int[] bounds() {
+		int left = 0;
+		while (left < width && !columnHasText(left)) {
+			left++;
+		}
+		int end = width;
+		while (end > left && !columnHasText(end - 1)) {
+			end--;
+		}
+		return box(left, end);
+	}
+
+	/**
+	 * Resamples a box to a fixed grid. Each cell is on if at least half of its pixels are text.
+	 */
+	boolean[] sample(int[] box, int columns, int rows) {
+		int left = box[0];
+		int top = box[1];
+		int boxWidth = box[2] - left + 1;
+		int boxHeight = box[3] - top + 1;
+
+		boolean[] bits = new boolean[columns * rows];
+		for (int row = 0; row < rows; row++) {
+			int y0 = top + row * boxHeight / rows;
+			int y1 = Math.max(y0 + 1, top + (row + 1) * boxHeight / rows);
+			for (int col = 0; col < columns; col++) {
+				int x0 = left + col * boxWidth / columns;
+				int x1 = Math.max(x0 + 1, left + (col + 1) * boxWidth / columns);
+				int on = 0;
+				for (int y = y0; y < y1; y++) {
+					for (int x = x0; x < x1; x++) {
+						if (text[y * width + x]) {
+							on++;
+						}
+					}
+				}
+				bits[row * columns + col] = on * 2 >= (y1 - y0) * (x1 - x0);
+			}
+		}
+		return bits;
+	}
+
+	private static int[] luminance(BufferedImage image) {
+		int width = image.getWidth();
+		int height = image.getHeight();
+		int[] luminance = new int[width * height];
+		if (image.getType() == BufferedImage.TYPE_3BYTE_BGR && image.getRaster().getDataBuffer() instanceof DataBufferByte buffer
+				&& buffer.getData().length == luminance.length * 3) {
+			byte[] bgr = buffer.getData();
+			for (int i = 0, p = 0; i < luminance.length; i++, p += 3) {
+				luminance[i] = ((bgr[p + 2] & 0xFF) * 299 + (bgr[p + 1] & 0xFF) * 587 + (bgr[p] & 0xFF) * 114) / 1000;
+			}
+			return luminance;
+		}
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int rgb = image.getRGB(x, y);
+				luminance[y * width + x] = (((rgb >> 16) & 0xFF) * 299 + ((rgb >> 8) & 0xFF) * 587 + (rgb & 0xFF) * 114) / 1000;
+			}
+		}
+		return luminance;
+	}
+}
@@ -0,0 +1,330 @@
+package cl.camodev.utiles;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.imageio.ImageIO;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads countdown timers ({@code 12:34:56}, {@code 1d 02:03:04}, {@code 04:05}) by classifying their glyphs.
+ * <p>
+ * Timers are drawn with a fixed game font, so after binarizing the crop every character is a separate column of text
+ * that can be compared with a few known samples of the same character. The samples are loaded from
+ * {@code /glyphs/timer/<name>.png} when present and are otherwise learned from the timers read by Tesseract, see
+ * {@link #learn(BufferedImage, String)}. When any glyph is unknown or ambiguous the recognizer gives up and the caller
+ * falls back to Tesseract. Learned samples are replaced by newer ones, so a sample learned from a misread is corrected
+ * by the next confirmed read of that glyph.
+ * </p>
+ */
+public final class TimerGlyphRecognizer {
+
+	private static final Logger logger = LoggerFactory.getLogger(TimerGlyphRecognizer.class);
+
+	private static final String GLYPH_RESOURCE_PATH = "/glyphs/timer/";
+	private static final String CHARACTERS = "0123456789:d";
+
+	// Resolución a la que se normaliza cada glifo antes de compararlo
+	private static final int GLYPH_WIDTH = 8;
+	private static final int GLYPH_HEIGHT = 12;
+
+	// Puntaje mínimo de cada glifo y diferencia mínima con el segundo mejor carácter
+	private static final double MIN_SCORE = 0.85;
+	private static final double MIN_MARGIN = 0.04;
+
+	// Peso de la geometría del glifo (ancho, alto y posición en la línea) en el puntaje
+	private static final double GEOMETRY_WEIGHT = 0.5;
+
+	private static final int MAX_SAMPLES = 4;
+	private static final double DUPLICATE_SCORE = 0.97;
+
+	private static final Pattern DURATION_PATTERN = Pattern.compile("(?:(\\d+)d)?(?:(\\d{1,2}):)?(\\d{1,2}):(\\d{2})");
+
+	private static final TimerGlyphRecognizer INSTANCE = new TimerGlyphRecognizer();
+
+	private final Map<Character, List<Glyph>> samples = new ConcurrentHashMap<>();
+
+	// Muestras cargadas de los recursos, nunca se reemplazan
+	private final Set<Glyph> bundled = ConcurrentHashMap.newKeySet();
+
+	private TimerGlyphRecognizer() {
+		for (char character : CHARACTERS.toCharArray()) {
+			samples.put(character, new CopyOnWriteArrayList<>());
+			loadResource(character);
+		}
+	}
+
+	public static TimerGlyphRecognizer getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Reads a timer from a crop.
+	 *
+	 * @param image Crop containing only the timer.
+	 * @return The remaining time, or empty if the glyphs could not be read confidently.
+	 */
+	public Optional<Duration> recognize(BufferedImage image) {
+		String text = read(image);
+		return text == null ? Optional.empty() : parseDuration(text);
+	}
+
+	/**
+	 * Reads the characters of a timer from a crop.
+	 *
+	 * @param image Crop containing only the timer.
+	 * @return The timer without spaces, e.g. {@code 1d02:03:04}, or null if any glyph is unknown or ambiguous.
+	 */
+	public String read(BufferedImage image) {
+		// Sin muestras de todos los dígitos un dígito desconocido podría confundirse con otro
+		if (!isTrained()) {
+			return null;
+		}
+		List<Glyph> glyphs = segment(image);
+		if (glyphs.isEmpty()) {
+			return null;
+		}
+
+		StringBuilder text = new StringBuilder(glyphs.size());
+		for (Glyph glyph : glyphs) {
+			char best = 0;
+			double bestScore = -1;
+			double secondScore = -1;
+			for (Map.Entry<Character, List<Glyph>> entry : samples.entrySet()) {
+				double score = -1;
+				for (Glyph sample : entry.getValue()) {
+					score = Math.max(score, glyph.similarity(sample));
+				}
+				if (score > bestScore) {
+					secondScore = bestScore;
+					bestScore = score;
+					best = entry.getKey();
+				} else if (score > secondScore) {
+					secondScore = score;
+				}
+			}
+			if (bestScore < MIN_SCORE || bestScore - secondScore < MIN_MARGIN) {
+				return null;
+			}
+			text.append(best);
+		}
+
+		String result = text.toString();
+		return DURATION_PATTERN.matcher(result).matches() ? result : null;
+	}
+
+	/**
+	 * Learns the glyphs of a timer read by other means, usually Tesseract. The text is only used when it is a valid
+	 * timer with exactly one character per glyph of the crop, and it must be a confirmed read: learning from a misread
+	 * would make the recognizer read that glyph wrong. Learned samples of other characters that are nearly identical to
+	 * a glyph of the text are dropped as misreads, and the oldest learned sample of a character makes room for a new one.
+	 *
+	 * @param image Crop containing only the timer.
+	 * @param text  Text read from the crop.
+	 * @return true if the glyphs were used as samples.
+	 */
+	public synchronized boolean learn(BufferedImage image, String text) {
+		if (text == null) {
+			return false;
+		}
+		String characters = text.replaceAll("\\s", "");
+		if (!DURATION_PATTERN.matcher(characters).matches()) {
+			return false;
+		}
+		List<Glyph> glyphs = segment(image);
+		if (glyphs.size() != characters.length()) {
+			return false;
+		}
+
+		boolean learned = false;
+		for (int i = 0; i < glyphs.size(); i++) {
+			learned |= addSample(characters.charAt(i), glyphs.get(i));
+		}
+		if (learned && isTrained()) {
+			logger.debug("Timer glyphs trained with {}", text.trim());
+		}
+		return learned;
+	}
+
+	/**
+	 * Forgets the learned glyphs, keeping only the bundled samples.
+	 */
+	public synchronized void reset() {
+		bundled.clear();
+		for (char character : CHARACTERS.toCharArray()) {
+			samples.get(character).clear();
+			loadResource(character);
+		}
+	}
+
+	/**
+	 * @return true if there are samples of every digit and the colon, enough to read most timers.
+	 */
+	public boolean isTrained() {
+		for (char character : CHARACTERS.toCharArray()) {
+			if (character != 'd' && samples.get(character).isEmpty()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Parses a timer such as {@code 1d 02:03:04}, {@code 02:03:04} or {@code 03:04} (minutes and seconds).
+	 *
+	 * @param text Text of the timer, other characters around it are ignored.
+	 * @return The duration, or empty if there is no timer in the text.
+	 */
+	public static Optional<Duration> parseDuration(String text) {
+		if (text == null) {
+			return Optional.empty();
+		}
+		Matcher matcher = DURATION_PATTERN.matcher(text.replaceAll("\\s", ""));
+		if (!matcher.find()) {
+			return Optional.empty();
+		}
+		long days = matcher.group(1) != null ? Long.parseLong(matcher.group(1)) : 0;
+		long hours = matcher.group(2) != null ? Long.parseLong(matcher.group(2)) : 0;
+		long minutes = Long.parseLong(matcher.group(3));
+		long seconds = Long.parseLong(matcher.group(4));
+		if (minutes >= 60 && matcher.group(2) != null || seconds >= 60) {
+			return Optional.empty();
+		}
+		return Optional.of(Duration.ofDays(days).plusHours(hours).plusMinutes(minutes).plusSeconds(seconds));
+	}
+
+	private boolean addSample(char character, Glyph glyph) {
+		List<Glyph> known = samples.get(character);
+		if (known == null) {
+			return false;
+		}
+		for (Glyph sample : known) {
+			if (glyph.similarity(sample) >= DUPLICATE_SCORE) {
+				return false;
+			}
+		}
+
+		// Una muestra casi idéntica guardada como otro carácter salió de una lectura errónea
+		for (Map.Entry<Character, List<Glyph>> entry : samples.entrySet()) {
+			if (entry.getKey() != character) {
+				entry.getValue().removeIf(sample -> !bundled.contains(sample) && glyph.similarity(sample) >= DUPLICATE_SCORE);
+			}
+		}
+
+		if (known.size() >= MAX_SAMPLES) {
+			// Se reemplaza la muestra aprendida más antigua
+			Glyph oldest = known.stream().filter(sample -> !bundled.contains(sample)).findFirst().orElse(null);
+			if (oldest == null) {
+				return false;
+			}
+			known.remove(oldest);
+		}
+		known.add(glyph);
+		return true;
+	}
+
+	private void loadResource(char character) {
+		String name = character == ':' ? "colon" : String.valueOf(character);
+		try (InputStream stream = TimerGlyphRecognizer.class.getResourceAsStream(GLYPH_RESOURCE_PATH + name + ".png")) {
+			if (stream == null) {
+				return;
+			}
+			BufferedImage image = ImageIO.read(stream);
+			List<Glyph> glyphs = image != null ? segment(image) : List.of();
+			if (glyphs.size() == 1) {
+				samples.get(character).add(glyphs.get(0));
+				bundled.add(glyphs.get(0));
+			} else {
+				logger.warn("Timer glyph {} must contain a single glyph, found {}", name, glyphs.size());
+			}
+		} catch (IOException e) {
+			logger.warn("Could not read timer glyph {}: {}", name, e.getMessage());
+		}
+	}
+
+	/**
+	 * Binarizes the crop and splits it in glyphs by the empty columns between them.
+	 */
+	private static List<Glyph> segment(BufferedImage image) {
+		TextMask mask = TextMask.of(image);
+		if (mask == null) {
+			return List.of();
+		}
+
+		List<int[]> boxes = new ArrayList<>();
+		int lineTop = mask.getHeight();
+		int lineBottom = -1;
+		int start = -1;
+		for (int x = 0; x <= mask.getWidth(); x++) {
+			boolean column = x < mask.getWidth() && mask.columnHasText(x);
+			if (column && start < 0) {
+				start = x;
+			} else if (!column && start >= 0) {
+				int[] box = mask.box(start, x);
+				// Pixeles sueltos del fondo no son glifos
+				if (box[4] > 1) {
+					boxes.add(box);
+					lineTop = Math.min(lineTop, box[1]);
+					lineBottom = Math.max(lineBottom, box[3]);
+				}
+				start = -1;
+			}
+		}
+
+		List<Glyph> glyphs = new ArrayList<>(boxes.size());
+		int lineHeight = lineBottom - lineTop + 1;
+		for (int[] box : boxes) {
+			glyphs.add(Glyph.of(mask, box, lineTop, lineHeight));
+		}
+		return glyphs;
+	}
+
+	/**
+	 * Glyph normalized to a fixed grid, with its size and position relative to the line of text.
+	 */
+	private static final class Glyph {
+
+		private final boolean[] bits;
+		private final double width;
+		private final double height;
+		private final double top;
+
+		private Glyph(boolean[] bits, double width, double height, double top) {
+			this.bits = bits;
+			this.width = width;
+			this.height = height;
+			this.top = top;
+		}
+
+		private static Glyph of(TextMask mask, int[] box, int lineTop, int lineHeight) {
+			int boxWidth = box[2] - box[0] + 1;
+			int boxHeight = box[3] - box[1] + 1;
+			boolean[] bits = mask.sample(box, GLYPH_WIDTH, GLYPH_HEIGHT);
+			return new Glyph(bits, (double) boxWidth / lineHeight, (double) boxHeight / lineHeight, (double) (box[1] - lineTop) / lineHeight);
+		}
+
+		private double similarity(Glyph other) {
+			int matching = 0;
+			for (int i = 0; i < bits.length; i++) {
+				if (bits[i] == other.bits[i]) {
+					matching++;
+				}
+			}
+			double geometry = Math.abs(width - other.width) + Math.abs(height - other.height) + Math.abs(top - other.top);
+			return (double) matching / bits.length - GEOMETRY_WEIGHT * geometry;
+		}
+	}
+}
@@ -1,17 +1,406 @@
 package cl.camodev.utiles;
 
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
 import java.io.File;
 import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 import javax.imageio.ImageIO;
 
+import cl.camodev.wosbot.console.enumerable.EnumStatusLabel;
+import cl.camodev.wosbot.ot.DTOArea;
 import cl.camodev.wosbot.ot.DTOPoint;
-import net.sourceforge.tess4j.Tesseract;
+import cl.camodev.wosbot.ot.DTOStatusLabel;
 import net.sourceforge.tess4j.TesseractException;
 
 public class UtilOCR {
 
+	// Datos entrenados usados para el OCR de la pantalla del juego
+	public static final String TESSDATA_PATH = "lib/tesseract";
+	public static final String LANGUAGE = "eng";
+
+	// Un thread por motor del pool, más threads solo esperarían un motor libre
+	private static final ForkJoinPool ocrThreadPool = new ForkJoinPool(TesseractPool.DEFAULT_MAX_ENGINES);
+
+	// Margen blanco alrededor del recorte, Tesseract lee peor el texto pegado al borde
+	private static final int PADDING = 8;
+
+	// Desplazamiento del umbral de Otsu en las variantes más claras y más oscuras
+	private static final int THRESHOLD_STEP = 24;
+
+	// Cada cuántas lecturas de glifos se comprueba el resultado con Tesseract
+	private static final int GLYPH_CHECK_INTERVAL = 20;
+
+	// Variantes que deben coincidir para aprender los glifos de una lectura
+	private static final int CONFIRMING_READINGS = 2;
+
+	private static final AtomicLong glyphReads = new AtomicLong();
+
+	/**
+	 * Preprocessing applied to a crop before reading it. The threshold offset moves Otsu's threshold and invert reverses
+	 * the automatic choice of which class is the text.
+	 */
+	private record Variant(int scale, boolean binarize, int thresholdOffset, boolean invert) {
+	}
+
+	private record Reading(String text, int confidence) {
+	}
+
+	/**
+	 * Winner of a vote: its summed weight and how many variants read it.
+	 */
+	private record Vote<T>(T value, int weight, int readings) {
+	}
+
+	/**
+	 * Reads several regions of the same frame with the {@link EnumOcrProfile#DEFAULT default} settings.
+	 *
+	 * @see #ocrRegions(ImageFrame, Map, EnumOcrProfile)
+	 */
+	public static Map<String, String> ocrRegions(ImageFrame frame, Map<String, DTOArea> regions) throws TesseractException {
+		return ocrRegions(frame, regions, EnumOcrProfile.DEFAULT);
+	}
+
+	/**
+	 * Reads several regions of the same frame. The regions are cropped from the frame's pixel buffer and, when there
+	 * is more than one, recognized in parallel.
+	 *
+	 * @param frame   Captured frame.
+	 * @param regions Regions to read, by key.
+	 * @param profile Settings and preprocessing for the fields read.
+	 * @return The text read in each region, with the same keys and order.
+	 * @throws TesseractException       If the OCR of any region fails.
+	 * @throws IllegalArgumentException If a region exceeds the frame.
+	 */
+	public static Map<String, String> ocrRegions(ImageFrame frame, Map<String, DTOArea> regions, EnumOcrProfile profile) throws TesseractException {
+		// Los recortes se copian antes de paralelizar, el frame puede cerrarse al terminar
+		Map<String, BufferedImage> crops = new LinkedHashMap<>();
+		regions.forEach((key, area) -> crops.put(key, crop(frame, area)));
+
+		Map<String, String> results = new LinkedHashMap<>();
+		if (crops.size() == 1) {
+			Map.Entry<String, BufferedImage> crop = crops.entrySet().iterator().next();
+			results.put(crop.getKey(), ocr(crop.getValue(), profile));
+			return results;
+		}
+
+		Map<String, CompletableFuture<String>> futures = new LinkedHashMap<>();
+		crops.forEach((key, image) -> futures.put(key, ocrAsync(image, profile)));
+
+		try {
+			for (Map.Entry<String, CompletableFuture<String>> future : futures.entrySet()) {
+				results.put(future.getKey(), future.getValue().join());
+			}
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof TesseractException tesseractException) {
+				throw tesseractException;
+			}
+			throw new TesseractException("Error during OCR", e.getCause());
+		}
+		return results;
+	}
+
+	/**
+	 * Reads a region in the background. The region is cropped before returning, so the frame can be closed and the
+	 * caller can keep interacting with the device while the text is read.
+	 *
+	 * @param frame   Captured frame.
+	 * @param area    Region to read.
+	 * @param profile Settings and preprocessing for the field read.
+	 * @return The text of the region. It completes exceptionally with a {@link TesseractException} if the OCR fails.
+	 * @throws IllegalArgumentException If the region exceeds the frame.
+	 */
+	public static CompletableFuture<String> ocrRegionAsync(ImageFrame frame, DTOArea area, EnumOcrProfile profile) {
+		return ocrAsync(crop(frame, area), profile);
+	}
+
+	/**
+	 * Reads a region with several preprocessing variants in parallel (scales, thresholds and inversion) and votes
+	 * among the readings that the parser accepts, weighting each one by its Tesseract confidence. A single capture
+	 * and one parallel burst replace retrying capture and OCR until the text parses.
+	 *
+	 * @param frame   Captured frame.
+	 * @param area    Region to read.
+	 * @param profile Settings and base preprocessing for the field read.
+	 * @param parser  Parses a reading, empty if the text does not have the expected format.
+	 * @return The parsed value with the most votes, or empty if no variant could be parsed.
+	 * @throws TesseractException If the OCR of every variant fails.
+	 */
+	public static <T> Optional<T> ocrVoting(ImageFrame frame, DTOArea area, EnumOcrProfile profile, Function<String, Optional<T>> parser) throws TesseractException {
+		return ocrVoting(crop(frame, area), profile, parser);
+	}
+
+	private static <T> Optional<T> ocrVoting(BufferedImage image, EnumOcrProfile profile, Function<String, Optional<T>> parser) throws TesseractException {
+		return vote(image, profile, parser).map(Vote::value);
+	}
+
+	private static <T> Optional<Vote<T>> vote(BufferedImage image, EnumOcrProfile profile, Function<String, Optional<T>> parser) throws TesseractException {
+		List<CompletableFuture<Reading>> readings = new ArrayList<>();
+		for (Variant variant : variants(profile)) {
+			readings.add(CompletableFuture.supplyAsync(() -> {
+				try {
+					return read(image, profile, variant);
+				} catch (TesseractException e) {
+					throw new CompletionException(e);
+				}
+			}, ocrThreadPool));
+		}
+
+		Map<T, Vote<T>> votes = new LinkedHashMap<>();
+		TesseractException error = null;
+		int failed = 0;
+		for (CompletableFuture<Reading> future : readings) {
+			Reading reading;
+			try {
+				reading = future.join();
+			} catch (CompletionException e) {
+				error = e.getCause() instanceof TesseractException tesseractException ? tesseractException : new TesseractException("Error during OCR", e.getCause());
+				failed++;
+				continue;
+			}
+			// Una lectura válida cuenta aunque Tesseract no informe confianza
+			parser.apply(reading.text()).ifPresent(value -> votes.merge(value, new Vote<>(value, Math.max(1, reading.confidence()), 1),
+					(a, b) -> new Vote<>(value, a.weight() + b.weight(), a.readings() + b.readings())));
+		}
+		if (failed == readings.size()) {
+			throw error;
+		}
+		return votes.values().stream().max((a, b) -> Integer.compare(a.weight(), b.weight()));
+	}
+
+	private static List<Variant> variants(EnumOcrProfile profile) {
+		int scale = Math.max(2, profile.getScale());
+		return List.of(
+				new Variant(profile.getScale(), profile.isBinarize(), 0, false),
+				new Variant(scale + 1, true, 0, false),
+				new Variant(scale, true, -THRESHOLD_STEP, false),
+				new Variant(scale, true, THRESHOLD_STEP, false),
+				new Variant(scale, true, 0, true),
+				new Variant(1, false, 0, false)).stream().distinct().toList();
+	}
+
+	/**
+	 * Reads a countdown timer. The glyphs are classified with {@link TimerGlyphRecognizer} and, if any of them can not
+	 * be read confidently, the region is read by {@link #ocrVoting voting} with the {@link EnumOcrProfile#TIMER_HHMMSS}
+	 * profile. The glyphs are learned only when several variants agree on the text, and every
+	 * {@value #GLYPH_CHECK_INTERVAL}th glyph read is also checked by voting so that a wrong sample gets corrected.
+	 *
+	 * @param frame Captured frame.
+	 * @param area  Region containing only the timer.
+	 * @return The remaining time, or empty if no timer could be read.
+	 * @throws TesseractException If the fallback OCR fails.
+	 */
+	public static Optional<Duration> ocrDuration(ImageFrame frame, DTOArea area) throws TesseractException {
+		BufferedImage image = crop(frame, area);
+		TimerGlyphRecognizer recognizer = TimerGlyphRecognizer.getInstance();
+		Optional<Duration> duration = recognizer.recognize(image);
+		if (duration.isPresent() && glyphReads.incrementAndGet() % GLYPH_CHECK_INTERVAL != 0) {
+			return duration;
+		}
+
+		Optional<Vote<String>> vote;
+		try {
+			vote = vote(image, EnumOcrProfile.TIMER_HHMMSS, reading -> {
+				String text = reading.replaceAll("\\s", "");
+				return TimerGlyphRecognizer.parseDuration(text).map(value -> text);
+			});
+		} catch (TesseractException e) {
+			// La comprobación no debe invalidar una lectura de glifos
+			if (duration.isPresent()) {
+				return duration;
+			}
+			throw e;
+		}
+		if (vote.isEmpty()) {
+			return duration;
+		}
+
+		// Una sola variante puede ser una lectura errónea, que se aprendería para siempre
+		boolean confirmed = vote.get().readings() >= CONFIRMING_READINGS;
+		if (confirmed) {
+			recognizer.learn(image, vote.get().value());
+		}
+		if (duration.isPresent() && !confirmed) {
+			return duration;
+		}
+		return TimerGlyphRecognizer.parseDuration(vote.get().value());
+	}
+
+	/**
+	 * Reads the status word of a building or queue. The region is classified with {@link StatusLabelClassifier} and, if
+	 * it is not confidently a known word, read by Tesseract with the {@link EnumOcrProfile#STATUS_WORD} profile and
+	 * {@link #ocrVoting voting} among the readings that show a known word or a timer. A word found by Tesseract is
+	 * learned for the next reads.
+	 *
+	 * @param frame Captured frame.
+	 * @param area  Region containing only the status.
+	 * @return The status. Its label is null if the region shows no known word, e.g. a remaining time, and its text is
+	 *         set when Tesseract was used; empty if no reading was a word or a timer.
+	 * @throws TesseractException If the fallback OCR fails.
+	 */
+	public static DTOStatusLabel readStatusLabel(ImageFrame frame, DTOArea area) throws TesseractException {
+		BufferedImage image = crop(frame, area);
+		StatusLabelClassifier classifier = StatusLabelClassifier.getInstance();
+		DTOStatusLabel status = classifier.classify(image);
+		if (status.getLabel() != null) {
+			return status;
+		}
+
+		String text = ocrVoting(image, EnumOcrProfile.STATUS_WORD, reading -> {
+			EnumStatusLabel found = StatusLabelClassifier.find(reading);
+			if (found != null) {
+				return Optional.of(found.getText());
+			}
+			return TimerGlyphRecognizer.parseDuration(reading).map(duration -> reading.trim().replaceAll("\\s+", " "));
+		}).orElse("");
+		EnumStatusLabel label = StatusLabelClassifier.find(text);
+		if (label != null) {
+			classifier.learn(image, label);
+		}
+		return new DTOStatusLabel(label, status.getConfidence(), text);
+	}
+
+	private static BufferedImage crop(ImageFrame frame, DTOArea area) {
+		DTOPoint p1 = area.getTopLeft();
+		DTOPoint p2 = area.getBottomRight();
+		int x = Math.min(p1.getX(), p2.getX());
+		int y = Math.min(p1.getY(), p2.getY());
+		return frame.crop(x, y, Math.abs(p1.getX() - p2.getX()), Math.abs(p1.getY() - p2.getY()));
+	}
+
+	private static CompletableFuture<String> ocrAsync(BufferedImage image, EnumOcrProfile profile) {
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return ocr(image, profile);
+			} catch (TesseractException e) {
+				throw new CompletionException(e);
+			}
+		}, ocrThreadPool);
+	}
+
+	private static String ocr(BufferedImage image, EnumOcrProfile profile) throws TesseractException {
+		return read(image, profile, new Variant(profile.getScale(), profile.isBinarize(), 0, false)).text();
+	}
+
+	private static Reading read(BufferedImage image, EnumOcrProfile profile, Variant variant) throws TesseractException {
+		// Los mismos pixeles leídos con la misma configuración siempre dan el mismo texto
+		String settings = profile.name() + "|" + variant;
+		Reading cached = OcrCache.getInstance().get(image, settings);
+		if (cached != null) {
+			return cached;
+		}
+
+		BufferedImage prepared = preprocess(image, variant);
+		Reading reading;
+		try (TesseractPool.Engine tesseract = TesseractPool.get(TESSDATA_PATH, LANGUAGE).lease()) {
+			tesseract.setPageSegMode(profile.getPageSegMode()).setCharWhitelist(profile.getWhitelist());
+			String text = tesseract.doOCR(prepared);
+			reading = new Reading(text, tesseract.getConfidence());
+		}
+		OcrCache.getInstance().put(image, settings, reading);
+		return reading;
+	}
+
+	/**
+	 * Prepares a crop for a profile: grayscale, upscaled and binarized with Otsu's threshold so that the text ends up
+	 * dark on a light background, with a light margin around it.
+	 *
+	 * @return The image to read. The crop itself if the profile does not preprocess.
+	 */
+	public static BufferedImage preprocess(BufferedImage image, EnumOcrProfile profile) {
+		return preprocess(image, new Variant(profile.getScale(), profile.isBinarize(), 0, false));
+	}
+
+	private static BufferedImage preprocess(BufferedImage image, Variant variant) {
+		if (!variant.binarize() && variant.scale() == 1) {
+			return image;
+		}
+
+		int scale = variant.scale();
+		int width = image.getWidth() * scale;
+		int height = image.getHeight() * scale;
+		BufferedImage gray = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+		Graphics2D graphics = gray.createGraphics();
+		graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		graphics.drawImage(image, 0, 0, width, height, null);
+		graphics.dispose();
+		if (!variant.binarize()) {
+			return gray;
+		}
+
+		byte[] pixels = ((DataBufferByte) gray.getRaster().getDataBuffer()).getData();
+		int[] histogram = new int[256];
+		for (byte pixel : pixels) {
+			histogram[pixel & 0xFF]++;
+		}
+		int threshold = Math.max(0, Math.min(254, otsuThreshold(histogram, pixels.length) + variant.thresholdOffset()));
+
+		// El fondo es la clase mayoritaria; si es oscura se invierte para tener texto oscuro sobre fondo claro
+		int dark = 0;
+		for (int i = 0; i <= threshold; i++) {
+			dark += histogram[i];
+		}
+		boolean invert = dark > pixels.length / 2 != variant.invert();
+
+		BufferedImage binary = new BufferedImage(width + PADDING * 2, height + PADDING * 2, BufferedImage.TYPE_BYTE_GRAY);
+		byte[] target = ((DataBufferByte) binary.getRaster().getDataBuffer()).getData();
+		Arrays.fill(target, (byte) 0xFF);
+		int targetWidth = width + PADDING * 2;
+		for (int y = 0; y < height; y++) {
+			int source = y * width;
+			int destination = (y + PADDING) * targetWidth + PADDING;
+			for (int x = 0; x < width; x++) {
+				boolean light = (pixels[source + x] & 0xFF) > threshold;
+				target[destination + x] = light != invert ? (byte) 0xFF : 0;
+			}
+		}
+		return binary;
+	}
+
+	static int otsuThreshold(int[] histogram, int total) {
+		long sum = 0;
+		for (int i = 0; i < 256; i++) {
+			sum += (long) i * histogram[i];
+		}
+		long sumBackground = 0;
+		int weightBackground = 0;
+		double maxVariance = -1;
+		int threshold = 127;
+		for (int i = 0; i < 256; i++) {
+			weightBackground += histogram[i];
+			if (weightBackground == 0) {
+				continue;
+			}
+			int weightForeground = total - weightBackground;
+			if (weightForeground == 0) {
+				break;
+			}
+			sumBackground += (long) i * histogram[i];
+			double meanBackground = (double) sumBackground / weightBackground;
+			double meanForeground = (double) (sum - sumBackground) / weightForeground;
+			double variance = (double) weightBackground * weightForeground * (meanBackground - meanForeground) * (meanBackground - meanForeground);
+			if (variance > maxVariance) {
+				maxVariance = variance;
+				threshold = i;
+			}
+		}
+		return threshold;
+	}
+
 	/**
 	 * Ejecuta OCR sobre una región específica de una imagen.
 	 *
@@ -46,15 +435,10 @@ public class UtilOCR {
 		// Extraer la subimagen (la región de interés)
 		BufferedImage subImage = image.getSubimage(x, y, width, height);
 
-		// Configurar Tesseract
-		Tesseract tesseract = new Tesseract();
-		// Establece la ruta a la carpeta tessdata (asegúrate de que la ruta sea correcta)
-		tesseract.setDatapath("/lib/tesseract");
-		// Establecer el idioma; por ejemplo, "spa" para español
-		tesseract.setLanguage("eng");
-
-		// Ejecutar OCR sobre la subimagen y devolver el resultado
-		return tesseract.doOCR(subImage);
+		// Ejecutar OCR sobre la subimagen con un motor ya inicializado del pool
+		try (TesseractPool.Engine tesseract = TesseractPool.get("/lib/tesseract", "eng").lease()) {
+			return tesseract.doOCR(subImage);
+		}
 	}
 
 }